@@ -0,0 +1,60 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import exceptions.NullNodeException;
+import maze.IndexedGraph;
+import maze.IntMaze;
+import maze.Maze;
+import maze.Node;
+
+/**
+ * Benchmarks of the operations of the maze: building it edge by edge, reading
+ * the neighbours of every node, and converting it to a maze.IntMaze. Reading
+ * the neighbours of the maze of nodes and of the indexed maze compares the two
+ * representations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MazeBenchmark {
+
+	@Benchmark
+	public Maze<Node> addEdge(MazeState state) throws NullNodeException {
+		return MazeState.build(state.edges);
+	}
+
+	@Benchmark
+	public void neighbours(MazeState state, Blackhole blackhole) throws NullNodeException {
+		Maze<Node> maze = state.maze;
+		for (Node node : maze.getNodes()) {
+			for (Node neighbour : maze.neighbours(node))
+				blackhole.consume(neighbour);
+		}
+	}
+
+	@Benchmark
+	public void indexedNeighbours(MazeState state, Blackhole blackhole) {
+		IndexedGraph<Node> graph = state.graph;
+		for (int node = 0; node < graph.getNodeCount(); node++) {
+			for (int p = graph.neighboursBegin(node); p < graph.neighboursEnd(node); p++)
+				blackhole.consume(graph.neighbourAt(p));
+		}
+	}
+
+	@Benchmark
+	public IntMaze fromMaze(MazeState state) {
+		return IntMaze.fromMaze(state.maze);
+	}
+}
@@ -0,0 +1,60 @@
+package benchmark;
+
+import generators.MazeGenerator;
+import generators.OpenGrid;
+import generators.RandomGeometric;
+import generators.RecursiveBacktracker;
+
+/**
+ * The shapes of the mazes the benchmarks run on, made by the generators of the
+ * generators package. Every maze is generated from a fixed seed, so that
+ * every run of a benchmark measures the same mazes.
+ */
+public enum MazeShape {
+
+	/* A perfect maze of side by side cells, with long corridors */
+	PERFECT {
+		@Override
+		public MazeGenerator generator(int side, long seed) {
+			return new RecursiveBacktracker(side, side, seed);
+		}
+	},
+
+	/* A perfect maze with a tenth of the remaining walls removed */
+	BRAIDED {
+		@Override
+		public MazeGenerator generator(int side, long seed) {
+			return new RecursiveBacktracker(side, side, 0.1, seed);
+		}
+	},
+
+	/* Every pair of adjacent cells of the grid connected */
+	OPEN_GRID {
+		@Override
+		public MazeGenerator generator(int side, long seed) {
+			return new OpenGrid(side, side);
+		}
+	},
+
+	/* About as many nodes as the grids, with irregular degrees */
+	RANDOM_GEOMETRIC {
+		@Override
+		public MazeGenerator generator(int side, long seed) {
+			int cells = Math.max(1, side / 2);
+			return new RandomGeometric(cells, cells, 4, false, seed);
+		}
+	};
+
+	/**
+	 * Returns the generator of the maze of this shape and of the given size
+	 *
+	 * @param side
+	 *            the number of cells on each side of the grid, or about the
+	 *            square root of the number of nodes
+	 * @param seed
+	 *            the seed of the random choices
+	 *
+	 * @return the generator of the maze
+	 */
+	public abstract MazeGenerator generator(int side, long seed);
+}
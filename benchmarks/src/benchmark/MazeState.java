@@ -0,0 +1,95 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import exceptions.NullNodeException;
+import generators.MazeGenerator;
+import maze.IntMaze;
+import maze.Maze;
+import maze.Node;
+
+/**
+ * The maze a benchmark runs on, generated once for every combination of shape
+ * and size, in every representation: the edges, the input file, the maze of
+ * nodes and the indexed maze.
+ */
+@State(Scope.Benchmark)
+public class MazeState {
+
+	/* Seed of every maze, so that every run measures the same mazes */
+	private static final long SEED = 42;
+
+	/** The shape of the maze */
+	@Param({ "PERFECT", "BRAIDED", "OPEN_GRID", "RANDOM_GEOMETRIC" })
+	public MazeShape shape;
+
+	/** The number of cells on each side of the maze */
+	@Param({ "32", "128", "512" })
+	public int side;
+
+	/** The IDs of the nodes of every edge, two for each edge */
+	public int[] edges;
+
+	/** The maze, in the input format of the parser */
+	public File file;
+
+	/** The maze, as a maze of nodes */
+	public Maze<Node> maze;
+
+	/** The maze, indexed */
+	public IntMaze graph;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, NullNodeException {
+		MazeGenerator generator = shape.generator(side, SEED);
+
+		int[][] collected = { new int[1 << 10] };
+		int[] size = { 0 };
+		generator.generate((ID1, ID2, weight) -> {
+			if (size[0] + 2 > collected[0].length)
+				collected[0] = Arrays.copyOf(collected[0], collected[0].length * 2);
+			collected[0][size[0]++] = ID1;
+			collected[0][size[0]++] = ID2;
+		});
+		edges = Arrays.copyOf(collected[0], size[0]);
+
+		file = File.createTempFile("maze-" + shape + "-" + side + "-", ".txt");
+		file.deleteOnExit();
+		generator.write(file);
+
+		maze = build(edges);
+		graph = IntMaze.fromMaze(maze);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		file.delete();
+	}
+
+	/**
+	 * Builds a maze of nodes with the given edges
+	 *
+	 * @param edges
+	 *            the IDs of the nodes of every edge, two for each edge
+	 *
+	 * @return the maze
+	 *
+	 * @throws NullNodeException
+	 *             never, as no node is null
+	 */
+	public static Maze<Node> build(int[] edges) throws NullNodeException {
+		Maze<Node> maze = new Maze<>(new Node(0), new Node(1));
+		for (int i = 0; i < edges.length; i += 2)
+			maze.addEdge(new Node(edges[i]), new Node(edges[i + 1]));
+		return maze;
+	}
+}
@@ -0,0 +1,44 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import exceptions.IllegalFileException;
+import maze.IntMaze;
+import maze.Maze;
+import maze.Node;
+import utils.Parser;
+
+/**
+ * Benchmarks of the parsing of a maze file, into a maze of nodes and into an
+ * indexed maze.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+	@Benchmark
+	public Maze<Node> parse(MazeState state) throws IllegalFileException {
+		return new Parser().parse(state.file);
+	}
+
+	@Benchmark
+	public IntMaze parseMapped(MazeState state) throws IllegalFileException {
+		return new Parser().parseMapped(state.file);
+	}
+
+	@Benchmark
+	public IntMaze parseParallel(MazeState state) throws IllegalFileException {
+		return new Parser().parseParallel(state.file);
+	}
+}
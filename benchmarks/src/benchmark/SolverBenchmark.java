@@ -0,0 +1,119 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import maze.IndexedGraph;
+import maze.Node;
+import solve.AbstractSearch;
+import solve.AbstractSearch.SolveMode;
+import solve.BidirectionalDijkstra;
+import solve.BidirectionalSearch;
+import solve.DFS;
+import solve.ParallelBFS;
+import solve.ParallelDFS;
+
+/**
+ * Benchmarks of the searches, side by side on the same mazes: every engine
+ * which finds one solution, and every engine which finds all of them. The
+ * search for all solutions stops after MAX_SOLUTIONS solutions, as most mazes
+ * with loops have far more solutions than could ever be visited.<br>
+ * <br>
+ * Every search is created once for every maze, as a program answering many
+ * queries on the same maze would, so the buffers a search keeps between calls
+ * are only allocated by the first one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+
+	/* Number of solutions after which the search for all solutions stops */
+	private static final long MAX_SOLUTIONS = 10000;
+
+	/**
+	 * The engines which find one solution
+	 */
+	public static enum OneSolutionEngine {
+		DFS, BIDIRECTIONAL_SEARCH, BIDIRECTIONAL_DIJKSTRA, PARALLEL_BFS;
+
+		AbstractSearch<Node> create(IndexedGraph<Node> graph) {
+			switch (this) {
+			case DFS:
+				return new DFS<>(graph, SolveMode.ONE_SOLUTION);
+			case BIDIRECTIONAL_SEARCH:
+				return new BidirectionalSearch<>(graph, SolveMode.ONE_SOLUTION);
+			case BIDIRECTIONAL_DIJKSTRA:
+				return new BidirectionalDijkstra<>(graph, SolveMode.ONE_SOLUTION);
+			default:
+				return new ParallelBFS<>(graph, SolveMode.ONE_SOLUTION);
+			}
+		}
+	}
+
+	/**
+	 * The engines which find all solutions
+	 */
+	public static enum AllSolutionsEngine {
+		DFS, PARALLEL_DFS;
+
+		AbstractSearch<Node> create(IndexedGraph<Node> graph) {
+			if (this == DFS)
+				return new DFS<>(graph, SolveMode.ALL_SOLUTIONS);
+			return new ParallelDFS<>(graph, SolveMode.ALL_SOLUTIONS);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class OneSolution {
+		@Param({ "DFS", "BIDIRECTIONAL_SEARCH", "BIDIRECTIONAL_DIJKSTRA", "PARALLEL_BFS" })
+		public OneSolutionEngine engine;
+
+		public AbstractSearch<Node> search;
+
+		@Setup(Level.Trial)
+		public void setUp(MazeState state) {
+			search = engine.create(state.graph);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class AllSolutions {
+		@Param({ "DFS", "PARALLEL_DFS" })
+		public AllSolutionsEngine engine;
+
+		public AbstractSearch<Node> search;
+
+		@Setup(Level.Trial)
+		public void setUp(MazeState state) {
+			search = engine.create(state.graph);
+		}
+	}
+
+	@Benchmark
+	public ArrayList<ArrayList<Node>> oneSolution(OneSolution one) {
+		return one.search.solve();
+	}
+
+	@Benchmark
+	public long allSolutions(AllSolutions all) {
+		long[] count = { 0 };
+		all.search.solve(solution -> ++count[0] < MAX_SOLUTIONS);
+		return count[0];
+	}
+}
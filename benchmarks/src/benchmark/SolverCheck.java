@@ -0,0 +1,113 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import exceptions.NullNodeException;
+import maze.IndexedGraph;
+import maze.Maze;
+import maze.Node;
+import solve.AbstractSearch;
+import solve.AbstractSearch.SolveMode;
+import solve.DFS;
+import solve.ParallelDFS;
+
+/**
+ * Checks that the parallel search for all solutions finds the same solutions
+ * as the sequential one, each of them once, on small random mazes with many
+ * loops. Every maze is searched by ParallelDFS on a pool of one thread, where
+ * the tasks run one after the other, and on a pool of every available
+ * processor, and the solutions are compared with the ones of DFS.<br>
+ * <br>
+ * It is run from the benchmarks jar, after packaging it:
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar benchmark.SolverCheck
+ * </pre>
+ *
+ * and throws an IllegalStateException describing the first maze whose
+ * solutions differ.
+ */
+public class SolverCheck {
+
+	/* Number of random mazes checked */
+	private static final int MAZES = 300;
+
+	/* Smallest and largest number of nodes of a maze */
+	private static final int MIN_NODES = 6;
+	private static final int MAX_NODES = 14;
+
+	/* Probability of an edge between any two nodes */
+	private static final double EDGE_PROBABILITY = 0.35;
+
+	/* Seed of the mazes, so that every run checks the same mazes */
+	private static final long SEED = 42;
+
+	public static void main(String[] args) throws NullNodeException {
+		Random random = new Random(SEED);
+		ForkJoinPool single = new ForkJoinPool(1);
+		ForkJoinPool all = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		long solutions = 0;
+
+		try {
+			for (int i = 0; i < MAZES; i++) {
+				IndexedGraph<Node> graph = randomMaze(random).index();
+				ArrayList<String> expected = solutions(new DFS<>(graph, SolveMode.ALL_SOLUTIONS));
+				check(i, "1 thread", expected, solutions(new ParallelDFS<>(graph, SolveMode.ALL_SOLUTIONS, single)));
+				check(i, all.getParallelism() + " threads", expected,
+						solutions(new ParallelDFS<>(graph, SolveMode.ALL_SOLUTIONS, all)));
+				solutions += expected.size();
+			}
+		} finally {
+			single.shutdown();
+			all.shutdown();
+		}
+
+		System.out.println(MAZES + " mazes checked, " + solutions + " solutions found by every search");
+	}
+
+	/*
+	 * Returns a maze with a random number of nodes, from the first to the
+	 * last one, and an edge between any two nodes with EDGE_PROBABILITY
+	 */
+	private static Maze<Node> randomMaze(Random random) throws NullNodeException {
+		int nodeCount = MIN_NODES + random.nextInt(MAX_NODES - MIN_NODES + 1);
+		Node[] nodes = new Node[nodeCount];
+		for (int i = 0; i < nodeCount; i++)
+			nodes[i] = new Node(i);
+
+		Maze<Node> maze = new Maze<>(nodes[0], nodes[nodeCount - 1]);
+		for (int i = 0; i < nodeCount; i++) {
+			maze.addNode(nodes[i]);
+			for (int j = 0; j < i; j++) {
+				if (random.nextDouble() < EDGE_PROBABILITY)
+					maze.addEdge(nodes[i], nodes[j]);
+			}
+		}
+		return maze;
+	}
+
+	/*
+	 * Returns every solution found by the given search, as text, sorted so
+	 * that two searches can be compared whatever their order
+	 */
+	private static ArrayList<String> solutions(AbstractSearch<Node> search) {
+		ArrayList<String> solutions = new ArrayList<>();
+		for (ArrayList<Node> solution : search.solve())
+			solutions.add(solution.toString());
+		Collections.sort(solutions);
+		return solutions;
+	}
+
+	/*
+	 * Throws an IllegalStateException if the solutions found by ParallelDFS
+	 * are not the ones found by DFS, each of them once
+	 */
+	private static void check(int maze, String threads, ArrayList<String> expected, ArrayList<String> found) {
+		if (!found.equals(expected))
+			throw new IllegalStateException("Maze " + maze + ": ParallelDFS on " + threads + " found "
+					+ found.size() + " solutions, DFS found " + expected.size());
+	}
+}
@@ -1,13 +1,26 @@
 import java.io.File;
-import java.util.ArrayList;
+import java.io.IOException;
 
 import exceptions.IllegalFileException;
-import maze.Maze;
+import maze.IndexedGraph;
 import maze.Node;
+import maze.ReducedMaze;
 import solve.AbstractSearch;
+import solve.AStar;
 import solve.AbstractSearch.SolveMode;
+import solve.BidirectionalDijkstra;
 import solve.BidirectionalSearch;
+import solve.ContractionHierarchy;
+import solve.ContractionHierarchySearch;
 import solve.DFS;
+import solve.Heuristic;
+import solve.KShortestPaths;
+import solve.Landmarks;
+import solve.ParallelBFS;
+import solve.ParallelDFS;
+import solve.ShortestPathCounter;
+import utils.BinaryMazeFile;
+import utils.HierarchyFile;
 import utils.Parser;
 
 public class Solve {
@@ -23,17 +36,88 @@ public class Solve {
 
 		/*
 		 * Change this to SolveMode.ONE_SOLUTION to find only one solution or to
-		 * SolveMode.ALL_SOLUTIONS to find all solutions
+		 * SolveMode.ALL_SOLUTIONS to find all solutions, or to
+		 * SolveMode.K_SHORTEST_SOLUTIONS to find the SHORTEST_SOLUTIONS shortest
+		 * ones, in order of length. The solutions are only
+		 * counted with SolveMode.COUNT_SHORTEST_SOLUTIONS, for the shortest
+		 * ones, or SolveMode.COUNT_ALL_SOLUTIONS, for all of them
 		 */
 		final SolveMode SOLVE_MODE = SolveMode.ONE_SOLUTION;
 
+		/*
+		 * Change this variable to stop searching after a given number of
+		 * solutions
+		 */
+		final long MAX_SOLUTIONS = Long.MAX_VALUE;
+
+		/*
+		 * Change this variable to change the number of shortest solutions
+		 * found in SolveMode.K_SHORTEST_SOLUTIONS
+		 */
+		final int SHORTEST_SOLUTIONS = 5;
+
 		/*
 		 * Turn this variable to true to use DFS when finding one solution. By
 		 * default bidirectional search is used instead, as it is faster.
 		 */
 		final boolean useDFSForOneSolution = false;
 
-		Maze<Node> maze;
+		/*
+		 * Turn this variable to true to solve the maze using all the available
+		 * processors: a parallel breadth first search finds one solution, if
+		 * the edges are not weighted, and a parallel depth first search finds
+		 * all solutions
+		 */
+		final boolean useParallelSearch = false;
+
+		/*
+		 * Turn this variable to true to solve the maze in its compact
+		 * representation, IntMaze, which is faster on large mazes. The file is
+		 * then read by the parallel parser, using all the available processors
+		 */
+		final boolean useIntMaze = false;
+
+		/*
+		 * Turn this variable to true if the input file is in the binary format
+		 * written by utils.BinaryMazeFile. The maze is then loaded without
+		 * parsing, and solved in its compact representation
+		 */
+		final boolean binaryInput = false;
+
+		/*
+		 * Turn this variable to true to remove the dead ends of the maze and
+		 * replace its corridors with single weighted edges before solving it
+		 * (see maze.ReducedMaze). The solutions are expanded back into paths
+		 * of the whole maze when they are printed
+		 */
+		final boolean reduceMaze = false;
+
+		/*
+		 * Change this variable to the path of a file with the coordinates of
+		 * the nodes (see utils.Parser.parseCoordinates) to find one solution
+		 * with A*, using the Manhattan distance as heuristic
+		 */
+		final String COORDINATES_FILE = null;
+
+		/*
+		 * Change this variable to a positive number of landmarks to find one
+		 * solution with A*, using the distances from the landmarks (see
+		 * solve.Landmarks) as heuristic. This pays off when the same maze is
+		 * searched many times, as the landmarks are chosen on every run
+		 */
+		final int LANDMARK_COUNT = 0;
+
+		/*
+		 * Change this variable to the path of a contraction hierarchy file
+		 * (see utils.HierarchyFile) to find one solution with a query on the
+		 * hierarchy of the maze. If the file does not exist, the hierarchy is
+		 * built and saved to it, so that the following runs on the same maze
+		 * only load it
+		 */
+		final String HIERARCHY_FILE = null;
+
+		/* The maze, with every node given a dense index */
+		IndexedGraph<Node> graph;
 
 		/*
 		 * AbstractSearch is a superclass extended by all the algorithm
@@ -42,9 +126,17 @@ public class Solve {
 		AbstractSearch<Node> solver;
 		Parser parser = new Parser();
 
-		ArrayList<ArrayList<Node>> solutions = new ArrayList<>();
+		if (binaryInput)
+			graph = new BinaryMazeFile().load(new File(INPUT_FILE));
+		else if (useIntMaze)
+			graph = parser.parseParallel(new File(INPUT_FILE));
+		else
+			graph = parser.parse(new File(INPUT_FILE)).index();
 
-		maze = parser.parse(new File(INPUT_FILE));
+		/* The corridors of the reduced maze are weighted edges */
+		final ReducedMaze<Node> reducedMaze = reduceMaze ? ReducedMaze.reduce(graph) : null;
+		if (reducedMaze != null)
+			graph = reducedMaze;
 
 		/*
 		 * Solving with different algorithms depending on how many solution are
@@ -53,23 +145,81 @@ public class Solve {
 		 * search is the only one that implements ALL_SOLUTION SolveMode
 		 */
 
-		if (SOLVE_MODE == SolveMode.ONE_SOLUTION && !useDFSForOneSolution) {
-			solver = new BidirectionalSearch<Node>(maze, SOLVE_MODE);
+		if (SOLVE_MODE == SolveMode.COUNT_SHORTEST_SOLUTIONS) {
+			solver = new ShortestPathCounter<Node>(graph, SOLVE_MODE);
+		} else if (SOLVE_MODE == SolveMode.COUNT_ALL_SOLUTIONS) {
+			solver = new DFS<Node>(graph, SOLVE_MODE);
+		} else if (SOLVE_MODE == SolveMode.K_SHORTEST_SOLUTIONS) {
+			solver = new KShortestPaths<Node>(graph, SOLVE_MODE, SHORTEST_SOLUTIONS);
+		} else if (useParallelSearch && SOLVE_MODE == SolveMode.ALL_SOLUTIONS) {
+			solver = new ParallelDFS<Node>(graph, SOLVE_MODE);
+		} else if (useParallelSearch && SOLVE_MODE == SolveMode.ONE_SOLUTION && !graph.isWeighted()) {
+			/*
+			 * Parallel BFS ignores the weights of the edges, so weighted mazes,
+			 * as the reduced ones, are left to the searches below
+			 */
+			solver = new ParallelBFS<Node>(graph, SOLVE_MODE);
+		} else if (SOLVE_MODE == SolveMode.ONE_SOLUTION && COORDINATES_FILE != null) {
+			solver = new AStar<Node>(graph, SOLVE_MODE,
+					Heuristic.manhattan(parser.parseCoordinates(new File(COORDINATES_FILE), graph)));
+		} else if (SOLVE_MODE == SolveMode.ONE_SOLUTION && LANDMARK_COUNT > 0) {
+			solver = new AStar<Node>(graph, SOLVE_MODE, Landmarks.build(graph, LANDMARK_COUNT));
+		} else if (SOLVE_MODE == SolveMode.ONE_SOLUTION && HIERARCHY_FILE != null) {
+			File hierarchyFile = new File(HIERARCHY_FILE);
+			ContractionHierarchy hierarchy;
+			if (hierarchyFile.exists()) {
+				hierarchy = new HierarchyFile().load(hierarchyFile);
+			} else {
+				hierarchy = ContractionHierarchy.build(graph);
+				try {
+					new HierarchyFile().write(hierarchy, hierarchyFile);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+			solver = new ContractionHierarchySearch<Node>(graph, SOLVE_MODE, hierarchy);
+		} else if (SOLVE_MODE == SolveMode.ONE_SOLUTION && graph.isWeighted()) {
+			/* Bidirectional search ignores the weights of the edges */
+			solver = new BidirectionalDijkstra<Node>(graph, SOLVE_MODE);
+		} else if (SOLVE_MODE == SolveMode.ONE_SOLUTION && !useDFSForOneSolution) {
+			solver = new BidirectionalSearch<Node>(graph, SOLVE_MODE);
 		} else {
-			solver = new DFS<Node>(maze, SOLVE_MODE);
+			solver = new DFS<Node>(graph, SOLVE_MODE);
 		}
 
 		System.out
 				.println("Solving in mode: " + SOLVE_MODE.name() + ", using algorithm: " + solver.getClass().getSimpleName());
 
-		solutions = solver.solve();
+		/* No solution is built when counting them */
+		if (SOLVE_MODE == SolveMode.COUNT_SHORTEST_SOLUTIONS || SOLVE_MODE == SolveMode.COUNT_ALL_SOLUTIONS) {
+			System.out.println("Solution(s) counted: " + solver.countSolutions());
+			System.out.println(solver.getStats());
+
+			nanoSecondsPassed = System.nanoTime() - nanoSecondsPassed;
+
+			System.out.println("Elapsed time: " + nanoSecondsPassed / 1000000000 + " seconds");
+			return;
+		}
+
+		/*
+		 * Solutions are printed as soon as they are found, without being
+		 * collected, so that the search can run on mazes with more solutions
+		 * than would fit in memory. The search stops after MAX_SOLUTIONS
+		 */
+		final long[] solutionCount = { 0 };
+		solver.solve(solution -> {
+			System.out.println("Solution: " + (reducedMaze == null ? solution : reducedMaze.expand(solution)));
+			solutionCount[0]++;
+			return solutionCount[0] < MAX_SOLUTIONS;
+		});
 
-		if (!solutions.isEmpty()) {
-			System.out.println("Solution(s): " + solutions);
+		if (solutionCount[0] != 0) {
+			System.out.println("Solution(s) found: " + solutionCount[0]);
 
 		} else {
 			System.out.println("\n\nThe maze has no solution");
 		}
+		System.out.println(solver.getStats());
 
 		nanoSecondsPassed = System.nanoTime() - nanoSecondsPassed;
 
@@ -9,4 +9,15 @@ public class IllegalFileException extends Exception {
 	public IllegalFileException() {
 		super("The file does not exist or is bad formatted");
 	}
+
+	/**
+	 * Constructor to report a bad formatted line of a file
+	 * 
+	 * @param offset
+	 *            the offset, in bytes from the beginning of the file, of the
+	 *            line which is bad formatted
+	 */
+	public IllegalFileException(long offset) {
+		super("The file is bad formatted at the line starting at byte " + offset);
+	}
 }
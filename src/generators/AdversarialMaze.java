@@ -0,0 +1,117 @@
+package generators;
+
+/**
+ * This class generates small mazes which are the worst cases of the depth
+ * first searches, for stress tests:
+ * <ul>
+ * <li>DIAMOND_CHAIN: a chain of size diamonds (two paths of two edges between
+ * two nodes) from the start to the end, which has 2^size solutions, all of the
+ * same length, although every diamond is a separate biconnected
+ * component;</li>
+ * <li>LADDER: a grid of two rows and size columns, between its opposite
+ * corners, which is a single biconnected component whose number of simple
+ * paths grows exponentially with its size, so that splitting the maze into
+ * components does not help the search for all solutions;</li>
+ * <li>DEAD_END_TRAP: an open grid of size by size cells hanging from the start,
+ * whose nodes have the smallest IDs after the start, and a corridor of size
+ * nodes from the start to the end. As the neighbours of a node are expanded in
+ * order of ID, DFS explores the whole trap before it finds the corridor, and a
+ * search for all solutions which does not split the maze into components
+ * explores every simple path of the trap.</li>
+ * </ul>
+ * The mazes are generated as a single part, as they are meant to be small.
+ */
+public class AdversarialMaze implements MazeGenerator {
+
+	/**
+	 * The kinds of adversarial mazes
+	 */
+	public static enum Kind {
+		DIAMOND_CHAIN, LADDER, DEAD_END_TRAP;
+	}
+
+	private final Kind kind;
+	private final int size;
+
+	/**
+	 * Constructor to create a generator of adversarial mazes of the given kind
+	 * and size
+	 *
+	 * @param kind
+	 *            the kind of the maze
+	 * @param size
+	 *            the size of the maze, as described for every kind
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the size is not positive or too large
+	 */
+	public AdversarialMaze(Kind kind, int size) {
+		if (size < 1)
+			throw new IllegalArgumentException("The size of the maze must be positive: " + size);
+		if ((long) size * size + size > Integer.MAX_VALUE - 2)
+			throw new IllegalArgumentException("The size of the maze is too large: " + size);
+		this.kind = kind;
+		this.size = size;
+	}
+
+	@Override
+	public int getPartCount() {
+		return 1;
+	}
+
+	@Override
+	public void generate(int part, EdgeSink sink) {
+		switch (kind) {
+		case DIAMOND_CHAIN:
+			diamondChain(sink);
+			break;
+		case LADDER:
+			new OpenGrid(size, 2).generate(sink);
+			break;
+		default:
+			deadEndTrap(sink);
+			break;
+		}
+	}
+
+	/*
+	 * The diamond i has its two middle nodes of IDs 3i + 2 and 3i + 3, and the
+	 * node after it of ID 3i + 4, except for the last one, which is the end
+	 */
+	private void diamondChain(EdgeSink sink) {
+		int previous = 0;
+		for (int i = 0; i < size; i++) {
+			int first = 3 * i + 2;
+			int second = 3 * i + 3;
+			int next = i == size - 1 ? 1 : 3 * i + 4;
+			sink.addEdge(previous, first, 1);
+			sink.addEdge(previous, second, 1);
+			sink.addEdge(first, next, 1);
+			sink.addEdge(second, next, 1);
+			previous = next;
+		}
+	}
+
+	/*
+	 * The trap has the IDs from 2 to size * size + 1, by row, and the
+	 * corridor the following ones
+	 */
+	private void deadEndTrap(EdgeSink sink) {
+		int cells = size * size;
+		sink.addEdge(0, 2, 1);
+		for (int cell = 0; cell < cells; cell++) {
+			if (cell % size < size - 1)
+				sink.addEdge(cell + 2, cell + 3, 1);
+			if (cell + size < cells)
+				sink.addEdge(cell + 2, cell + size + 2, 1);
+		}
+
+		int previous = 0;
+		for (int i = 0; i < size; i++) {
+			int node = cells + 2 + i;
+			sink.addEdge(previous, node, 1);
+			previous = node;
+		}
+		sink.addEdge(previous, 1, 1);
+	}
+}
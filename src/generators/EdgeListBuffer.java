@@ -0,0 +1,62 @@
+package generators;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/*
+ * Growable buffer of edges in the edge list format of utils.Parser: a line for
+ * every edge, with the weight only if it is not 1. The numbers are formatted
+ * directly into the buffer, without creating strings
+ */
+class EdgeListBuffer implements EdgeSink {
+
+	/* Largest number of characters of an int */
+	private static final int INT_DIGITS = 11;
+
+	private byte[] bytes = new byte[1 << 16];
+	private int size;
+
+	@Override
+	public void addEdge(int ID1, int ID2, int weight) {
+		if (size + 3 * INT_DIGITS + 3 > bytes.length)
+			bytes = Arrays.copyOf(bytes, bytes.length * 2);
+
+		append(ID1);
+		bytes[size++] = ' ';
+		append(ID2);
+		if (weight != 1) {
+			bytes[size++] = ' ';
+			append(weight);
+		}
+		bytes[size++] = '\n';
+	}
+
+	/* Removes every edge from the buffer, keeping its memory */
+	public void clear() {
+		size = 0;
+	}
+
+	/* Writes the edges in the buffer to the given stream */
+	public void writeTo(OutputStream output) throws IOException {
+		output.write(bytes, 0, size);
+	}
+
+	/* Appends the decimal digits of the given number */
+	private void append(int number) {
+		long value = number;
+		if (value < 0) {
+			bytes[size++] = '-';
+			value = -value;
+		}
+
+		int digits = 1;
+		for (long power = 10; power <= value; power *= 10)
+			digits++;
+		for (int i = size + digits - 1; i >= size; i--) {
+			bytes[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		size += digits;
+	}
+}
@@ -0,0 +1,23 @@
+package generators;
+
+/**
+ * Interface to receive the edges of a maze as soon as they are generated (see
+ * MazeGenerator). An IntMaze.Builder can receive them directly, as
+ * builder::addEdge.
+ */
+@FunctionalInterface
+public interface EdgeSink {
+
+	/**
+	 * Receives an undirected edge between the two nodes of the given IDs
+	 *
+	 * @param ID1
+	 *            the ID of the first node of the edge
+	 * @param ID2
+	 *            the ID of the second node of the edge
+	 * @param weight
+	 *            the weight of the edge, which is 1 if the maze is not
+	 *            weighted
+	 */
+	public void addEdge(int ID1, int ID2, int weight);
+}
@@ -0,0 +1,163 @@
+package generators;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class represents a maze laid out on a grid of cells, in which every
+ * cell is a node and the passages between adjacent cells are the edges. The
+ * start is the top left cell and the end is the bottom right cell. The cell in
+ * column x and row y is the cell of position y * width + x, and its ID is its
+ * position plus one, except for the start and the end, which have IDs 0 and
+ * 1.<br>
+ * <br>
+ * The extending classes decide the passages of the maze, one row at a time.
+ * After that, every wall left is removed with the probability given to the
+ * constructor, which adds loops to the maze: a perfect maze, with a single
+ * path between any two cells, becomes a braided maze.<br>
+ * <br>
+ * The parts of the maze are bands of consecutive rows. Every row has its own
+ * random generator, seeded from the seed of the maze and from the row, so the
+ * maze is the same whichever order the rows are generated in.
+ */
+public abstract class GridMaze implements MazeGenerator {
+
+	/* Number of edges in a part, roughly */
+	private static final int PART_EDGES = 1 << 20;
+
+	/** The number of columns of the grid */
+	protected final int width;
+
+	/** The number of rows of the grid */
+	protected final int height;
+
+	/** The seed of the random choices */
+	protected final long seed;
+
+	/* Probability of removing every wall left */
+	private final double loops;
+
+	/* Number of rows in every part, but the last one */
+	private final int rowsPerPart;
+
+	/**
+	 * Constructor that has to be called by the extending classes to set the
+	 * size of the grid, the probability of removing every wall left, and the
+	 * seed
+	 *
+	 * @param width
+	 *            the number of columns of the grid
+	 * @param height
+	 *            the number of rows of the grid
+	 * @param loops
+	 *            the probability of removing every wall left, from 0 (no wall
+	 *            is removed) to 1 (every wall is removed)
+	 * @param seed
+	 *            the seed of the random choices
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the size is not positive, if the grid has more cells than
+	 *             there are IDs, or if the probability is not between 0 and 1
+	 */
+	protected GridMaze(int width, int height, double loops, long seed) {
+		if (width < 1 || height < 1)
+			throw new IllegalArgumentException("The size of the grid must be positive: " + width + "x" + height);
+		if ((long) width * height > Integer.MAX_VALUE - 1)
+			throw new IllegalArgumentException("Too many cells: " + width + "x" + height);
+		if (!(loops >= 0 && loops <= 1))
+			throw new IllegalArgumentException("The probability of loops must be between 0 and 1: " + loops);
+		this.width = width;
+		this.height = height;
+		this.loops = loops;
+		this.seed = seed;
+		this.rowsPerPart = Math.max(1, PART_EDGES / (2 * width));
+	}
+
+	/**
+	 * Returns the ID of the cell in the given column and row
+	 *
+	 * @param x
+	 *            the column of the cell
+	 * @param y
+	 *            the row of the cell
+	 *
+	 * @return the ID of the cell
+	 */
+	public int getID(int x, int y) {
+		int position = y * width + x;
+		if (position == 0)
+			return 0;
+		if (position == width * height - 1)
+			return 1;
+		return position + 1;
+	}
+
+	@Override
+	public int getPartCount() {
+		return (height + rowsPerPart - 1) / rowsPerPart;
+	}
+
+	@Override
+	public void generate(int part, EdgeSink sink) {
+		boolean[] right = new boolean[width];
+		boolean[] up = new boolean[width];
+
+		int end = Math.min(height, (part + 1) * rowsPerPart);
+		for (int y = part * rowsPerPart; y < end; y++) {
+			passages(y, new SplittableRandom(mix(seed, 2L * y)), right, up);
+
+			if (loops > 0) {
+				SplittableRandom random = new SplittableRandom(mix(seed, 2L * y + 1));
+				for (int x = 0; x < width; x++) {
+					if (!right[x] && x < width - 1 && random.nextDouble() < loops)
+						right[x] = true;
+					if (!up[x] && y > 0 && random.nextDouble() < loops)
+						up[x] = true;
+				}
+			}
+
+			for (int x = 0; x < width; x++) {
+				if (right[x] && x < width - 1)
+					sink.addEdge(getID(x, y), getID(x + 1, y), 1);
+				if (up[x] && y > 0)
+					sink.addEdge(getID(x, y), getID(x, y - 1), 1);
+			}
+		}
+	}
+
+	/**
+	 * Decides the passages of the given row: whether every cell of the row is
+	 * connected to the next cell of the row and to the cell above it. The
+	 * passages out of the grid are ignored.
+	 *
+	 * @param y
+	 *            the row
+	 * @param random
+	 *            the random generator of the row
+	 * @param right
+	 *            set by this method to whether every cell is connected to the
+	 *            cell at its right
+	 * @param up
+	 *            set by this method to whether every cell is connected to the
+	 *            cell above it
+	 */
+	protected abstract void passages(int y, SplittableRandom random, boolean[] right, boolean[] up);
+
+	/**
+	 * Returns a seed for the given index, derived from the given seed, such
+	 * that the seeds of different indices are unrelated (the finaliser of
+	 * SplitMix64)
+	 *
+	 * @param seed
+	 *            the seed
+	 * @param index
+	 *            the index
+	 *
+	 * @return the seed for the index
+	 */
+	protected static long mix(long seed, long index) {
+		long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
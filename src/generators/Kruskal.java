@@ -0,0 +1,101 @@
+package generators;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class generates perfect mazes with the randomised Kruskal algorithm:
+ * the walls are removed in random order, unless the two cells they separate
+ * are already connected, which is checked with a union-find structure. The
+ * mazes have many short dead ends and junctions.
+ */
+public class Kruskal extends SpanningTreeMaze {
+
+	/**
+	 * Constructor to create a generator of perfect mazes of the given size
+	 *
+	 * @param width
+	 *            the number of columns of the grid
+	 * @param height
+	 *            the number of rows of the grid
+	 * @param seed
+	 *            the seed of the random choices
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the size is not positive, or if the grid has more cells
+	 *             than there are IDs
+	 */
+	public Kruskal(int width, int height, long seed) {
+		this(width, height, 0, seed);
+	}
+
+	/**
+	 * Constructor to create a generator of braided mazes of the given size,
+	 * removing every wall of a perfect maze with the given probability
+	 *
+	 * @param width
+	 *            the number of columns of the grid
+	 * @param height
+	 *            the number of rows of the grid
+	 * @param loops
+	 *            the probability of removing every wall left
+	 * @param seed
+	 *            the seed of the random choices
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the size is not positive, if the grid has more cells than
+	 *             there are IDs, or if the probability is not between 0 and 1
+	 */
+	public Kruskal(int width, int height, double loops, long seed) {
+		super(width, height, loops, seed);
+	}
+
+	@Override
+	protected void carve(SplittableRandom random) {
+		int cells = width * height;
+
+		/*
+		 * The walls, as the position of a cell times 2, plus 0 for the wall at
+		 * its right or 1 for the wall above it
+		 */
+		long[] walls = new long[(width - 1) * height + width * (height - 1)];
+		int count = 0;
+		for (int cell = 0; cell < cells; cell++) {
+			if (cell % width < width - 1)
+				walls[count++] = 2L * cell;
+			if (cell >= width)
+				walls[count++] = 2L * cell + 1;
+		}
+
+		/* Union-find of the cells, with path halving */
+		int[] parent = new int[cells];
+		for (int cell = 0; cell < cells; cell++)
+			parent[cell] = cell;
+
+		/* Shuffling the walls as they are taken */
+		for (int i = count - 1; i >= 0; i--) {
+			int j = random.nextInt(i + 1);
+			long wall = walls[j];
+			walls[j] = walls[i];
+
+			int cell = (int) (wall >>> 1);
+			int other = (wall & 1) == 0 ? cell + 1 : cell - width;
+			int root = find(parent, cell);
+			int otherRoot = find(parent, other);
+			if (root != otherRoot) {
+				parent[root] = otherRoot;
+				connect(cell, other);
+			}
+		}
+	}
+
+	/*
+	 * Returns the representative of the set of the given cell
+	 */
+	private static int find(int[] parent, int cell) {
+		while (parent[cell] != cell) {
+			parent[cell] = parent[parent[cell]];
+			cell = parent[cell];
+		}
+		return cell;
+	}
+}
@@ -0,0 +1,133 @@
+package generators;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import maze.IntMaze;
+
+/**
+ * This interface represents a generator of synthetic mazes, whose start is the
+ * node of ID 0 and whose end is the node of ID 1, as for the mazes read by
+ * utils.Parser.<br>
+ * <br>
+ * A generator is deterministic: the maze only depends on its parameters and
+ * on its seed, so the same maze is generated every time. The edges of the maze
+ * are split into parts, which are generated independently of each other, so
+ * that they can be generated in parallel, and the maze is the concatenation of
+ * all the parts, in order. The edges of every part are passed to an EdgeSink
+ * as soon as they are generated, so a part never keeps them in memory.<br>
+ * <br>
+ * The default methods build an IntMaze from the parts, or write the maze in
+ * the edge list format of utils.Parser, generating the parts in parallel.
+ * Writing keeps only a few parts in memory at any time, so mazes with billions
+ * of edges, which could never be built, can be written to a file.
+ */
+public interface MazeGenerator {
+
+	/**
+	 * Returns the number of parts the edges of the maze are split into
+	 *
+	 * @return the number of parts, at least 1
+	 */
+	public int getPartCount();
+
+	/**
+	 * Generates the edges of the given part of the maze, passing them to the
+	 * given sink. This method can be called concurrently for different parts.
+	 *
+	 * @param part
+	 *            the index of the part, from 0 to getPartCount() - 1
+	 * @param sink
+	 *            the sink receiving the edges
+	 */
+	public void generate(int part, EdgeSink sink);
+
+	/**
+	 * Generates all the edges of the maze, part after part, passing them to
+	 * the given sink
+	 *
+	 * @param sink
+	 *            the sink receiving the edges
+	 */
+	public default void generate(EdgeSink sink) {
+		for (int part = 0; part < getPartCount(); part++)
+			generate(part, sink);
+	}
+
+	/**
+	 * Generates the maze and builds it, generating its parts in parallel
+	 *
+	 * @return the generated maze
+	 */
+	public default IntMaze build() {
+		int partCount = getPartCount();
+		if (partCount == 1) {
+			IntMaze.Builder builder = new IntMaze.Builder(0, 1);
+			generate(0, builder::addEdge);
+			return builder.build();
+		}
+
+		IntMaze.Builder[] builders = new IntMaze.Builder[partCount];
+		IntStream.range(0, partCount).parallel().forEach(part -> {
+			builders[part] = new IntMaze.Builder(0, 1);
+			generate(part, builders[part]::addEdge);
+		});
+		for (int part = 1; part < partCount; part++) {
+			builders[0].addAll(builders[part]);
+			builders[part] = null;
+		}
+		return builders[0].buildParallel();
+	}
+
+	/**
+	 * Generates the maze and writes it to the given file, in the edge list
+	 * format of utils.Parser. See write(OutputStream).
+	 *
+	 * @param file
+	 *            the file to be written
+	 *
+	 * @throws IOException
+	 *             if the file can not be written
+	 */
+	public default void write(File file) throws IOException {
+		try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+			write(output);
+		}
+	}
+
+	/**
+	 * Generates the maze and writes it to the given stream, in the edge list
+	 * format of utils.Parser. The parts are generated in parallel, as many at
+	 * a time as there are processors, and written in order, so only those
+	 * parts are kept in memory.
+	 *
+	 * @param output
+	 *            the stream to be written, which is not closed
+	 *
+	 * @throws IOException
+	 *             if the stream can not be written
+	 */
+	public default void write(OutputStream output) throws IOException {
+		int partCount = getPartCount();
+		int batch = Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+		EdgeListBuffer[] buffers = new EdgeListBuffer[batch];
+
+		for (int first = 0; first < partCount; first += batch) {
+			int start = first;
+			int count = Math.min(batch, partCount - first);
+			IntStream.range(0, count).parallel().forEach(i -> {
+				if (buffers[i] == null)
+					buffers[i] = new EdgeListBuffer();
+				buffers[i].clear();
+				generate(start + i, buffers[i]);
+			});
+			for (int i = 0; i < count; i++)
+				buffers[i].writeTo(output);
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package generators;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * This class generates open grids: mazes without walls, in which every cell is
+ * connected to all of its adjacent cells. As nothing is random, every row is
+ * generated independently of the others, and the grid can be as large as
+ * there are IDs for its cells.
+ */
+public class OpenGrid extends GridMaze {
+
+	/**
+	 * Constructor to create a generator of open grids of the given size
+	 *
+	 * @param width
+	 *            the number of columns of the grid
+	 * @param height
+	 *            the number of rows of the grid
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the size is not positive, or if the grid has more cells
+	 *             than there are IDs
+	 */
+	public OpenGrid(int width, int height) {
+		super(width, height, 0, 0);
+	}
+
+	@Override
+	protected void passages(int y, SplittableRandom random, boolean[] right, boolean[] up) {
+		Arrays.fill(right, true);
+		Arrays.fill(up, true);
+	}
+}
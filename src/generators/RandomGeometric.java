@@ -0,0 +1,167 @@
+package generators;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class generates random geometric graphs: points scattered in a square,
+ * with an edge between every two points closer than a given radius. Unlike
+ * the grid mazes, the nodes have irregular degrees and the shortest paths are
+ * not along the axes.<br>
+ * <br>
+ * The square is divided into square cells whose side is the radius, and the
+ * same number of points is scattered uniformly in every cell, so that a point
+ * can only be connected to the points of its own cell and of the eight cells
+ * around it. The points of every cell are generated by a random generator
+ * seeded from the seed of the graph and from the cell, so any cell can be
+ * generated again without keeping its points: the parts of the graph are bands
+ * of rows of cells, generated independently of each other, and the graph can
+ * be written with billions of edges.<br>
+ * <br>
+ * The i-th point of the cell in column x and row y is the point of position
+ * (y * columns + x) * points + i, and its ID is its position plus one, except
+ * for the first point, the start, of ID 0, which is in the top left cell, and
+ * for the last point, the end, of ID 1, which is in the bottom right
+ * cell.<br>
+ * <br>
+ * The graph is connected with high probability when there are at least a few
+ * points in every cell. If it is weighted, the weight of every edge is its
+ * length, in hundredths of the radius, rounded up.
+ */
+public class RandomGeometric implements MazeGenerator {
+
+	/* Number of edges in a part, roughly */
+	private static final int PART_EDGES = 1 << 20;
+
+	/* Number of columns and rows of cells */
+	private final int columns;
+	private final int rows;
+
+	/* Number of points in every cell */
+	private final int points;
+
+	/* Whether the edges are weighted by length */
+	private final boolean weighted;
+
+	private final long seed;
+
+	/* Number of rows of cells in every part, but the last one */
+	private final int rowsPerPart;
+
+	/**
+	 * Constructor to create a generator of random geometric graphs of the given
+	 * size
+	 *
+	 * @param columns
+	 *            the number of columns of cells
+	 * @param rows
+	 *            the number of rows of cells
+	 * @param points
+	 *            the number of points in every cell
+	 * @param weighted
+	 *            true if the edges are weighted by length
+	 * @param seed
+	 *            the seed of the random choices
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the size is not positive, or if there are more points
+	 *             than there are IDs
+	 */
+	public RandomGeometric(int columns, int rows, int points, boolean weighted, long seed) {
+		if (columns < 1 || rows < 1 || points < 1)
+			throw new IllegalArgumentException(
+					"The size of the graph must be positive: " + columns + "x" + rows + "x" + points);
+		if ((long) columns * rows * points > Integer.MAX_VALUE - 1)
+			throw new IllegalArgumentException("Too many points: " + columns + "x" + rows + "x" + points);
+		this.columns = columns;
+		this.rows = rows;
+		this.points = points;
+		this.weighted = weighted;
+		this.seed = seed;
+
+		/* Every point has about 3.14 * points neighbours, counted twice */
+		this.rowsPerPart = (int) Math.max(1, PART_EDGES / (2L * columns * points * points));
+	}
+
+	@Override
+	public int getPartCount() {
+		return (rows + rowsPerPart - 1) / rowsPerPart;
+	}
+
+	@Override
+	public void generate(int part, EdgeSink sink) {
+		/* Coordinates of the points of a cell and of the cells after it */
+		double[] xs = new double[points];
+		double[] ys = new double[points];
+		double[] otherXs = new double[points];
+		double[] otherYs = new double[points];
+
+		int end = Math.min(rows, (part + 1) * rowsPerPart);
+		for (int y = part * rowsPerPart; y < end; y++) {
+			for (int x = 0; x < columns; x++) {
+				scatter(x, y, xs, ys);
+
+				/* The pairs within the cell */
+				int cell = y * columns + x;
+				for (int i = 0; i < points; i++) {
+					for (int j = i + 1; j < points; j++)
+						connect(cell, i, xs[i], ys[i], cell, j, xs[j], ys[j], sink);
+				}
+
+				/* The pairs with the cells at the right and in the next row */
+				for (int dy = 0; dy <= 1; dy++) {
+					for (int dx = dy == 0 ? 1 : -1; dx <= 1; dx++) {
+						int otherX = x + dx;
+						int otherY = y + dy;
+						if (otherX < 0 || otherX >= columns || otherY >= rows)
+							continue;
+						scatter(otherX, otherY, otherXs, otherYs);
+						int other = otherY * columns + otherX;
+						for (int i = 0; i < points; i++) {
+							for (int j = 0; j < points; j++)
+								connect(cell, i, xs[i], ys[i], other, j, otherXs[j], otherYs[j], sink);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * Computes the coordinates of the points of the given cell, in units of
+	 * the radius
+	 */
+	private void scatter(int x, int y, double[] xs, double[] ys) {
+		SplittableRandom random = new SplittableRandom(GridMaze.mix(seed, y * columns + x));
+		for (int i = 0; i < points; i++) {
+			xs[i] = x + random.nextDouble();
+			ys[i] = y + random.nextDouble();
+		}
+	}
+
+	/*
+	 * Passes the edge between the two given points to the sink, if they are
+	 * closer than the radius
+	 */
+	private void connect(int cell1, int i1, double x1, double y1, int cell2, int i2, double x2, double y2,
+			EdgeSink sink) {
+		double dx = x1 - x2;
+		double dy = y1 - y2;
+		double squared = dx * dx + dy * dy;
+		if (squared > 1)
+			return;
+		int weight = weighted ? Math.max(1, (int) Math.ceil(Math.sqrt(squared) * 100)) : 1;
+		sink.addEdge(getID(cell1, i1), getID(cell2, i2), weight);
+	}
+
+	/*
+	 * Returns the ID of the given point of the given cell
+	 */
+	private int getID(int cell, int i) {
+		int position = cell * points + i;
+		if (position == 0)
+			return 0;
+		if (position == columns * rows * points - 1)
+			return 1;
+		return position + 1;
+	}
+}
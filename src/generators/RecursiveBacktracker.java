@@ -0,0 +1,89 @@
+package generators;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class generates perfect mazes with the recursive backtracker: a random
+ * depth first search of the grid, which connects every cell to the cell it is
+ * first reached from. The mazes have long, winding corridors and few
+ * junctions. The search keeps an explicit stack, so the size of the maze is not
+ * limited by the size of the thread stack.
+ */
+public class RecursiveBacktracker extends SpanningTreeMaze {
+
+	/**
+	 * Constructor to create a generator of perfect mazes of the given size
+	 *
+	 * @param width
+	 *            the number of columns of the grid
+	 * @param height
+	 *            the number of rows of the grid
+	 * @param seed
+	 *            the seed of the random choices
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the size is not positive, or if the grid has more cells
+	 *             than there are IDs
+	 */
+	public RecursiveBacktracker(int width, int height, long seed) {
+		this(width, height, 0, seed);
+	}
+
+	/**
+	 * Constructor to create a generator of braided mazes of the given size,
+	 * removing every wall of a perfect maze with the given probability
+	 *
+	 * @param width
+	 *            the number of columns of the grid
+	 * @param height
+	 *            the number of rows of the grid
+	 * @param loops
+	 *            the probability of removing every wall left
+	 * @param seed
+	 *            the seed of the random choices
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the size is not positive, if the grid has more cells than
+	 *             there are IDs, or if the probability is not between 0 and 1
+	 */
+	public RecursiveBacktracker(int width, int height, double loops, long seed) {
+		super(width, height, loops, seed);
+	}
+
+	@Override
+	protected void carve(SplittableRandom random) {
+		int cells = width * height;
+		boolean[] visited = new boolean[cells];
+		int[] stack = new int[cells];
+		int[] choices = new int[4];
+		int depth = 0;
+
+		stack[depth++] = 0;
+		visited[0] = true;
+		while (depth > 0) {
+			int cell = stack[depth - 1];
+			int x = cell % width;
+
+			int count = 0;
+			if (x > 0 && !visited[cell - 1])
+				choices[count++] = cell - 1;
+			if (x < width - 1 && !visited[cell + 1])
+				choices[count++] = cell + 1;
+			if (cell >= width && !visited[cell - width])
+				choices[count++] = cell - width;
+			if (cell < cells - width && !visited[cell + width])
+				choices[count++] = cell + width;
+
+			/* Backtracking when every adjacent cell is already visited */
+			if (count == 0) {
+				depth--;
+				continue;
+			}
+
+			int next = choices[random.nextInt(count)];
+			connect(cell, next);
+			visited[next] = true;
+			stack[depth++] = next;
+		}
+	}
+}
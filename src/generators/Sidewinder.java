@@ -0,0 +1,79 @@
+package generators;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * This class generates perfect mazes with the sidewinder algorithm, or braided
+ * mazes if walls are removed afterwards (see GridMaze).<br>
+ * <br>
+ * The first row is a single corridor. In every following row, the cells are
+ * joined into runs of random length, from left to right, and every run is
+ * connected to the row above through one of its cells, chosen at random. Every
+ * row only depends on its own random choices, so the rows are generated
+ * independently of each other, in parallel, and no state is kept for the whole
+ * maze: this is the generator of perfect and braided mazes which can be written
+ * with billions of edges. The mazes have a long corridor along the first row,
+ * and the paths towards it never go down.
+ */
+public class Sidewinder extends GridMaze {
+
+	/**
+	 * Constructor to create a generator of perfect mazes of the given size
+	 *
+	 * @param width
+	 *            the number of columns of the grid
+	 * @param height
+	 *            the number of rows of the grid
+	 * @param seed
+	 *            the seed of the random choices
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the size is not positive, or if the grid has more cells
+	 *             than there are IDs
+	 */
+	public Sidewinder(int width, int height, long seed) {
+		this(width, height, 0, seed);
+	}
+
+	/**
+	 * Constructor to create a generator of braided mazes of the given size,
+	 * removing every wall of a perfect maze with the given probability
+	 *
+	 * @param width
+	 *            the number of columns of the grid
+	 * @param height
+	 *            the number of rows of the grid
+	 * @param loops
+	 *            the probability of removing every wall left
+	 * @param seed
+	 *            the seed of the random choices
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the size is not positive, if the grid has more cells than
+	 *             there are IDs, or if the probability is not between 0 and 1
+	 */
+	public Sidewinder(int width, int height, double loops, long seed) {
+		super(width, height, loops, seed);
+	}
+
+	@Override
+	protected void passages(int y, SplittableRandom random, boolean[] right, boolean[] up) {
+		Arrays.fill(up, false);
+		if (y == 0) {
+			Arrays.fill(right, true);
+			return;
+		}
+
+		int runStart = 0;
+		for (int x = 0; x < width; x++) {
+			/* The run is closed at the end of the row, or at random */
+			boolean close = x == width - 1 || random.nextBoolean();
+			right[x] = !close;
+			if (close) {
+				up[runStart + random.nextInt(x - runStart + 1)] = true;
+				runStart = x + 1;
+			}
+		}
+	}
+}
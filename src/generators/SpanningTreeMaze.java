@@ -0,0 +1,97 @@
+package generators;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class represents a perfect maze carved as a random spanning tree of the
+ * whole grid, or a braided maze if walls are removed afterwards (see
+ * GridMaze).<br>
+ * <br>
+ * The extending classes carve the whole maze at once, the first time a part is
+ * generated, as the passages of a row depend on the whole grid. The passages
+ * are kept in two bit sets, of one bit per cell, and every part is then
+ * generated from them, in parallel.
+ */
+public abstract class SpanningTreeMaze extends GridMaze {
+
+	/* Whether every cell is connected to its right and upper cell, by position */
+	private long[] right;
+	private long[] up;
+
+	/**
+	 * Constructor that has to be called by the extending classes to set the
+	 * size of the grid, the probability of removing every wall left, and the
+	 * seed
+	 *
+	 * @param width
+	 *            the number of columns of the grid
+	 * @param height
+	 *            the number of rows of the grid
+	 * @param loops
+	 *            the probability of removing every wall left
+	 * @param seed
+	 *            the seed of the random choices
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the size is not positive, if the grid has more cells than
+	 *             there are IDs, or if the probability is not between 0 and 1
+	 */
+	protected SpanningTreeMaze(int width, int height, double loops, long seed) {
+		super(width, height, loops, seed);
+	}
+
+	@Override
+	protected void passages(int y, SplittableRandom random, boolean[] right, boolean[] up) {
+		carveOnce();
+		for (int x = 0; x < width; x++) {
+			int cell = y * width + x;
+			right[x] = isSet(this.right, cell);
+			up[x] = isSet(this.up, cell);
+		}
+	}
+
+	/**
+	 * Carves the passages of the maze, connecting every cell to the others,
+	 * with connect
+	 *
+	 * @param random
+	 *            the random generator of the maze
+	 */
+	protected abstract void carve(SplittableRandom random);
+
+	/**
+	 * Connects the two given adjacent cells
+	 *
+	 * @param cell1
+	 *            the position of the first cell
+	 * @param cell2
+	 *            the position of the second cell
+	 */
+	protected void connect(int cell1, int cell2) {
+		int low = Math.min(cell1, cell2);
+		int high = Math.max(cell1, cell2);
+		if (high == low + 1 && low % width != width - 1)
+			right[low >>> 6] |= 1L << low;
+		else
+			up[high >>> 6] |= 1L << high;
+	}
+
+	/*
+	 * Carves the maze the first time a part is generated
+	 */
+	private synchronized void carveOnce() {
+		if (right != null)
+			return;
+		int words = (width * height + 63) >>> 6;
+		right = new long[words];
+		up = new long[words];
+		carve(new SplittableRandom(seed));
+	}
+
+	/*
+	 * Returns whether the bit of the given cell is set
+	 */
+	private static boolean isSet(long[] bits, int cell) {
+		return (bits[cell >>> 6] & (1L << cell)) != 0;
+	}
+}
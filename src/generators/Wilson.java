@@ -0,0 +1,96 @@
+package generators;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class generates perfect mazes with Wilson's algorithm, which chooses
+ * uniformly among all the possible perfect mazes of the grid, without the bias
+ * of the recursive backtracker towards long corridors or of Kruskal towards
+ * short dead ends.<br>
+ * <br>
+ * Starting from a maze made of one cell, a random walk is started from every
+ * cell not yet in the maze, until it reaches the maze. The walk remembers only
+ * the last direction it left every cell in, which erases its loops, and the
+ * loop-erased walk is added to the maze. The walks are slow at first, when the
+ * maze is small, so this is the slowest of the generators.
+ */
+public class Wilson extends SpanningTreeMaze {
+
+	/**
+	 * Constructor to create a generator of perfect mazes of the given size
+	 *
+	 * @param width
+	 *            the number of columns of the grid
+	 * @param height
+	 *            the number of rows of the grid
+	 * @param seed
+	 *            the seed of the random choices
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the size is not positive, or if the grid has more cells
+	 *             than there are IDs
+	 */
+	public Wilson(int width, int height, long seed) {
+		this(width, height, 0, seed);
+	}
+
+	/**
+	 * Constructor to create a generator of braided mazes of the given size,
+	 * removing every wall of a perfect maze with the given probability
+	 *
+	 * @param width
+	 *            the number of columns of the grid
+	 * @param height
+	 *            the number of rows of the grid
+	 * @param loops
+	 *            the probability of removing every wall left
+	 * @param seed
+	 *            the seed of the random choices
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the size is not positive, if the grid has more cells than
+	 *             there are IDs, or if the probability is not between 0 and 1
+	 */
+	public Wilson(int width, int height, double loops, long seed) {
+		super(width, height, loops, seed);
+	}
+
+	@Override
+	protected void carve(SplittableRandom random) {
+		int cells = width * height;
+		boolean[] inMaze = new boolean[cells];
+
+		/* The cell every cell of the current walk was last left towards */
+		int[] next = new int[cells];
+		int[] choices = new int[4];
+
+		inMaze[random.nextInt(cells)] = true;
+		for (int start = 0; start < cells; start++) {
+			if (inMaze[start])
+				continue;
+
+			/* Walking at random until the maze is reached */
+			int cell = start;
+			while (!inMaze[cell]) {
+				int x = cell % width;
+				int count = 0;
+				if (x > 0)
+					choices[count++] = cell - 1;
+				if (x < width - 1)
+					choices[count++] = cell + 1;
+				if (cell >= width)
+					choices[count++] = cell - width;
+				if (cell < cells - width)
+					choices[count++] = cell + width;
+				next[cell] = choices[random.nextInt(count)];
+				cell = next[cell];
+			}
+
+			/* Adding the walk, without its loops, to the maze */
+			for (cell = start; !inMaze[cell]; cell = next[cell]) {
+				inMaze[cell] = true;
+				connect(cell, next[cell]);
+			}
+		}
+	}
+}
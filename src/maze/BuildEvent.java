@@ -0,0 +1,43 @@
+package maze;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*
+ * Flight recorder event of the building of an indexed maze: an IntMaze built
+ * from the edges of a builder, or the index of a Maze. The event is begun
+ * before building and committed with commit(String, IndexedGraph), which does
+ * nothing when it is not recorded
+ */
+@Name("maze.Build")
+@Label("Build Maze")
+@Category({ "Maze Solver", "Build" })
+@Description("The building of the indexed form of a maze")
+class BuildEvent extends Event {
+
+	@Label("Method")
+	String method;
+
+	@Label("Nodes")
+	int nodes;
+
+	@Label("Edges")
+	long edges;
+
+	@Label("Weighted")
+	boolean weighted;
+
+	/* Ends the event of the given maze, built by the given method */
+	void commit(String method, IndexedGraph<?> graph) {
+		if (!shouldCommit())
+			return;
+		this.method = method;
+		nodes = graph.getNodeCount();
+		edges = graph.getEdgeCount();
+		weighted = graph.isWeighted();
+		commit();
+	}
+}
@@ -0,0 +1,100 @@
+package maze;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * This class holds the position of every node of an indexed maze in the
+ * plane, such as the cell of every node of a grid maze. The coordinates are
+ * kept in two arrays indexed by node index, so they can be read during a
+ * search without any lookup.<br>
+ * <br>
+ * Coordinates are meant to be used by heuristics estimating the distance
+ * between two nodes, as the ones of solve.Heuristic.
+ *
+ * @see IndexedGraph
+ */
+public class Coordinates {
+	/* Coordinates of every node, indexed by node index */
+	private double[] x;
+	private double[] y;
+
+	/**
+	 * Creates the coordinates of a maze from two arrays indexed by node index,
+	 * which are used without being copied
+	 *
+	 * @param x
+	 *            the horizontal coordinate of every node
+	 * @param y
+	 *            the vertical coordinate of every node
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the two arrays do not have the same length
+	 */
+	public Coordinates(double[] x, double[] y) {
+		if (x.length != y.length)
+			throw new IllegalArgumentException("Coordinates of different lengths");
+		this.x = x;
+		this.y = y;
+	}
+
+	/**
+	 * Creates the coordinates of the nodes of the given maze, computing them
+	 * from each node with the given functions
+	 *
+	 * @param graph
+	 *            the maze
+	 * @param x
+	 *            the function returning the horizontal coordinate of a node
+	 * @param y
+	 *            the function returning the vertical coordinate of a node
+	 *
+	 * @return the coordinates of the nodes of the maze
+	 */
+	public static <NodeType> Coordinates of(IndexedGraph<NodeType> graph, ToDoubleFunction<NodeType> x,
+			ToDoubleFunction<NodeType> y) {
+		int nodeCount = graph.getNodeCount();
+		double[] xs = new double[nodeCount];
+		double[] ys = new double[nodeCount];
+
+		for (int i = 0; i < nodeCount; i++) {
+			NodeType node = graph.getNode(i);
+			xs[i] = x.applyAsDouble(node);
+			ys[i] = y.applyAsDouble(node);
+		}
+
+		return new Coordinates(xs, ys);
+	}
+
+	/**
+	 * Returns the number of nodes with coordinates
+	 *
+	 * @return the number of nodes
+	 */
+	public int getNodeCount() {
+		return x.length;
+	}
+
+	/**
+	 * Returns the horizontal coordinate of the node of the given index
+	 *
+	 * @param index
+	 *            the index of the node
+	 *
+	 * @return the horizontal coordinate of the node
+	 */
+	public double getX(int index) {
+		return x[index];
+	}
+
+	/**
+	 * Returns the vertical coordinate of the node of the given index
+	 *
+	 * @param index
+	 *            the index of the node
+	 *
+	 * @return the vertical coordinate of the node
+	 */
+	public double getY(int index) {
+		return y[index];
+	}
+}
@@ -0,0 +1,142 @@
+package maze;
+
+/**
+ * This interface represents a maze whose nodes have been given dense indices,
+ * from 0 to getNodeCount() - 1, so that the state of a search can be kept in
+ * arrays indexed by node instead of in maps keyed by node.<br>
+ * <br>
+ * The neighbours of the node of index i are returned by neighbourAt for every
+ * position from neighboursBegin(i) (included) to neighboursEnd(i) (excluded).
+ * Each node appears at most once among the neighbours of another node, and
+ * every neighbour entry has the positive weight of the edge, returned by
+ * weightAt for the same position.<br>
+ * <br>
+ * The getNode and indexOf methods convert between indices and nodes, and are
+ * only meant to be used when a search starts or returns its solutions.<br>
+ * <br>
+ * This interface is implemented by IntMaze, by the index returned by
+ * Maze.index() for mazes of any type of node, and by ReducedMaze, which
+ * removes the dead ends and the corridors of another IndexedGraph.
+ *
+ * @see IntMaze
+ * @see Maze#index()
+ */
+public interface IndexedGraph<NodeType> {
+
+	/**
+	 * Returns the number of nodes in this maze
+	 *
+	 * @return the number of nodes in this maze
+	 */
+	int getNodeCount();
+
+	/**
+	 * Returns the number of (undirected) edges in this maze
+	 *
+	 * @return the number of edges in this maze
+	 */
+	int getEdgeCount();
+
+	/**
+	 * Returns the index of the starting node in this maze
+	 *
+	 * @return the index of the starting node in this maze
+	 */
+	int getStart();
+
+	/**
+	 * Returns the index of the ending node in this maze
+	 *
+	 * @return the index of the ending node in this maze
+	 */
+	int getEnd();
+
+	/**
+	 * Returns the node of the given index
+	 *
+	 * @param index
+	 *            the index of the node
+	 *
+	 * @return the node of the given index
+	 */
+	NodeType getNode(int index);
+
+	/**
+	 * Returns the index of the given node, or -1 if there is no such node in
+	 * this maze
+	 *
+	 * @param node
+	 *            the node
+	 *
+	 * @return the index of the node, or -1 if it is not in this maze
+	 */
+	int indexOf(NodeType node);
+
+	/**
+	 * Returns the number of neighbours of the node of the given index
+	 *
+	 * @param index
+	 *            the index of the node
+	 *
+	 * @return the number of neighbours of the node
+	 */
+	default int getDegree(int index) {
+		return neighboursEnd(index) - neighboursBegin(index);
+	}
+
+	/**
+	 * Returns the position of the first neighbour of the node of the given
+	 * index
+	 *
+	 * @param index
+	 *            the index of the node
+	 *
+	 * @return the position of the first neighbour of the node
+	 */
+	int neighboursBegin(int index);
+
+	/**
+	 * Returns the position following the last neighbour of the node of the
+	 * given index
+	 *
+	 * @param index
+	 *            the index of the node
+	 *
+	 * @return the position following the last neighbour of the node
+	 */
+	int neighboursEnd(int index);
+
+	/**
+	 * Returns the index of the neighbour stored at the given position
+	 *
+	 * @param position
+	 *            a position between neighboursBegin(i) and neighboursEnd(i)
+	 *            for some node i
+	 *
+	 * @return the index of the neighbour
+	 */
+	int neighbourAt(int position);
+
+	/**
+	 * Returns the weight of the edge to the neighbour stored at the given
+	 * position. By default every edge has weight 1.
+	 *
+	 * @param position
+	 *            a position between neighboursBegin(i) and neighboursEnd(i)
+	 *            for some node i
+	 *
+	 * @return the weight of the edge, which is positive
+	 */
+	default int weightAt(int position) {
+		return 1;
+	}
+
+	/**
+	 * Returns whether some edge of this maze has a weight other than 1
+	 *
+	 * @return true if the edges of this maze are weighted
+	 */
+	default boolean isWeighted() {
+		return false;
+	}
+}
@@ -0,0 +1,800 @@
+package maze;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.IntSummaryStatistics;
+import java.util.stream.IntStream;
+
+import exceptions.NullNodeException;
+
+/**
+ * This class represents a maze whose nodes are identified by an integer ID, in
+ * a compact and immutable form. It holds the same information as a
+ * Maze&lt;Node&gt;, but without any object per node or per edge.<br>
+ * <br>
+ * Every node is given a dense index, from 0 to getNodeCount() - 1, in
+ * increasing order of ID. The solving algorithms work with indices only, and
+ * the getID and indexOf methods convert between the two.<br>
+ * <br>
+ * The edges are kept in compressed sparse row form: the neighbours of the node
+ * of index i are the indices stored in the targets array from position
+ * offsets[i] (included) to position offsets[i + 1] (excluded). Each undirected
+ * edge is therefore stored twice, once for each of its nodes, apart from edges
+ * from a node to itself, which are stored once. The neighbours of each node are
+ * sorted and contain no duplicates.<br>
+ * <br>
+ * If some edge has a weight other than 1, a fourth array, parallel to the
+ * targets one, holds the weight of every neighbour entry.<br>
+ * <br>
+ * The arrays are held in IntBuffers, so that a maze can be used directly
+ * from a memory mapped file, as utils.BinaryMazeFile does, as well as from
+ * arrays on the heap.<br>
+ * <br>
+ * Instances are created using a Builder, by converting a Maze&lt;Node&gt; with
+ * the fromMaze method, or from buffers already in this form with the
+ * fromBuffers method.<br>
+ * <br>
+ * As an IndexedGraph, an IntMaze can be solved by any of the search algorithms
+ * of the solve package.
+ */
+public class IntMaze implements IndexedGraph<Node> {
+	/* Node IDs, sorted, so that ids[i] is the ID of the node of index i */
+	private IntBuffer ids;
+
+	/* Compressed sparse row representation of the edges */
+	private IntBuffer offsets;
+	private IntBuffer targets;
+
+	/* Weight of every neighbour entry, or null if all the weights are 1 */
+	private IntBuffer weights;
+
+	/* Number of undirected edges */
+	private int edgeCount;
+
+	/* Indices of the starting and ending nodes of this maze */
+	private int start;
+	private int end;
+
+	/*
+	 * Constructor used by the Builder, taking ownership of the given arrays
+	 */
+	private IntMaze(int[] ids, int[] offsets, int[] targets, int[] weights, int edgeCount, int start, int end) {
+		this(IntBuffer.wrap(ids), IntBuffer.wrap(offsets), IntBuffer.wrap(targets),
+				weights == null ? null : IntBuffer.wrap(weights), edgeCount, start, end);
+	}
+
+	/*
+	 * Constructor taking ownership of the given buffers
+	 */
+	private IntMaze(IntBuffer ids, IntBuffer offsets, IntBuffer targets, IntBuffer weights, int edgeCount, int start,
+			int end) {
+		this.ids = ids;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		this.edgeCount = edgeCount;
+		this.start = start;
+		this.end = end;
+	}
+
+	/**
+	 * Creates a maze from buffers which already hold it in the form described
+	 * for this class, starting at index 0 of each buffer. The buffers are used
+	 * as they are, without being copied, so they must not be changed
+	 * afterwards. Only the sizes of the buffers and the start and end indices
+	 * are checked, not the content.
+	 *
+	 * @param ids
+	 *            the sorted node IDs
+	 * @param offsets
+	 *            the position of the neighbours of every node, followed by
+	 *            the number of positions
+	 * @param targets
+	 *            the neighbours of every node
+	 * @param edgeCount
+	 *            the number of undirected edges
+	 * @param start
+	 *            the index of the start of the maze
+	 * @param end
+	 *            the index of the end of the maze
+	 *
+	 * @return the maze held in the buffers
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the sizes of the buffers or the indices are inconsistent
+	 */
+	public static IntMaze fromBuffers(IntBuffer ids, IntBuffer offsets, IntBuffer targets, int edgeCount, int start,
+			int end) {
+		return fromBuffers(ids, offsets, targets, null, edgeCount, start, end);
+	}
+
+	/**
+	 * Creates a maze with weighted edges from buffers which already hold it in
+	 * the form described for this class, as fromBuffers(IntBuffer, IntBuffer,
+	 * IntBuffer, int, int, int) does.
+	 *
+	 * @param ids
+	 *            the sorted node IDs
+	 * @param offsets
+	 *            the position of the neighbours of every node, followed by
+	 *            the number of positions
+	 * @param targets
+	 *            the neighbours of every node
+	 * @param weights
+	 *            the weight of every neighbour entry, or null if all the
+	 *            weights are 1
+	 * @param edgeCount
+	 *            the number of undirected edges
+	 * @param start
+	 *            the index of the start of the maze
+	 * @param end
+	 *            the index of the end of the maze
+	 *
+	 * @return the maze held in the buffers
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the sizes of the buffers or the indices are inconsistent
+	 */
+	public static IntMaze fromBuffers(IntBuffer ids, IntBuffer offsets, IntBuffer targets, IntBuffer weights,
+			int edgeCount, int start, int end) {
+		int nodeCount = ids.limit();
+		if (offsets.limit() != nodeCount + 1 || offsets.get(nodeCount) != targets.limit() || start < 0
+				|| start >= nodeCount || end < 0 || end >= nodeCount
+				|| (weights != null && weights.limit() != targets.limit()))
+			throw new IllegalArgumentException("Inconsistent maze buffers");
+		return new IntMaze(ids, offsets, targets, weights, edgeCount, start, end);
+	}
+
+	/**
+	 * Creates the compact representation of the given maze
+	 *
+	 * @param maze
+	 *            the maze to convert
+	 *
+	 * @return an IntMaze with the same nodes and edges as the given maze
+	 */
+	public static IntMaze fromMaze(Maze<Node> maze) {
+		Builder builder = new Builder(maze.getStart().getID(), maze.getEnd().getID());
+
+		for (Node node : maze.getNodes())
+			builder.addNode(node.getID());
+		try {
+			for (Edge<Node> edge : maze.getEdges())
+				builder.addEdge(edge.getNode1().getID(), edge.getNode2().getID(),
+						maze.getWeight(edge.getNode1(), edge.getNode2()));
+		} catch (NullNodeException e) {
+			e.printStackTrace();
+		}
+
+		return builder.build();
+	}
+
+	/**
+	 * Returns the number of nodes in this maze
+	 *
+	 * @return the number of nodes in this maze
+	 */
+	@Override
+	public int getNodeCount() {
+		return ids.limit();
+	}
+
+	/**
+	 * Returns the number of (undirected) edges in this maze
+	 *
+	 * @return the number of edges in this maze
+	 */
+	@Override
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * Returns the index of the starting node in this maze
+	 *
+	 * @return the index of the starting node in this maze
+	 */
+	@Override
+	public int getStart() {
+		return start;
+	}
+
+	/**
+	 * Returns the index of the ending node in this maze
+	 *
+	 * @return the index of the ending node in this maze
+	 */
+	@Override
+	public int getEnd() {
+		return end;
+	}
+
+	/**
+	 * Returns the ID of the node of the given index
+	 *
+	 * @param index
+	 *            the index of the node
+	 *
+	 * @return the ID of the node
+	 */
+	public int getID(int index) {
+		return ids.get(index);
+	}
+
+	/**
+	 * Returns the index of the node of the given ID, or -1 if there is no such
+	 * node in this maze
+	 *
+	 * @param ID
+	 *            the ID of the node
+	 *
+	 * @return the index of the node, or -1 if it is not in this maze
+	 */
+	public int indexOf(int ID) {
+		int low = 0;
+		int high = ids.limit() - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int middleID = ids.get(middle);
+			if (middleID < ID)
+				low = middle + 1;
+			else if (middleID > ID)
+				high = middle - 1;
+			else
+				return middle;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the index of the given node, or -1 if there is no such node in
+	 * this maze
+	 *
+	 * @param node
+	 *            the node
+	 *
+	 * @return the index of the node, or -1 if it is not in this maze
+	 */
+	@Override
+	public int indexOf(Node node) {
+		return indexOf(node.getID());
+	}
+
+	/**
+	 * Creates a Node corresponding to the node of the given index
+	 *
+	 * @param index
+	 *            the index of the node
+	 *
+	 * @return a Node with the ID of the node of the given index
+	 */
+	@Override
+	public Node getNode(int index) {
+		return new Node(ids.get(index));
+	}
+
+	/**
+	 * Returns the number of neighbours of the node of the given index
+	 *
+	 * @param index
+	 *            the index of the node
+	 *
+	 * @return the number of neighbours of the node
+	 */
+	@Override
+	public int getDegree(int index) {
+		return offsets.get(index + 1) - offsets.get(index);
+	}
+
+	/**
+	 * Returns the position of the first neighbour of the node of the given
+	 * index. The neighbours of the node are returned by neighbourAt for every
+	 * position from this one (included) to neighboursEnd (excluded).
+	 *
+	 * @param index
+	 *            the index of the node
+	 *
+	 * @return the position of the first neighbour of the node
+	 */
+	@Override
+	public int neighboursBegin(int index) {
+		return offsets.get(index);
+	}
+
+	/**
+	 * Returns the position following the last neighbour of the node of the
+	 * given index
+	 *
+	 * @param index
+	 *            the index of the node
+	 *
+	 * @return the position following the last neighbour of the node
+	 *
+	 * @see #neighboursBegin(int)
+	 */
+	@Override
+	public int neighboursEnd(int index) {
+		return offsets.get(index + 1);
+	}
+
+	/**
+	 * Returns the index of the neighbour stored at the given position
+	 *
+	 * @param position
+	 *            a position between neighboursBegin(i) and neighboursEnd(i)
+	 *            for some node i
+	 *
+	 * @return the index of the neighbour
+	 *
+	 * @see #neighboursBegin(int)
+	 */
+	@Override
+	public int neighbourAt(int position) {
+		return targets.get(position);
+	}
+
+	@Override
+	public int weightAt(int position) {
+		return weights == null ? 1 : weights.get(position);
+	}
+
+	@Override
+	public boolean isWeighted() {
+		return weights != null;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder output = new StringBuilder();
+
+		for (int i = 0; i < getNodeCount(); i++) {
+			for (int p = neighboursBegin(i); p < neighboursEnd(i); p++) {
+				if (neighbourAt(p) >= i) {
+					output.append(getID(i)).append(' ').append(getID(neighbourAt(p)));
+					if (weightAt(p) != 1)
+						output.append(' ').append(weightAt(p));
+					output.append('\n');
+				}
+			}
+		}
+
+		return output.toString();
+	}
+
+	/**
+	 * This class builds an IntMaze from a sequence of edges between node IDs.
+	 * Edges can be added in any order and more than once, the duplicates are
+	 * removed when the maze is built, just as Maze.addEdge ignores edges which
+	 * are already present. The weight of an edge added more than once is the
+	 * smallest of its weights.<br>
+	 * <br>
+	 * Every maze built is a maze.Build event of the Java Flight Recorder, with
+	 * the size of the maze.
+	 */
+	public static class Builder {
+		/* Edges added so far, as consecutive pairs of node IDs */
+		private int[] edges;
+		private int edgesLength;
+
+		/*
+		 * Weight of every edge added so far, or null as long as all the
+		 * weights are 1
+		 */
+		private int[] weights;
+
+		/* Nodes added explicitly so far */
+		private int[] nodes;
+		private int nodesLength;
+
+		/*
+		 * Number of edges array elements handled as a unit when the maze is
+		 * built in parallel. It is even, so that no edge is split
+		 */
+		private static final int BLOCK_SIZE = 1 << 16;
+
+		/* IDs of the starting and ending nodes */
+		private int startID;
+		private int endID;
+
+		/**
+		 * Constructor to create a builder for a maze with the given starting
+		 * and ending node IDs. These two nodes are part of the maze even if no
+		 * edge is added to them.
+		 *
+		 * @param startID
+		 *            the ID of the start of the maze
+		 * @param endID
+		 *            the ID of the end of the maze
+		 */
+		public Builder(int startID, int endID) {
+			this.edges = new int[16];
+			this.nodes = new int[] { startID, endID };
+			this.nodesLength = 2;
+			this.startID = startID;
+			this.endID = endID;
+		}
+
+		/**
+		 * Adds an undirected edge between the two nodes of the given IDs
+		 *
+		 * @param ID1
+		 *            the ID of the first node of the edge
+		 * @param ID2
+		 *            the ID of the second node of the edge
+		 *
+		 * @return this builder
+		 */
+		public Builder addEdge(int ID1, int ID2) {
+			if (edgesLength + 2 > edges.length)
+				growEdges(edgesLength + 2);
+			if (weights != null)
+				weights[edgesLength >> 1] = 1;
+			edges[edgesLength++] = ID1;
+			edges[edgesLength++] = ID2;
+			return this;
+		}
+
+		/**
+		 * Adds an undirected edge of the given weight between the two nodes of
+		 * the given IDs
+		 *
+		 * @param ID1
+		 *            the ID of the first node of the edge
+		 * @param ID2
+		 *            the ID of the second node of the edge
+		 * @param weight
+		 *            the weight of the edge
+		 *
+		 * @return this builder
+		 *
+		 * @throws IllegalArgumentException
+		 *             if the weight is not positive
+		 */
+		public Builder addEdge(int ID1, int ID2, int weight) {
+			if (weight < 1)
+				throw new IllegalArgumentException("Edge weights must be positive");
+			if (weight != 1 && weights == null)
+				initialiseWeights();
+			int edge = edgesLength >> 1;
+			addEdge(ID1, ID2);
+			if (weights != null)
+				weights[edge] = weight;
+			return this;
+		}
+
+		/**
+		 * Adds a node with the given ID, which is part of the maze even if no
+		 * edge is added to it
+		 *
+		 * @param ID
+		 *            the ID of the node
+		 *
+		 * @return this builder
+		 */
+		public Builder addNode(int ID) {
+			if (nodesLength + 1 > nodes.length)
+				nodes = Arrays.copyOf(nodes, grow(nodes.length, nodesLength + 1));
+			nodes[nodesLength++] = ID;
+			return this;
+		}
+
+		/**
+		 * Adds all the nodes and the edges added so far to another builder.
+		 * This is used to merge builders filled concurrently.
+		 *
+		 * @param other
+		 *            the builder whose nodes and edges are added
+		 *
+		 * @return this builder
+		 */
+		public Builder addAll(Builder other) {
+			if (other.weights != null && weights == null)
+				initialiseWeights();
+			if (edgesLength + other.edgesLength > edges.length)
+				growEdges(edgesLength + other.edgesLength);
+			if (weights != null) {
+				if (other.weights != null)
+					System.arraycopy(other.weights, 0, weights, edgesLength >> 1, other.edgesLength >> 1);
+				else
+					Arrays.fill(weights, edgesLength >> 1, (edgesLength + other.edgesLength) >> 1, 1);
+			}
+			System.arraycopy(other.edges, 0, edges, edgesLength, other.edgesLength);
+			edgesLength += other.edgesLength;
+
+			if (nodesLength + other.nodesLength > nodes.length)
+				nodes = Arrays.copyOf(nodes, grow(nodes.length, nodesLength + other.nodesLength));
+			System.arraycopy(other.nodes, 0, nodes, nodesLength, other.nodesLength);
+			nodesLength += other.nodesLength;
+			return this;
+		}
+
+		/**
+		 * Builds the maze made of the nodes and the edges added so far. The
+		 * builder can not be used anymore after this method is called.
+		 *
+		 * @return the built maze
+		 */
+		public IntMaze build() {
+			BuildEvent event = new BuildEvent();
+			event.begin();
+
+			/*
+			 * Collecting the distinct IDs, which define the dense indices, and
+			 * replacing IDs with indices in the edges
+			 */
+			int[] ids = collectIDs(false);
+			int nodeCount = ids.length;
+
+			/* Counting degrees */
+			int[] offsets = new int[nodeCount + 1];
+			for (int i = 0; i < edgesLength; i += 2) {
+				offsets[edges[i] + 1]++;
+				if (edges[i] != edges[i + 1])
+					offsets[edges[i + 1] + 1]++;
+			}
+			for (int i = 0; i < nodeCount; i++)
+				offsets[i + 1] += offsets[i];
+
+			/* Filling the neighbours of every node */
+			int[] targets = new int[offsets[nodeCount]];
+			int[] fill = Arrays.copyOf(offsets, nodeCount);
+			for (int i = 0; i < edgesLength; i += 2) {
+				targets[fill[edges[i]]++] = edges[i + 1];
+				if (edges[i] != edges[i + 1])
+					targets[fill[edges[i + 1]]++] = edges[i];
+			}
+			fill = null;
+
+			/* Sorting the neighbours of every node and removing duplicates */
+			int length = 0;
+			int edgeCount = 0;
+			int begin = offsets[0];
+			for (int i = 0; i < nodeCount; i++) {
+				int end = offsets[i + 1];
+				Arrays.sort(targets, begin, end);
+				offsets[i] = length;
+				for (int p = begin; p < end; p++) {
+					if (p == begin || targets[p] != targets[p - 1]) {
+						targets[length++] = targets[p];
+						if (targets[p] >= i)
+							edgeCount++;
+					}
+				}
+				begin = end;
+			}
+			offsets[nodeCount] = length;
+			targets = Arrays.copyOf(targets, length);
+
+			IntMaze maze = new IntMaze(ids, offsets, targets, collectWeights(offsets, targets), edgeCount,
+					Arrays.binarySearch(ids, startID), Arrays.binarySearch(ids, endID));
+			event.commit("build", maze);
+			return maze;
+		}
+
+		/**
+		 * Builds the maze made of the nodes and the edges added so far, as the
+		 * build method does, using all the available processors. The builder
+		 * can not be used anymore after this method is called.<br>
+		 * <br>
+		 * Each edge is turned into two directed arcs, packed in a long, and the
+		 * arcs are sorted in parallel: the sorted arcs are the neighbours of
+		 * every node in order, and duplicates are next to each other. This
+		 * needs more memory than the build method, but scales with the number
+		 * of processors.
+		 *
+		 * @return the built maze
+		 */
+		public IntMaze buildParallel() {
+			BuildEvent event = new BuildEvent();
+			event.begin();
+			int[] ids = collectIDs(true);
+			int nodeCount = ids.length;
+
+			/* Packing the arcs in both directions, with the source first */
+			long[] arcs = new long[edgesLength];
+			IntStream.range(0, blocks(edgesLength)).parallel().forEach(block -> {
+				int end = Math.min(edgesLength, (block + 1) * BLOCK_SIZE);
+				for (int i = block * BLOCK_SIZE; i < end; i += 2) {
+					arcs[i] = pack(edges[i], edges[i + 1]);
+					arcs[i + 1] = pack(edges[i + 1], edges[i]);
+				}
+			});
+			Arrays.parallelSort(arcs);
+
+			/* Removing duplicates and counting degrees */
+			int[] offsets = new int[nodeCount + 1];
+			int[] targets = new int[arcs.length];
+			int length = 0;
+			int edgeCount = 0;
+			for (int i = 0; i < arcs.length; i++) {
+				if (i == 0 || arcs[i] != arcs[i - 1]) {
+					int source = (int) (arcs[i] >>> 32);
+					int target = (int) arcs[i];
+					offsets[source + 1]++;
+					targets[length++] = target;
+					if (target >= source)
+						edgeCount++;
+				}
+			}
+			for (int i = 0; i < nodeCount; i++)
+				offsets[i + 1] += offsets[i];
+			targets = Arrays.copyOf(targets, length);
+
+			IntMaze maze = new IntMaze(ids, offsets, targets, collectWeights(offsets, targets), edgeCount,
+					Arrays.binarySearch(ids, startID), Arrays.binarySearch(ids, endID));
+			event.commit("buildParallel", maze);
+			return maze;
+		}
+
+		/*
+		 * Returns the weight of every neighbour entry of the built maze, which
+		 * is the smallest weight of the edges added between its two nodes, or
+		 * null if all the weights are 1. The edges must already hold indices
+		 * instead of IDs, and they are not needed anymore afterwards.
+		 */
+		private int[] collectWeights(int[] offsets, int[] targets) {
+			if (weights == null) {
+				edges = null;
+				return null;
+			}
+
+			int[] neighbourWeights = new int[targets.length];
+			Arrays.fill(neighbourWeights, Integer.MAX_VALUE);
+			for (int i = 0; i < edgesLength; i += 2) {
+				int node1 = edges[i];
+				int node2 = edges[i + 1];
+				int weight = weights[i >> 1];
+
+				int position = Arrays.binarySearch(targets, offsets[node1], offsets[node1 + 1], node2);
+				neighbourWeights[position] = Math.min(neighbourWeights[position], weight);
+				position = Arrays.binarySearch(targets, offsets[node2], offsets[node2 + 1], node1);
+				neighbourWeights[position] = Math.min(neighbourWeights[position], weight);
+			}
+
+			edges = null;
+			weights = null;
+			return neighbourWeights;
+		}
+
+		/*
+		 * Returns the sorted distinct IDs of the nodes, replacing the IDs in
+		 * the edges with the corresponding indices.
+		 * 
+		 * When the IDs are within a range not much larger than their number,
+		 * as it is the case for mazes whose IDs are numbered from 0, a table
+		 * indexed by ID is used. Otherwise the IDs are sorted and the indices
+		 * found by binary search.
+		 */
+		private int[] collectIDs(boolean parallel) {
+			int min = startID;
+			int max = startID;
+			for (int i = 0; i < nodesLength; i++) {
+				min = Math.min(min, nodes[i]);
+				max = Math.max(max, nodes[i]);
+			}
+			IntStream blocks = IntStream.range(0, blocks(edgesLength));
+			if (parallel)
+				blocks = blocks.parallel();
+			IntSummaryStatistics statistics = blocks.mapToObj(block -> {
+				IntSummaryStatistics blockStatistics = new IntSummaryStatistics();
+				int end = Math.min(edgesLength, (block + 1) * BLOCK_SIZE);
+				for (int i = block * BLOCK_SIZE; i < end; i++)
+					blockStatistics.accept(edges[i]);
+				return blockStatistics;
+			}).collect(IntSummaryStatistics::new, IntSummaryStatistics::combine, IntSummaryStatistics::combine);
+			if (statistics.getCount() > 0) {
+				min = Math.min(min, statistics.getMin());
+				max = Math.max(max, statistics.getMax());
+			}
+
+			long range = (long) max - min + 1;
+			int offset = min;
+			int[] ids;
+
+			if (range <= 4L * (nodesLength + edgesLength) + 1024) {
+				/* The table contains the index of every ID, plus one */
+				int[] table = new int[(int) range];
+				for (int i = 0; i < nodesLength; i++)
+					table[nodes[i] - offset] = 1;
+				forEachEdgeBlock(parallel, (begin, end) -> {
+					for (int i = begin; i < end; i++)
+						table[edges[i] - offset] = 1;
+				});
+
+				int nodeCount = 0;
+				for (int i = 0; i < table.length; i++) {
+					if (table[i] != 0)
+						table[i] = ++nodeCount;
+				}
+
+				ids = new int[nodeCount];
+				for (int i = 0; i < table.length; i++) {
+					if (table[i] != 0)
+						ids[table[i] - 1] = i + offset;
+				}
+
+				forEachEdgeBlock(parallel, (begin, end) -> {
+					for (int i = begin; i < end; i++)
+						edges[i] = table[edges[i] - offset] - 1;
+				});
+			} else {
+				ids = Arrays.copyOf(nodes, nodesLength + edgesLength);
+				System.arraycopy(edges, 0, ids, nodesLength, edgesLength);
+				if (parallel)
+					Arrays.parallelSort(ids);
+				else
+					Arrays.sort(ids);
+				int nodeCount = 0;
+				for (int i = 0; i < ids.length; i++) {
+					if (nodeCount == 0 || ids[i] != ids[nodeCount - 1])
+						ids[nodeCount++] = ids[i];
+				}
+				int[] sortedIDs = Arrays.copyOf(ids, nodeCount);
+				ids = sortedIDs;
+
+				forEachEdgeBlock(parallel, (begin, end) -> {
+					for (int i = begin; i < end; i++)
+						edges[i] = Arrays.binarySearch(sortedIDs, edges[i]);
+				});
+			}
+
+			nodes = null;
+			return ids;
+		}
+
+		/*
+		 * Runs the given action on consecutive blocks of the edges array,
+		 * concurrently if parallel is true
+		 */
+		private void forEachEdgeBlock(boolean parallel, BlockAction action) {
+			IntStream blocks = IntStream.range(0, blocks(edgesLength));
+			if (parallel)
+				blocks = blocks.parallel();
+			blocks.forEach(block -> action.run(block * BLOCK_SIZE, Math.min(edgesLength, (block + 1) * BLOCK_SIZE)));
+		}
+
+		/* Returns the number of blocks needed to cover length elements */
+		private static int blocks(int length) {
+			return (int) (((long) length + BLOCK_SIZE - 1) / BLOCK_SIZE);
+		}
+
+		/* Packs an arc in a long, so that arcs are sorted by source first */
+		private static long pack(int source, int target) {
+			return ((long) source << 32) | (target & 0xffffffffL);
+		}
+
+		/* Action on the edges from begin (included) to end (excluded) */
+		private interface BlockAction {
+			void run(int begin, int end);
+		}
+
+		/*
+		 * Grows the edges array, and the weights array if any, so that it
+		 * holds at least minimum elements
+		 */
+		private void growEdges(int minimum) {
+			edges = Arrays.copyOf(edges, grow(edges.length, minimum));
+			if (weights != null)
+				weights = Arrays.copyOf(weights, edges.length >> 1);
+		}
+
+		/*
+		 * Creates the weights array, giving weight 1 to the edges added so far
+		 */
+		private void initialiseWeights() {
+			weights = new int[edges.length >> 1];
+			Arrays.fill(weights, 1);
+		}
+
+		/*
+		 * Returns the new capacity for an array that has to hold at least
+		 * minimum elements
+		 */
+		private static int grow(int capacity, int minimum) {
+			int newCapacity = capacity + (capacity >> 1);
+			if (newCapacity < minimum || newCapacity < 0)
+				newCapacity = minimum;
+			return newCapacity;
+		}
+	}
+}
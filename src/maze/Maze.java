@@ -1,6 +1,9 @@
 package maze;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Set;
 
 import exceptions.NullNodeException;
 
@@ -8,6 +11,8 @@ import exceptions.NullNodeException;
  * This class represent a maze as a set of nodes connected by a set of
  * undirected edges. its type parameter NodeType allows any type to be used as a node.
  * <br>
+ * Every edge has a positive integer weight, its length, which is 1 unless
+ * another weight is given when the edge is added.<br>
  * Null nodes are not allowed.
  */
 public class Maze<NodeType> {
@@ -17,6 +22,20 @@ public class Maze<NodeType> {
 	/* Nodes of this maze */
 	private HashSet<NodeType> nodes;
 
+	/*
+	 * Adjacency index of this maze: for each node, the nodes it shares an
+	 * edge with, each with the weight of the edge. It is kept in sync with the
+	 * set of edges, so that the neighbours of a node can be found without
+	 * scanning the whole maze
+	 */
+	private HashMap<NodeType, HashMap<NodeType, Integer>> adjacency;
+
+	/*
+	 * Dense index of this maze, built when it is first needed and discarded
+	 * when the maze is modified
+	 */
+	private MazeIndex<NodeType> index;
+
 	/* Starting and ending nodes of this maze */
 	private NodeType start;
 	private NodeType end;
@@ -41,6 +60,7 @@ public class Maze<NodeType> {
 
 		this.edges = new HashSet<>();
 		this.nodes = new HashSet<>();
+		this.adjacency = new HashMap<>();
 
 		this.start = start;
 		this.end = end;
@@ -48,16 +68,17 @@ public class Maze<NodeType> {
 		/*
 		 * The starting and ending nodes are added to the set of all nodes
 		 */
-		nodes.add(start);
-		nodes.add(end);
+		addNodeUnchecked(start);
+		addNodeUnchecked(end);
 	}
 
 	/**
-	 * This method builds an undirected edge between two nodes, returning true
-	 * on success, or false if the edge was already present. If one or both the
-	 * nodes passed as parameters do not exist yet in this maze, this method
-	 * will add them to the maze before building the edge. If at least one or
-	 * the two parameters is null, a NullNodeException is thrown.
+	 * This method builds an undirected edge of weight 1 between two nodes,
+	 * returning true on success, or false if the edge was already present. If
+	 * one or both the nodes passed as parameters do not exist yet in this
+	 * maze, this method will add them to the maze before building the edge. If
+	 * at least one or the two parameters is null, a NullNodeException is
+	 * thrown.
 	 * 
 	 * @param node1
 	 *            the first node of the edge
@@ -70,16 +91,50 @@ public class Maze<NodeType> {
 	 *             if null is passed as a parameter
 	 */
 	public boolean addEdge(NodeType node1, NodeType node2) throws NullNodeException {
+		return addEdge(node1, node2, 1);
+	}
+
+	/**
+	 * This method builds an undirected edge of the given weight between two
+	 * nodes, returning true on success, or false if the edge was already
+	 * present, in which case the weight of the edge becomes the smaller of its
+	 * weight and the given one. If one or both the nodes passed as parameters
+	 * do not exist yet in this maze, this method will add them to the maze
+	 * before building the edge. If at least one or the two parameters is null,
+	 * a NullNodeException is thrown.
+	 * 
+	 * @param node1
+	 *            the first node of the edge
+	 * @param node2
+	 *            the second node of the edge
+	 * @param weight
+	 *            the weight of the edge
+	 * 
+	 * @return true if the edge was not present already, false otherwise
+	 * 
+	 * @throws NullNodeException
+	 *             if null is passed as a parameter
+	 * @throws IllegalArgumentException
+	 *             if the weight is not positive
+	 */
+	public boolean addEdge(NodeType node1, NodeType node2, int weight) throws NullNodeException {
 		if (node1 == null || node2 == null)
 			throw new NullNodeException();
+		if (weight < 1)
+			throw new IllegalArgumentException("Edge weights must be positive");
 		/* Adding nodes if not already present */
-		if (!nodes.contains(node1))
-			nodes.add(node1);
-		if (!nodes.contains(node2))
-			nodes.add(node2);
+		addNodeUnchecked(node1);
+		addNodeUnchecked(node2);
 
-		/* Adding the edge */
-		return edges.add(new Edge<NodeType>(node1, node2));
+		/* Adding the edge, and updating the adjacency index */
+		boolean added = edges.add(new Edge<NodeType>(node1, node2));
+		Integer oldWeight = adjacency.get(node1).get(node2);
+		if (oldWeight == null || weight < oldWeight) {
+			adjacency.get(node1).put(node2, weight);
+			adjacency.get(node2).put(node1, weight);
+			index = null;
+		}
+		return added;
 	}
 
 	/**
@@ -100,8 +155,13 @@ public class Maze<NodeType> {
 	public boolean removeEdge(NodeType node1, NodeType node2) throws NullNodeException {
 		if (node1 == null || node2 == null)
 			throw new NullNodeException();
-		/* Removing the edge */
-		return edges.remove(new Edge<NodeType>(node1, node2));
+		/* Removing the edge, and updating the adjacency index if it existed */
+		if (!edges.remove(new Edge<NodeType>(node1, node2)))
+			return false;
+		adjacency.get(node1).remove(node2);
+		adjacency.get(node2).remove(node1);
+		index = null;
+		return true;
 	}
 
 	/**
@@ -120,13 +180,14 @@ public class Maze<NodeType> {
 	public boolean addNode(NodeType node) throws NullNodeException {
 		if (node == null)
 			throw new NullNodeException();
-		return nodes.add(node);
+		return addNodeUnchecked(node);
 	}
 
 	/**
-	 * This method remove one of the nodes of the maze, returning true on
-	 * success, or false if the node was not present. If null is passed as a
-	 * parameter, a NullNodeException is thrown.
+	 * This method remove one of the nodes of the maze, together with all the
+	 * edges it is part of, returning true on success, or false if the node was
+	 * not present. If null is passed as a parameter, a NullNodeException is
+	 * thrown.
 	 * 
 	 * @param node
 	 *            the node to remove
@@ -139,7 +200,17 @@ public class Maze<NodeType> {
 	public boolean removeNode(NodeType node) throws NullNodeException {
 		if (node == null)
 			throw new NullNodeException();
-		return edges.remove(node);
+		if (!nodes.remove(node))
+			return false;
+
+		/* Removing every edge this node is part of */
+		for (NodeType neighbour : adjacency.remove(node).keySet()) {
+			edges.remove(new Edge<NodeType>(node, neighbour));
+			if (!neighbour.equals(node))
+				adjacency.get(neighbour).remove(node);
+		}
+		index = null;
+		return true;
 	}
 
 	/**
@@ -167,6 +238,29 @@ public class Maze<NodeType> {
 		return edges.contains(new Edge<NodeType>(node1, node2));
 	}
 
+	/**
+	 * This method returns the weight of the edge between two given nodes, or
+	 * -1 if there is no such edge in this maze. If at least one or the two
+	 * parameters is null, a NullNodeException is thrown.
+	 * 
+	 * @param node1
+	 *            the first node of the edge
+	 * @param node2
+	 *            the second node of the edge
+	 * 
+	 * @return the weight of the edge, or -1 if the edge is not in the maze
+	 * 
+	 * @throws NullNodeException
+	 *             if null is passed as a parameter
+	 */
+	public int getWeight(NodeType node1, NodeType node2) throws NullNodeException {
+		if (node1 == null || node2 == null)
+			throw new NullNodeException();
+		HashMap<NodeType, Integer> neighbours = adjacency.get(node1);
+		Integer weight = neighbours == null ? null : neighbours.get(node2);
+		return weight == null ? -1 : weight;
+	}
+
 	/**
 	 * This method checks if a node exists in this maze. If null is passed as a
 	 * parameter, a NullNodeException is thrown.
@@ -188,8 +282,13 @@ public class Maze<NodeType> {
 	/**
 	 * This method returns all the nodes that are neighbours to a given node. In
 	 * other words, it returns any node such that there is an edge in this maze
-	 * between it and the given node.If null is passed as a parameter, a
-	 * NullNodeException is thrown.
+	 * between it and the given node. If null is passed as a parameter, a
+	 * NullNodeException is thrown.<br>
+	 * <br>
+	 * The returned set is an unmodifiable view backed by the adjacency index of
+	 * this maze, so this method runs in constant time and later changes to the
+	 * maze are reflected in the set. It must not be iterated while the maze is
+	 * being modified.
 	 * 
 	 * @param node
 	 *            the node to return the neighbours of
@@ -199,22 +298,75 @@ public class Maze<NodeType> {
 	 * @throws NullNodeException
 	 *             if null is passed as a parameter
 	 */
-	public HashSet<NodeType> neighbours(NodeType node) throws NullNodeException {
+	public Set<NodeType> neighbours(NodeType node) throws NullNodeException {
 		if (node == null)
 			throw new NullNodeException();
-		HashSet<NodeType> neighbours = new HashSet<>();
+		HashMap<NodeType, Integer> neighbours = adjacency.get(node);
 
-		/*
-		 * Adding to the output set every node that has an edge with the given
-		 * node
-		 */
-		for (NodeType otherNode : nodes) {
-			if (edges.contains(new Edge<NodeType>(node, otherNode)))
-				neighbours.add(otherNode);
+		/* A node which is not part of the maze has no neighbours */
+		if (neighbours == null)
+			return Collections.emptySet();
+		return Collections.unmodifiableSet(neighbours.keySet());
+	}
+
+	/*
+	 * Adds a node, which is known not to be null, to the set of nodes and to
+	 * the adjacency index
+	 */
+	private boolean addNodeUnchecked(NodeType node) {
+		if (!nodes.add(node))
+			return false;
+		adjacency.put(node, new HashMap<NodeType, Integer>());
+		index = null;
+		return true;
+	}
+
+	/**
+	 * This method returns the dense index of this maze, which gives every node
+	 * an integer from 0 to the number of nodes - 1 and holds the edges in
+	 * arrays. The search algorithms use it to keep their state in arrays
+	 * indexed by node, without any lookup by hash code.<br>
+	 * <br>
+	 * The index is built the first time this method is called, in time linear
+	 * in the size of the maze, and the same index is returned until the maze
+	 * is modified. It is a snapshot: it does not reflect later changes to the
+	 * maze. Building the index is a maze.Build event of the Java Flight
+	 * Recorder.<br>
+	 * <br>
+	 * If the start or the end has been removed from this maze, the index still
+	 * has it, without any edge, so that the searches find no solution.
+	 * 
+	 * @return the dense index of this maze
+	 * 
+	 * @see IndexedGraph
+	 */
+	public IndexedGraph<NodeType> index() {
+		if (index == null) {
+			BuildEvent event = new BuildEvent();
+			event.begin();
+			index = new MazeIndex<>(nodes, adjacency, edges.size(), start, end);
+			event.commit("index", index);
 		}
-		return neighbours;
+		return index;
+	}
+
+	/**
+	 * Returns the number of nodes in this maze
+	 * 
+	 * @return the number of nodes in this maze
+	 */
+	public int getNodeCount() {
+		return nodes.size();
 	}
 
+	/**
+	 * Returns the number of edges in this maze
+	 * 
+	 * @return the number of edges in this maze
+	 */
+	public int getEdgeCount() {
+		return edges.size();
+	}
 	
 	/**
 	 * Returns a shallow copy of the set of nodes in this maze
@@ -259,7 +411,9 @@ public class Maze<NodeType> {
 		String output = "";
 
 		for (Edge<NodeType> e : edges) {
-			output += (e.getNode1().toString() + " " + e.getNode2().toString() + "\n");
+			int weight = adjacency.get(e.getNode1()).get(e.getNode2());
+			output += (e.getNode1().toString() + " " + e.getNode2().toString() + (weight == 1 ? "" : " " + weight)
+					+ "\n");
 		}
 
 		return output;
@@ -0,0 +1,160 @@
+package maze;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class is the dense index of a Maze, returned by Maze.index(). It gives
+ * every node of the maze an index, from 0 to getNodeCount() - 1, and keeps the
+ * edges in the same compressed sparse row form as IntMaze, so that the search
+ * algorithms can work on a maze of any type of node with arrays only.<br>
+ * <br>
+ * The index is a snapshot of the maze when it was built. Maze.index() builds a
+ * new one after the maze is modified.<br>
+ * <br>
+ * If the start or the end of the maze has been removed from it, the index
+ * still has it, after the nodes of the maze and without any edge, as an
+ * IntMaze built from the same maze would, so that the searches find no
+ * solution.
+ *
+ * @see IndexedGraph
+ */
+class MazeIndex<NodeType> implements IndexedGraph<NodeType> {
+	/* Nodes of the maze, so that nodes[i] is the node of index i */
+	private Object[] nodes;
+
+	/* Index of every node of the maze */
+	private HashMap<NodeType, Integer> indices;
+
+	/* Compressed sparse row representation of the edges, as in IntMaze */
+	private int[] offsets;
+	private int[] targets;
+
+	/* Weight of every neighbour entry, or null if all the weights are 1 */
+	private int[] weights;
+
+	/* Number of undirected edges */
+	private int edgeCount;
+
+	/* Indices of the starting and ending nodes of the maze */
+	private int start;
+	private int end;
+
+	/*
+	 * Constructor to build the index of a maze from its nodes and its
+	 * adjacency index, which maps every node to its neighbours and the
+	 * weights of the edges to them. The start and the end are added, without
+	 * edges, if they are not nodes of the maze
+	 */
+	public MazeIndex(Set<NodeType> nodes, Map<NodeType, ? extends Map<NodeType, Integer>> adjacency, int edgeCount,
+			NodeType start, NodeType end) {
+		boolean missingStart = !nodes.contains(start);
+		boolean missingEnd = !nodes.contains(end) && !end.equals(start);
+		int nodeCount = nodes.size() + (missingStart ? 1 : 0) + (missingEnd ? 1 : 0);
+		this.nodes = new Object[nodeCount];
+		this.indices = new HashMap<>(nodeCount * 2);
+		this.edgeCount = edgeCount;
+
+		/* Indices are given in the iteration order of the nodes */
+		int index = 0;
+		for (NodeType node : nodes) {
+			this.nodes[index] = node;
+			indices.put(node, index);
+			index++;
+		}
+		if (missingStart) {
+			this.nodes[index] = start;
+			indices.put(start, index++);
+		}
+		if (missingEnd) {
+			this.nodes[index] = end;
+			indices.put(end, index++);
+		}
+
+		/* Offsets first, then the neighbours of every node */
+		offsets = new int[nodeCount + 1];
+		for (int i = 0; i < nodeCount; i++) {
+			Map<NodeType, Integer> neighbours = adjacency.get(getNode(i));
+			offsets[i + 1] = offsets[i] + (neighbours == null ? 0 : neighbours.size());
+		}
+
+		targets = new int[offsets[nodeCount]];
+		weights = new int[offsets[nodeCount]];
+		boolean weighted = false;
+		for (int i = 0; i < nodeCount; i++) {
+			Map<NodeType, Integer> neighbours = adjacency.get(getNode(i));
+			if (neighbours == null)
+				continue;
+			int position = offsets[i];
+			for (Map.Entry<NodeType, Integer> neighbour : neighbours.entrySet()) {
+				targets[position] = indices.get(neighbour.getKey());
+				weights[position] = neighbour.getValue();
+				weighted |= weights[position] != 1;
+				position++;
+			}
+		}
+		if (!weighted)
+			weights = null;
+
+		this.start = indices.get(start);
+		this.end = indices.get(end);
+	}
+
+	@Override
+	public int getNodeCount() {
+		return nodes.length;
+	}
+
+	@Override
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	@Override
+	public int getStart() {
+		return start;
+	}
+
+	@Override
+	public int getEnd() {
+		return end;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public NodeType getNode(int index) {
+		return (NodeType) nodes[index];
+	}
+
+	@Override
+	public int indexOf(NodeType node) {
+		Integer index = indices.get(node);
+		return index == null ? -1 : index;
+	}
+
+	@Override
+	public int neighboursBegin(int index) {
+		return offsets[index];
+	}
+
+	@Override
+	public int neighboursEnd(int index) {
+		return offsets[index + 1];
+	}
+
+	@Override
+	public int neighbourAt(int position) {
+		return targets[position];
+	}
+
+	@Override
+	public boolean isWeighted() {
+		return weights != null;
+	}
+
+	@Override
+	public int weightAt(int position) {
+		return weights == null ? 1 : weights[position];
+	}
+}
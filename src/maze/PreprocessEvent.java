@@ -0,0 +1,64 @@
+package maze;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of a preprocessing of an indexed maze, such as its
+ * reduction (see ReducedMaze), or the index built for the searches of the
+ * solve package: a contraction hierarchy, landmarks or the blocks of the
+ * maze. It is public, unlike the other events, as the preprocessing is done
+ * by more than one package.<br>
+ * <br>
+ * The event is begun before the preprocessing and ended by commit(String,
+ * IndexedGraph, String, long), which does nothing when it is not recorded.
+ */
+@Name("maze.Preprocess")
+@Label("Preprocess Maze")
+@Category({ "Maze Solver", "Preprocess" })
+@Description("A preprocessing of a maze, and the size of its output")
+public class PreprocessEvent extends Event {
+
+	@Label("Algorithm")
+	String algorithm;
+
+	@Label("Nodes")
+	int nodes;
+
+	@Label("Edges")
+	long edges;
+
+	@Label("Output")
+	@Description("What the output size counts, such as shortcuts or landmarks")
+	String output;
+
+	@Label("Output Size")
+	long outputSize;
+
+	/**
+	 * Ends the event of the given preprocessing of the given maze, whose
+	 * output is made of the given number of the given items, and commits it
+	 *
+	 * @param algorithm
+	 *            the name of the preprocessing
+	 * @param graph
+	 *            the maze preprocessed
+	 * @param output
+	 *            what the output is made of, such as shortcuts or landmarks
+	 * @param outputSize
+	 *            the number of items of the output
+	 */
+	public void commit(String algorithm, IndexedGraph<?> graph, String output, long outputSize) {
+		if (!shouldCommit())
+			return;
+		this.algorithm = algorithm;
+		nodes = graph.getNodeCount();
+		edges = graph.getEdgeCount();
+		this.output = output;
+		this.outputSize = outputSize;
+		commit();
+	}
+}
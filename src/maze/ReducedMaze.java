@@ -0,0 +1,516 @@
+package maze;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * This class represents a maze reduced to its junctions: the dead ends are
+ * removed and every corridor is replaced by a single edge, so that the
+ * searches of the solve package examine a fraction of the nodes of a typical
+ * maze, which is mostly made of corridors and dead ends.<br>
+ * <br>
+ * The maze is reduced in two passes over an IndexedGraph:
+ * <ol>
+ * <li>every node with one neighbour, other than the start and the end of the
+ * maze, is removed, and so are, in turn, the nodes left with one neighbour,
+ * until none is left. A removed node is not on any path between the start and
+ * the end which does not go through a node twice;</li>
+ * <li>every chain of nodes with two neighbours (a corridor), other than the
+ * start and the end, is replaced by an edge between the two nodes at its
+ * ends, whose weight is the total weight of the corridor. The nodes of the
+ * corridor are recorded with the edge, so that a path of the reduced maze can
+ * be expanded back into the path of the maze it stands for.</li>
+ * </ol>
+ * As two nodes can not have more than one edge between them (see
+ * IndexedGraph), when two corridors join the same two nodes, or a corridor
+ * joins two nodes which are already neighbours, the first node of the corridor
+ * is kept in the reduced maze. Corridors leading back to the node they leave
+ * from, and edges from a node to itself, are dropped, as no path which does
+ * not go through a node twice uses them.<br>
+ * <br>
+ * The shortest paths between the start and the end, and the paths which do not
+ * go through a node twice, are then the same in the two mazes, once expanded.
+ * As the edges of the reduced maze are weighted, its shortest path has to be
+ * found with a search which considers the weights, such as
+ * solve.BidirectionalDijkstra, while solve.DFS finds all the solutions as
+ * usual. The nodes of the reduced maze are the same objects as the nodes of
+ * the original one, but not every node is kept: the reduced maze only serves
+ * searches between its start and its end.
+ */
+public class ReducedMaze<NodeType> implements IndexedGraph<NodeType> {
+
+	/* The maze which was reduced */
+	private IndexedGraph<NodeType> original;
+
+	/*
+	 * Index in the original maze of every node of the reduced one, and index
+	 * in the reduced maze of every node of the original one, or -1
+	 */
+	private int[] originalIndices;
+	private int[] reducedIndices;
+
+	/* Compressed sparse row representation of the edges, as in IntMaze */
+	private int[] offsets;
+	private int[] targets;
+
+	/* Weight of every neighbour entry, or null if all the weights are 1 */
+	private int[] weights;
+
+	/*
+	 * Nodes of the original maze between the two nodes of every neighbour
+	 * entry, in the direction of the entry: the ones of the entry at position
+	 * p are in the chains array from chainOffsets[p] to chainOffsets[p + 1]
+	 */
+	private int[] chainOffsets;
+	private int[] chains;
+
+	/* Number of undirected edges */
+	private int edgeCount;
+
+	/*
+	 * Private constructor, the reduced mazes are created by reduce
+	 */
+	private ReducedMaze(IndexedGraph<NodeType> original) {
+		this.original = original;
+	}
+
+	/**
+	 * Reduces the given maze, removing its dead ends and replacing its
+	 * corridors with single edges
+	 *
+	 * @param graph
+	 *            the maze to be reduced
+	 *
+	 * @return the reduced maze
+	 *
+	 * @throws ArithmeticException
+	 *             if the weight of a corridor does not fit in an int
+	 */
+	public static <NodeType> ReducedMaze<NodeType> reduce(IndexedGraph<NodeType> graph) {
+		PreprocessEvent event = new PreprocessEvent();
+		event.begin();
+		ReducedMaze<NodeType> reduced = new ReducedMaze<>(graph);
+		reduced.build();
+		event.commit("ReducedMaze", graph, "kept nodes", reduced.getNodeCount());
+		return reduced;
+	}
+
+	/**
+	 * Returns the maze which was reduced
+	 *
+	 * @return the original maze
+	 */
+	public IndexedGraph<NodeType> getOriginal() {
+		return original;
+	}
+
+	/**
+	 * Returns the index in the original maze of the node of the given index in
+	 * the reduced maze
+	 *
+	 * @param index
+	 *            the index of the node in the reduced maze
+	 *
+	 * @return the index of the node in the original maze
+	 */
+	public int getOriginalIndex(int index) {
+		return originalIndices[index];
+	}
+
+	/**
+	 * Returns the index in the reduced maze of the node of the given index in
+	 * the original maze
+	 *
+	 * @param index
+	 *            the index of the node in the original maze
+	 *
+	 * @return the index of the node in the reduced maze, or -1 if it was
+	 *         removed
+	 */
+	public int getReducedIndex(int index) {
+		return reducedIndices[index];
+	}
+
+	/**
+	 * Expands a path of the reduced maze into the path of the original maze it
+	 * stands for
+	 *
+	 * @param path
+	 *            the indices of the nodes of a path of the reduced maze
+	 *
+	 * @return the indices in the original maze of the nodes of the path
+	 *
+	 * @throws IllegalArgumentException
+	 *             if two consecutive nodes of the path are not neighbours
+	 */
+	public int[] expand(int[] path) {
+		if (path.length == 0)
+			return new int[0];
+
+		/* The positions of the edges of the path, and the expanded length */
+		int[] positions = new int[path.length - 1];
+		int length = path.length;
+		for (int i = 0; i + 1 < path.length; i++) {
+			positions[i] = positionOf(path[i], path[i + 1]);
+			length += chainOffsets[positions[i] + 1] - chainOffsets[positions[i]];
+		}
+
+		int[] expanded = new int[length];
+		int size = 0;
+		expanded[size++] = originalIndices[path[0]];
+		for (int i = 0; i < positions.length; i++) {
+			int begin = chainOffsets[positions[i]];
+			int chainLength = chainOffsets[positions[i] + 1] - begin;
+			System.arraycopy(chains, begin, expanded, size, chainLength);
+			size += chainLength;
+			expanded[size++] = originalIndices[path[i + 1]];
+		}
+
+		return expanded;
+	}
+
+	/**
+	 * Expands a path of the reduced maze, such as a solution found by a
+	 * search, into the path of the original maze it stands for
+	 *
+	 * @param path
+	 *            the nodes of a path of the reduced maze
+	 *
+	 * @return the nodes of the path in the original maze
+	 *
+	 * @throws IllegalArgumentException
+	 *             if a node of the path is not in the reduced maze, or two
+	 *             consecutive nodes are not neighbours
+	 */
+	public ArrayList<NodeType> expand(List<NodeType> path) {
+		int[] indices = new int[path.size()];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = indexOf(path.get(i));
+			if (indices[i] < 0)
+				throw new IllegalArgumentException("The node is not in the reduced maze");
+		}
+
+		int[] expanded = expand(indices);
+		ArrayList<NodeType> nodes = new ArrayList<>(expanded.length);
+		for (int node : expanded)
+			nodes.add(original.getNode(node));
+		return nodes;
+	}
+
+	@Override
+	public int getNodeCount() {
+		return originalIndices.length;
+	}
+
+	@Override
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	@Override
+	public int getStart() {
+		return reducedIndices[original.getStart()];
+	}
+
+	@Override
+	public int getEnd() {
+		return reducedIndices[original.getEnd()];
+	}
+
+	@Override
+	public NodeType getNode(int index) {
+		return original.getNode(originalIndices[index]);
+	}
+
+	@Override
+	public int indexOf(NodeType node) {
+		int index = original.indexOf(node);
+		return index < 0 ? -1 : reducedIndices[index];
+	}
+
+	@Override
+	public int neighboursBegin(int index) {
+		return offsets[index];
+	}
+
+	@Override
+	public int neighboursEnd(int index) {
+		return offsets[index + 1];
+	}
+
+	@Override
+	public int neighbourAt(int position) {
+		return targets[position];
+	}
+
+	@Override
+	public boolean isWeighted() {
+		return weights != null;
+	}
+
+	@Override
+	public int weightAt(int position) {
+		return weights == null ? 1 : weights[position];
+	}
+
+	/*
+	 * Returns the position of the given neighbour among the neighbours of the
+	 * given node
+	 */
+	private int positionOf(int node, int neighbour) {
+		for (int p = offsets[node]; p < offsets[node + 1]; p++) {
+			if (targets[p] == neighbour)
+				return p;
+		}
+		throw new IllegalArgumentException("The nodes are not neighbours");
+	}
+
+	/*
+	 * Reduces the original maze, filling the fields of this instance
+	 */
+	private void build() {
+		int nodeCount = original.getNodeCount();
+		int start = original.getStart();
+		int end = original.getEnd();
+
+		/* Number of neighbours of every node, without the node itself */
+		int[] degrees = new int[nodeCount];
+		for (int node = 0; node < nodeCount; node++) {
+			for (int p = original.neighboursBegin(node); p < original.neighboursEnd(node); p++) {
+				if (original.neighbourAt(p) != node)
+					degrees[node]++;
+			}
+		}
+
+		/*
+		 * Dead ends: the nodes with at most one neighbour are removed, and
+		 * their neighbours are checked again
+		 */
+		boolean[] removed = new boolean[nodeCount];
+		int[] queue = new int[nodeCount];
+		int head = 0;
+		int tail = 0;
+		for (int node = 0; node < nodeCount; node++) {
+			if (degrees[node] <= 1 && node != start && node != end) {
+				removed[node] = true;
+				queue[tail++] = node;
+			}
+		}
+		while (head < tail) {
+			int node = queue[head++];
+			for (int p = original.neighboursBegin(node); p < original.neighboursEnd(node); p++) {
+				int neighbour = original.neighbourAt(p);
+				if (neighbour != node && !removed[neighbour]) {
+					degrees[neighbour]--;
+					if (degrees[neighbour] <= 1 && neighbour != start && neighbour != end) {
+						removed[neighbour] = true;
+						queue[tail++] = neighbour;
+					}
+				}
+			}
+		}
+		queue = null;
+
+		/* The nodes kept are the ones left which are not inside a corridor */
+		boolean[] kept = new boolean[nodeCount];
+		for (int node = 0; node < nodeCount; node++)
+			kept[node] = !removed[node] && (degrees[node] != 2 || node == start || node == end);
+
+		/*
+		 * Corridors: every edge leaving a kept node is followed until another
+		 * kept node is reached. Each corridor is followed once, as its first
+		 * node is marked, and each edge between two kept nodes is recorded
+		 * from its node of smaller index
+		 */
+		Edges edges = new Edges();
+		boolean[] walked = new boolean[nodeCount];
+		for (int node = 0; node < nodeCount; node++) {
+			if (!kept[node])
+				continue;
+
+			for (int p = original.neighboursBegin(node); p < original.neighboursEnd(node); p++) {
+				int next = original.neighbourAt(p);
+				if (next == node || removed[next] || walked[next] || (kept[next] && next < node))
+					continue;
+
+				int chainBegin = edges.chainSize;
+				long weight = original.weightAt(p);
+				int previous = node;
+				while (!kept[next]) {
+					walked[next] = true;
+					edges.addToChain(next);
+					int current = next;
+					for (int q = original.neighboursBegin(current); q < original.neighboursEnd(current); q++) {
+						int neighbour = original.neighbourAt(q);
+						if (neighbour != current && neighbour != previous && !removed[neighbour]) {
+							next = neighbour;
+							weight += original.weightAt(q);
+							break;
+						}
+					}
+					previous = current;
+				}
+
+				/* A corridor leading back to its node is dropped */
+				if (next == node)
+					edges.chainSize = chainBegin;
+				else
+					edges.add(node, next, Math.toIntExact(weight), chainBegin);
+			}
+		}
+		walked = null;
+
+		/*
+		 * The edges between two nodes which are already neighbours keep the
+		 * first node of their corridor. The edges without corridors are
+		 * checked first, as they can not be split
+		 */
+		HashSet<Long> pairs = new HashSet<>();
+		for (int i = 0; i < edges.size; i++) {
+			if (edges.chainLength(i) == 0)
+				pairs.add(pair(edges.from[i], edges.to[i]));
+		}
+		int edgesBeforeSplit = edges.size;
+		for (int i = 0; i < edgesBeforeSplit; i++) {
+			if (edges.chainLength(i) == 0 || pairs.add(pair(edges.from[i], edges.to[i])))
+				continue;
+
+			int first = edges.chains[edges.chainBegin[i]];
+			int firstWeight = weightBetween(edges.from[i], first);
+			kept[first] = true;
+			edges.add(first, edges.to[i], edges.weights[i] - firstWeight, edges.chainBegin[i] + 1,
+					edges.chainEnd[i]);
+			edges.to[i] = first;
+			edges.weights[i] = firstWeight;
+			edges.chainEnd[i] = edges.chainBegin[i];
+		}
+
+		/* The kept nodes are given indices in their original order */
+		reducedIndices = new int[nodeCount];
+		int reducedCount = 0;
+		for (int node = 0; node < nodeCount; node++)
+			reducedIndices[node] = kept[node] ? reducedCount++ : -1;
+		originalIndices = new int[reducedCount];
+		for (int node = 0; node < nodeCount; node++) {
+			if (kept[node])
+				originalIndices[reducedIndices[node]] = node;
+		}
+
+		/* Every edge is stored once for each of its nodes */
+		edgeCount = edges.size;
+		offsets = new int[reducedCount + 1];
+		for (int i = 0; i < edges.size; i++) {
+			offsets[reducedIndices[edges.from[i]] + 1]++;
+			offsets[reducedIndices[edges.to[i]] + 1]++;
+		}
+		for (int i = 0; i < reducedCount; i++)
+			offsets[i + 1] += offsets[i];
+
+		targets = new int[2 * edges.size];
+		weights = new int[2 * edges.size];
+		chainOffsets = new int[2 * edges.size + 1];
+		int[] fill = Arrays.copyOf(offsets, reducedCount);
+		boolean weighted = false;
+		for (int i = 0; i < edges.size; i++) {
+			int from = reducedIndices[edges.from[i]];
+			int to = reducedIndices[edges.to[i]];
+			int forward = fill[from]++;
+			int backward = fill[to]++;
+			targets[forward] = to;
+			targets[backward] = from;
+			weights[forward] = edges.weights[i];
+			weights[backward] = edges.weights[i];
+			chainOffsets[forward + 1] = edges.chainLength(i);
+			chainOffsets[backward + 1] = edges.chainLength(i);
+			weighted |= edges.weights[i] != 1;
+		}
+		if (!weighted)
+			weights = null;
+
+		/* The nodes of the corridors, in the direction of every entry */
+		for (int p = 0; p < targets.length; p++)
+			chainOffsets[p + 1] += chainOffsets[p];
+		chains = new int[chainOffsets[targets.length]];
+		fill = Arrays.copyOf(offsets, reducedCount);
+		for (int i = 0; i < edges.size; i++) {
+			int forward = fill[reducedIndices[edges.from[i]]]++;
+			int backward = fill[reducedIndices[edges.to[i]]]++;
+			int length = edges.chainLength(i);
+			System.arraycopy(edges.chains, edges.chainBegin[i], chains, chainOffsets[forward], length);
+			for (int j = 0; j < length; j++)
+				chains[chainOffsets[backward] + j] = edges.chains[edges.chainEnd[i] - 1 - j];
+		}
+	}
+
+	/*
+	 * Returns the smallest weight of the edges between the two given nodes of
+	 * the original maze
+	 */
+	private int weightBetween(int node, int neighbour) {
+		int weight = Integer.MAX_VALUE;
+		for (int p = original.neighboursBegin(node); p < original.neighboursEnd(node); p++) {
+			if (original.neighbourAt(p) == neighbour)
+				weight = Math.min(weight, original.weightAt(p));
+		}
+		return weight;
+	}
+
+	/*
+	 * Returns a key identifying the unordered pair of the given nodes
+	 */
+	private static long pair(int node, int neighbour) {
+		return ((long) Math.min(node, neighbour) << 32) | Math.max(node, neighbour);
+	}
+
+	/*
+	 * Growable list of the edges of the reduced maze, by original index, with
+	 * the nodes of their corridors from the first node to the second
+	 */
+	private static class Edges {
+		private int[] from = new int[16];
+		private int[] to = new int[16];
+		private int[] weights = new int[16];
+		private int[] chainBegin = new int[16];
+		private int[] chainEnd = new int[16];
+		private int size;
+
+		private int[] chains = new int[16];
+		private int chainSize;
+
+		/* Appends a node to the corridor being followed */
+		public void addToChain(int node) {
+			if (chainSize == chains.length)
+				chains = Arrays.copyOf(chains, chainSize * 2);
+			chains[chainSize++] = node;
+		}
+
+		/* Adds an edge whose corridor was the last one followed */
+		public void add(int node, int neighbour, int weight, int begin) {
+			add(node, neighbour, weight, begin, chainSize);
+		}
+
+		/* Adds an edge whose corridor is the given range of the chains */
+		public void add(int node, int neighbour, int weight, int begin, int end) {
+			if (size == from.length) {
+				from = Arrays.copyOf(from, size * 2);
+				to = Arrays.copyOf(to, size * 2);
+				weights = Arrays.copyOf(weights, size * 2);
+				chainBegin = Arrays.copyOf(chainBegin, size * 2);
+				chainEnd = Arrays.copyOf(chainEnd, size * 2);
+			}
+			from[size] = node;
+			to[size] = neighbour;
+			weights[size] = weight;
+			chainBegin[size] = begin;
+			chainEnd[size] = end;
+			size++;
+		}
+
+		/* Returns the number of nodes of the corridor of the given edge */
+		public int chainLength(int edge) {
+			return chainEnd[edge] - chainBegin[edge];
+		}
+	}
+}
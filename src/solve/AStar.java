@@ -0,0 +1,225 @@
+package solve;
+
+import java.util.ArrayList;
+
+import maze.IndexedGraph;
+import maze.Maze;
+
+/**
+ * This class implements the A* algorithm to find a shortest path of a maze,
+ * that is a path whose edges have the smallest total weight.<br>
+ * <br>
+ * As a breadth first search, A* expands the nodes in order of distance from
+ * the start, but the distance of every node is increased by a heuristic
+ * estimate of its distance from the end of the maze. The nodes which lead
+ * towards the end are then expanded first, and, if the estimate is good, only
+ * the nodes along the corridors near the shortest path are expanded, instead
+ * of the whole maze. If the heuristic is admissible (see Heuristic) the path
+ * found is a shortest path.<br>
+ * <br>
+ * The heuristic is given to the constructor. For mazes whose nodes have a
+ * position, such as grid mazes, Heuristic.manhattan and Heuristic.euclidean
+ * estimate the distance from the maze.Coordinates of the nodes.<br>
+ * <br>
+ * The nodes to be expanded (the open set) are kept in a binary heap of node
+ * indices, whose keys are the estimated lengths of the paths through them,
+ * and the distance and the parent of every node are kept in arrays indexed by
+ * node. If a shorter path to a node is found, its key in the heap is
+ * decreased, or the node is added again if it was already expanded, so that
+ * the search is correct even if the heuristic is admissible but not
+ * consistent. The arrays and the heap are allocated once, and reused by every
+ * query between two nodes (see ShortestPathQuery).<br>
+ * <br>
+ * Note that, as this implementation only searches for one solution, trying to
+ * solve a maze after passing AbstractSearch.SolveMode.ALL_SOLUTIONS to the
+ * constructor will result in an UnsupportedOperationException
+ */
+public class AStar<NodeType> extends AbstractSearch<NodeType> implements ShortestPathQuery<NodeType> {
+
+	/* Estimate of the distance between two nodes */
+	private Heuristic heuristic;
+
+	/*
+	 * Distance of every node from the source, and node every node was reached
+	 * from, valid only for the nodes in the reached set, so that they are
+	 * reused by the next query without clearing them
+	 */
+	private long[] distance;
+	private int[] parent;
+	private NodeStamps reached;
+
+	/* The open set, ordered by estimated length of the path */
+	private IndexedMinHeap open;
+
+	/**
+	 * This constructor will create an instance that will search the given maze
+	 * for the quickest solution, using the given heuristic, which estimates
+	 * distances between the nodes of maze.index().
+	 *
+	 * @param maze
+	 *            the maze to be searched for solutions
+	 * @param solveMode
+	 *            This has to be AbstractSearch.SolveMode.ONE_SOLUTION (one,
+	 *            optimal solution is returned), otherwise the solve method will
+	 *            throw an UnsupportedOperationException
+	 * @param heuristic
+	 *            the estimate of the distance between two nodes
+	 */
+	public AStar(Maze<NodeType> maze, SolveMode solveMode, Heuristic heuristic) {
+		super(maze, solveMode);
+		this.heuristic = heuristic;
+	}
+
+	/**
+	 * This constructor will create an instance that will search the given
+	 * maze, which is already indexed, such as a maze.IntMaze, for the quickest
+	 * solution, using the given heuristic.
+	 *
+	 * @param graph
+	 *            the maze to be searched for solutions
+	 * @param solveMode
+	 *            This has to be AbstractSearch.SolveMode.ONE_SOLUTION (one,
+	 *            optimal solution is returned), otherwise the solve method will
+	 *            throw an UnsupportedOperationException
+	 * @param heuristic
+	 *            the estimate of the distance between two nodes
+	 */
+	public AStar(IndexedGraph<NodeType> graph, SolveMode solveMode, Heuristic heuristic) {
+		super(graph, solveMode);
+		this.heuristic = heuristic;
+	}
+
+	/**
+	 * Search the maze for the shortest path to the end.
+	 *
+	 * @return the shortest solution to the maze, or an empty list if there is
+	 *         no solution
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if AbstractSearch.SolveMode.ALL_SOLUTIONS was passed when
+	 *             instantiating this class
+	 */
+	@Override
+	public ArrayList<ArrayList<NodeType>> solve() {
+		if (solveMode != SolveMode.ONE_SOLUTION)
+			throw new UnsupportedOperationException();
+
+		SolveEvent event = new SolveEvent();
+		event.begin();
+
+		ArrayList<ArrayList<NodeType>> paths = new ArrayList<>();
+
+		int[] nodes = findPath(graph.getStart(), graph.getEnd());
+		if (nodes != null) {
+			ArrayList<NodeType> path = new ArrayList<>(nodes.length);
+			for (int node : nodes)
+				path.add(graph.getNode(node));
+			paths.add(path);
+		}
+
+		event.commit(this, paths.size());
+		return paths;
+	}
+
+	/**
+	 * Returns the shortest path between the two nodes of the given indices,
+	 * estimating the distance of every node from the target with the
+	 * heuristic. The state of the search is reused by every call.
+	 *
+	 * @param source
+	 *            the index of the first node
+	 * @param target
+	 *            the index of the second node
+	 *
+	 * @return the indices of the nodes of the path, from the source to the
+	 *         target, or null if there is no path
+	 */
+	@Override
+	public int[] findPath(int source, int target) {
+		if (!search(source, target))
+			return null;
+		stats.startPhase("path");
+
+		int length = 1;
+		for (int node = target; parent[node] != node; node = parent[node])
+			length++;
+
+		/* The path is built from the target */
+		int[] path = new int[length];
+		int node = target;
+		for (int i = length - 1; i >= 0; i--) {
+			path[i] = node;
+			node = parent[node];
+		}
+		stats.endPhase();
+		return path;
+	}
+
+	/**
+	 * Returns the total weight of the shortest path between the two nodes of
+	 * the given indices
+	 *
+	 * @param source
+	 *            the index of the first node
+	 * @param target
+	 *            the index of the second node
+	 *
+	 * @return the total weight of the path, or -1 if there is no path
+	 */
+	@Override
+	public long findDistance(int source, int target) {
+		return search(source, target) ? distance[target] : -1;
+	}
+
+	/*
+	 * Runs the search from the given node until the given target is expanded,
+	 * and returns true if there is a path
+	 */
+	private boolean search(int source, int target) {
+		stats.reset();
+		stats.startPhase("search");
+		if (open == null) {
+			int nodeCount = graph.getNodeCount();
+			distance = new long[nodeCount];
+			parent = new int[nodeCount];
+			reached = new NodeStamps(nodeCount);
+			open = new IndexedMinHeap(nodeCount);
+		}
+		reached.clear();
+		open.clear();
+
+		reached.add(source);
+		distance[source] = 0;
+		parent[source] = source;
+		open.push(source, heuristic.estimate(source, target));
+
+		while (!open.isEmpty()) {
+			stats.frontier(open.size());
+			int current = open.pop();
+
+			/* The target is expanded: no shorter path to it can be found */
+			if (current == target) {
+				stats.endPhase();
+				return true;
+			}
+			stats.nodesExpanded++;
+			stats.edgesScanned += graph.neighboursEnd(current) - graph.neighboursBegin(current);
+
+			for (int p = graph.neighboursBegin(current); p < graph.neighboursEnd(current); p++) {
+				int neighbour = graph.neighbourAt(p);
+				long neighbourDistance = distance[current] + graph.weightAt(p);
+
+				/* A shorter path to the neighbour is found */
+				if (!reached.contains(neighbour) || neighbourDistance < distance[neighbour]) {
+					reached.add(neighbour);
+					distance[neighbour] = neighbourDistance;
+					parent[neighbour] = current;
+					open.push(neighbour, neighbourDistance + heuristic.estimate(neighbour, target));
+				}
+			}
+		}
+
+		stats.endPhase();
+		return false;
+	}
+}
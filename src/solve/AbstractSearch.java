@@ -1,7 +1,10 @@
 package solve;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.List;
 
+import maze.IndexedGraph;
 import maze.Maze;
 
 /**
@@ -11,15 +14,31 @@ import maze.Maze;
  * all solutions should be returned By the solving algorithm.<br>
  * <br>
  * The class itself contains fields to keep the maze to be solved and the
- * corresponding SolveMode.<br>
+ * corresponding SolveMode. The maze is also kept as an IndexedGraph, in which
+ * every node has a dense index, so that the extending subclasses can keep the
+ * state of the search in arrays indexed by node.<br>
  * <br>
  * The contract of this class only require the extending subclasses to implement
  * the abstract solve() method with an algorithm returning a list of solutions.
  * <br>
+ * <br>
+ * Solutions can also be streamed to a SolutionVisitor, as they are found, with
+ * the solve(SolutionVisitor) method. Its default implementation visits the
+ * list returned by solve(), and the extending subclasses which can find more
+ * than one solution override it so that solutions are never collected.<br>
+ * <br>
+ * In the counting solve modes the solutions are only counted, with the
+ * countSolutions() method, so that mazes with more solutions than could ever
+ * be enumerated can be counted too.<br>
+ * <br>
+ * Every search counts the work it does into a SearchStats, available after
+ * the solve with getStats(), to see where the time of a slow solve goes.<br>
  */
 public abstract class AbstractSearch<NodeType> {
 	protected SolveMode solveMode;
 	protected Maze<NodeType> maze;
+	protected IndexedGraph<NodeType> graph;
+	protected SearchStats stats = new SearchStats();
 
 	/**
 	 * Constructor that has to be called by the extending classes to set the
@@ -36,6 +55,26 @@ public abstract class AbstractSearch<NodeType> {
 	 */
 	public AbstractSearch(Maze<NodeType> maze, SolveMode solveMode) {
 		this.maze = maze;
+		this.graph = maze.index();
+		this.solveMode = solveMode;
+	}
+
+	/**
+	 * Constructor that has to be called by the extending classes to set the
+	 * maze to be solved, already indexed, such as a maze.IntMaze, and the
+	 * corresponding SolveMode. The maze field is left null.
+	 * 
+	 * @param graph
+	 *            the maze to be solved
+	 * 
+	 * @param solveMode
+	 *            This can be one of AbstractSearch.SolveMode.ONE_SOLUTION (one
+	 *            solution should be returned) or
+	 *            AbstractSearch.SolveMode.ALL_SOLUTIONS (all solutions should
+	 *            be returned)
+	 */
+	public AbstractSearch(IndexedGraph<NodeType> graph, SolveMode solveMode) {
+		this.graph = graph;
 		this.solveMode = solveMode;
 	}
 
@@ -48,6 +87,25 @@ public abstract class AbstractSearch<NodeType> {
 	 */
 	public abstract ArrayList<ArrayList<NodeType>> solve();
 
+	/**
+	 * Find solutions to the maze, passing each of them to the given visitor.
+	 * The search stops when the visitor returns false, or when there are no
+	 * more solutions.<br>
+	 * <br>
+	 * The list passed to the visitor can be a view of a buffer reused by the
+	 * search, so it is only valid during the call to the visitor, and it has
+	 * to be copied to be kept.
+	 * 
+	 * @param visitor
+	 *            the visitor receiving the solutions
+	 */
+	public void solve(SolutionVisitor<NodeType> visitor) {
+		for (ArrayList<NodeType> solution : solve()) {
+			if (!visitor.visit(solution))
+				return;
+		}
+	}
+
 	/**
 	 * Returns the solve mode of this algorithm instance
 	 * 
@@ -60,14 +118,78 @@ public abstract class AbstractSearch<NodeType> {
 	}
 
 	/**
-	 * Enumeration type to represent the two possible solve modes.
+	 * Returns the maze searched by this algorithm instance, with every node
+	 * given a dense index
+	 *
+	 * @return the indexed maze searched by this algorithm instance
+	 */
+	public IndexedGraph<NodeType> getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Returns the statistics of the last solve, or of the last query between
+	 * two nodes, of this algorithm instance: the nodes expanded, the edges
+	 * scanned, the size of the frontier and the time of every phase. They are
+	 * reset at the start of every solve.
+	 *
+	 * @return the statistics of the last solve
+	 *
+	 * @see SearchStats
+	 */
+	public SearchStats getStats() {
+		return stats;
+	}
+
+	/**
+	 * Counts the solutions of the maze, without building any of them, for the
+	 * counting solve modes. The extending subclasses which can count solutions
+	 * override it, the default implementation throws an
+	 * UnsupportedOperationException.
+	 *
+	 * @return the number of solutions of the maze, which is 0 if it has no
+	 *         solution
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if this algorithm can not count the solutions in the solve
+	 *             mode passed when instantiating it
+	 */
+	public BigInteger countSolutions() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Enumeration type to represent the possible solve modes.
 	 * <ul>
 	 * <li>ONE_SOLUTION indicates that only one solution should be returned</li>
 	 * <li>ALL_SOLUTIONs indicates that every possible simple (without loops)
 	 * solution should be returned</li>
+	 * <li>K_SHORTEST_SOLUTIONS indicates that a given number of shortest
+	 * simple solutions should be returned, in order of length</li>
+	 * <li>COUNT_SHORTEST_SOLUTIONS indicates that the shortest solutions should
+	 * only be counted, with countSolutions()</li>
+	 * <li>COUNT_ALL_SOLUTIONS indicates that every possible simple solution
+	 * should only be counted, with countSolutions()</li>
 	 * </ul>
 	 */
 	public static enum SolveMode {
-		ONE_SOLUTION, ALL_SOLUTIONS;
+		ONE_SOLUTION, ALL_SOLUTIONS, K_SHORTEST_SOLUTIONS, COUNT_SHORTEST_SOLUTIONS, COUNT_ALL_SOLUTIONS;
+	}
+
+	/**
+	 * Interface to receive the solutions of a maze as soon as they are found.
+	 * 
+	 * @see AbstractSearch#solve(SolutionVisitor)
+	 */
+	public static interface SolutionVisitor<NodeType> {
+		/**
+		 * Receives a solution. The list is only valid during this call.
+		 * 
+		 * @param solution
+		 *            the path from the start to the end of the maze
+		 * 
+		 * @return true if the search has to go on, false to stop it
+		 */
+		boolean visit(List<NodeType> solution);
 	}
 }
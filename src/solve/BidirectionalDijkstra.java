@@ -0,0 +1,286 @@
+package solve;
+
+import java.util.ArrayList;
+
+import maze.IndexedGraph;
+import maze.Maze;
+
+/**
+ * This class implements the bidirectional Dijkstra algorithm, to find a
+ * shortest path of a maze whose edges are weighted, that is a path whose edges
+ * have the smallest total weight.<br>
+ * <br>
+ * Two Dijkstra searches are started, one from the start and one from the end
+ * of the maze. Each of them settles the nodes in order of distance from its
+ * source, taking them from a binary heap of node indices (the open set), and
+ * the search with the smaller open set is always the one which settles the
+ * next node, so that the two searches grow balanced.<br>
+ * <br>
+ * Whenever one search reaches a node already reached by the other, the two
+ * distances give the length of a path through that node, and the shortest of
+ * these paths is remembered. The searches stop as soon as the sum of the
+ * smallest distances in the two open sets is not smaller than the length of
+ * that path: any other path would have to go through a node which is not
+ * settled by either search, so it can not be shorter.<br>
+ * <br>
+ * The distance and the parent of every node are kept in arrays indexed by
+ * node, one pair for each search, so that the solution is found by following
+ * the parents from the meeting node in both directions. The arrays are
+ * allocated once, and reused by every query between two nodes (see
+ * ShortestPathQuery).<br>
+ * <br>
+ * On a maze whose edges all have weight 1 the path found is the same as the
+ * one of BidirectionalSearch, which is faster in that case.<br>
+ * <br>
+ * Note that, as this implementation only searches for one solution, trying to
+ * solve a maze after passing AbstractSearch.SolveMode.ALL_SOLUTIONS to the
+ * constructor will result in an UnsupportedOperationException
+ */
+public class BidirectionalDijkstra<NodeType> extends AbstractSearch<NodeType> implements ShortestPathQuery<NodeType> {
+
+	/* Length of the shortest path found so far, and the node it goes through */
+	private long bestLength;
+	private int meetingNode;
+
+	/* The searches from the source and from the target, reused by every query */
+	private Direction forward;
+	private Direction backward;
+
+	/**
+	 * This constructor will create an instance that will search the given maze
+	 * for the shortest solution.
+	 *
+	 * @param maze
+	 *            the maze to be searched for solutions
+	 * @param solveMode
+	 *            This has to be AbstractSearch.SolveMode.ONE_SOLUTION (one,
+	 *            optimal solution is returned), otherwise the solve method will
+	 *            throw an UnsupportedOperationException
+	 */
+	public BidirectionalDijkstra(Maze<NodeType> maze, SolveMode solveMode) {
+		super(maze, solveMode);
+	}
+
+	/**
+	 * This constructor will create an instance that will search the given
+	 * maze, which is already indexed, such as a maze.IntMaze, for the shortest
+	 * solution.
+	 *
+	 * @param graph
+	 *            the maze to be searched for solutions
+	 * @param solveMode
+	 *            This has to be AbstractSearch.SolveMode.ONE_SOLUTION (one,
+	 *            optimal solution is returned), otherwise the solve method will
+	 *            throw an UnsupportedOperationException
+	 */
+	public BidirectionalDijkstra(IndexedGraph<NodeType> graph, SolveMode solveMode) {
+		super(graph, solveMode);
+	}
+
+	/**
+	 * Search the maze for the shortest path to the end.
+	 *
+	 * @return the shortest solution to the maze, or an empty list if there is
+	 *         no solution
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if AbstractSearch.SolveMode.ALL_SOLUTIONS was passed when
+	 *             instantiating this class
+	 */
+	@Override
+	public ArrayList<ArrayList<NodeType>> solve() {
+		if (solveMode != SolveMode.ONE_SOLUTION)
+			throw new UnsupportedOperationException();
+
+		SolveEvent event = new SolveEvent();
+		event.begin();
+
+		ArrayList<ArrayList<NodeType>> paths = new ArrayList<>();
+
+		int[] nodes = findPath(graph.getStart(), graph.getEnd());
+		stats.startPhase("path");
+		if (nodes != null) {
+			ArrayList<NodeType> path = new ArrayList<>(nodes.length);
+			for (int node : nodes)
+				path.add(graph.getNode(node));
+			paths.add(path);
+		}
+		stats.endPhase();
+
+		event.commit(this, paths.size());
+		return paths;
+	}
+
+	/**
+	 * Returns the shortest path between the two nodes of the given indices.
+	 * The state of the two searches is reused by every call.
+	 *
+	 * @param source
+	 *            the index of the first node
+	 * @param target
+	 *            the index of the second node
+	 *
+	 * @return the indices of the nodes of the path, from the source to the
+	 *         target, or null if there is no path
+	 */
+	@Override
+	public int[] findPath(int source, int target) {
+		if (!search(source, target))
+			return null;
+		stats.startPhase("path");
+
+		/* Counting the nodes of the two halves of the path */
+		int forwardNodes = 1;
+		for (int node = meetingNode; forward.parent[node] != node; node = forward.parent[node])
+			forwardNodes++;
+		int backwardNodes = 0;
+		for (int node = meetingNode; backward.parent[node] != node; node = backward.parent[node])
+			backwardNodes++;
+
+		/* The half from the source is written backwards from the meeting node */
+		int[] path = new int[forwardNodes + backwardNodes];
+		int node = meetingNode;
+		for (int i = forwardNodes - 1; i >= 0; i--) {
+			path[i] = node;
+			node = forward.parent[node];
+		}
+		node = meetingNode;
+		for (int i = forwardNodes; i < path.length; i++) {
+			node = backward.parent[node];
+			path[i] = node;
+		}
+		stats.endPhase();
+
+		return path;
+	}
+
+	/**
+	 * Returns the total weight of the shortest path between the two nodes of
+	 * the given indices
+	 *
+	 * @param source
+	 *            the index of the first node
+	 * @param target
+	 *            the index of the second node
+	 *
+	 * @return the total weight of the path, or -1 if there is no path
+	 */
+	@Override
+	public long findDistance(int source, int target) {
+		return search(source, target) ? bestLength : -1;
+	}
+
+	/*
+	 * Runs the two searches from the given nodes until no shorter path can be
+	 * found, and returns true if there is a path
+	 */
+	private boolean search(int source, int target) {
+		stats.reset();
+		stats.startPhase("search");
+		if (forward == null) {
+			forward = new Direction(graph.getNodeCount());
+			backward = new Direction(graph.getNodeCount());
+		}
+		forward.reset(source);
+		backward.reset(target);
+
+		/* The source is the target as well */
+		if (source == target) {
+			bestLength = 0;
+			meetingNode = source;
+			stats.endPhase();
+			return true;
+		}
+
+		bestLength = Long.MAX_VALUE;
+		meetingNode = -1;
+
+		/*
+		 * The searches go on until one of them runs out of nodes, or no path
+		 * shorter than the best one found can exist
+		 */
+		while (!forward.open.isEmpty() && !backward.open.isEmpty()
+				&& forward.open.peekKey() + backward.open.peekKey() < bestLength) {
+			stats.frontier(forward.open.size() + backward.open.size());
+			if (forward.open.size() <= backward.open.size()) {
+				expand(forward, backward);
+				stats.forwardExpanded++;
+			} else {
+				expand(backward, forward);
+				stats.backwardExpanded++;
+			}
+		}
+
+		stats.nodesExpanded = stats.forwardExpanded + stats.backwardExpanded;
+		stats.endPhase();
+		return meetingNode >= 0;
+	}
+
+	/*
+	 * Settles the nearest node of the open set of the given search, relaxing
+	 * the edges to its neighbours and checking whether they were reached by
+	 * the other search
+	 */
+	private void expand(Direction search, Direction other) {
+		int current = search.open.pop();
+		stats.edgesScanned += graph.neighboursEnd(current) - graph.neighboursBegin(current);
+
+		for (int p = graph.neighboursBegin(current); p < graph.neighboursEnd(current); p++) {
+			int neighbour = graph.neighbourAt(p);
+			long neighbourDistance = search.distance[current] + graph.weightAt(p);
+
+			/* A shorter path to the neighbour is found */
+			if (neighbourDistance < search.distanceOf(neighbour)) {
+				search.reach(neighbour, current, neighbourDistance);
+
+				/* The neighbour connects the two searches */
+				long otherDistance = other.distanceOf(neighbour);
+				if (otherDistance != Long.MAX_VALUE && neighbourDistance + otherDistance < bestLength) {
+					bestLength = neighbourDistance + otherDistance;
+					meetingNode = neighbour;
+				}
+			}
+		}
+	}
+
+	/*
+	 * State of one of the two searches: the distance of every node from the
+	 * source, the node every reached node was reached from, and the open set.
+	 * The distance and the parent of a node are valid only if the node is in
+	 * the reached set, so that the arrays are reused by the next search
+	 * without clearing them.
+	 */
+	private static class Direction {
+		private long[] distance;
+		private int[] parent;
+		private NodeStamps reached;
+		private IndexedMinHeap open;
+
+		public Direction(int nodeCount) {
+			distance = new long[nodeCount];
+			parent = new int[nodeCount];
+			reached = new NodeStamps(nodeCount);
+			open = new IndexedMinHeap(nodeCount);
+		}
+
+		/* Starts a new search from the given node */
+		public void reset(int source) {
+			reached.clear();
+			open.clear();
+			reach(source, source, 0);
+		}
+
+		/* Returns the distance of the given node, or Long.MAX_VALUE */
+		public long distanceOf(int node) {
+			return reached.contains(node) ? distance[node] : Long.MAX_VALUE;
+		}
+
+		/* Reaches the given node from the given parent at the given distance */
+		public void reach(int node, int from, long nodeDistance) {
+			reached.add(node);
+			distance[node] = nodeDistance;
+			parent[node] = from;
+			open.push(node, nodeDistance);
+		}
+	}
+}
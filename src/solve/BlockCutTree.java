@@ -0,0 +1,383 @@
+package solve;
+
+import java.util.Arrays;
+
+import maze.IndexedGraph;
+import maze.PreprocessEvent;
+
+/**
+ * This class represents the biconnected components of a maze and its
+ * block-cut tree.<br>
+ * <br>
+ * A block (a biconnected component) is a largest part of the maze which stays
+ * connected when any one of its nodes is removed, or a single edge which is
+ * the only connection between its two nodes. The nodes shared by two or more
+ * blocks are the cut vertices: removing one of them disconnects the maze. The
+ * block-cut tree has a node for every block and one for every cut vertex, and
+ * an edge between a block and each of its cut vertices.<br>
+ * <br>
+ * A path between two nodes which does not go through a node twice goes
+ * through exactly the blocks on the path of the block-cut tree between them,
+ * in order, entering and leaving every block through the cut vertices between
+ * it and the next blocks of the tree path. No other part of the maze can be on
+ * such a path, and the paths within the blocks can be chosen independently,
+ * which is how DFS searches for all the solutions of a maze.<br>
+ * <br>
+ * The blocks are found by Tarjan's algorithm, with an explicit stack instead
+ * of recursion, so that the depth of the maze is not limited by the size of
+ * the thread stack. The nodes of every block are kept in compressed sparse row
+ * form, as the edges of maze.IntMaze: the nodes of block b are the ones
+ * returned by blockNodeAt from position blockBegin(b) (included) to
+ * blockEnd(b) (excluded).
+ */
+public class BlockCutTree {
+
+	/* Nodes of every block, in compressed sparse row form */
+	private int[] blockOffsets;
+	private int[] blockNodes;
+
+	/* Index of every cut vertex among the cut vertices, or -1 */
+	private int[] cutIndices;
+
+	/* A block containing every node, or -1 for the nodes without edges */
+	private int[] blockOf;
+
+	/*
+	 * The block-cut tree, in compressed sparse row form: its nodes are the
+	 * blocks, from 0, followed by the cut vertices, by their index
+	 */
+	private int[] treeOffsets;
+	private int[] treeTargets;
+
+	/* The cut vertices, by their index */
+	private int[] cutVertices;
+
+	/*
+	 * Private constructor, the trees are created by build
+	 */
+	private BlockCutTree() {
+	}
+
+	/**
+	 * Finds the blocks of the given maze and builds its block-cut tree
+	 *
+	 * @param graph
+	 *            the maze
+	 *
+	 * @return the block-cut tree of the maze
+	 */
+	public static BlockCutTree build(IndexedGraph<?> graph) {
+		PreprocessEvent event = new PreprocessEvent();
+		event.begin();
+		BlockCutTree tree = new BlockCutTree();
+		tree.findBlocks(graph);
+		tree.buildTree();
+		event.commit("BlockCutTree", graph, "blocks", tree.getBlockCount());
+		return tree;
+	}
+
+	/**
+	 * Returns the number of blocks of the maze
+	 *
+	 * @return the number of blocks
+	 */
+	public int getBlockCount() {
+		return blockOffsets.length - 1;
+	}
+
+	/**
+	 * Returns the number of cut vertices of the maze
+	 *
+	 * @return the number of cut vertices
+	 */
+	public int getCutVertexCount() {
+		return cutVertices.length;
+	}
+
+	/**
+	 * Returns whether the node of the given index is a cut vertex, that is it
+	 * belongs to more than one block
+	 *
+	 * @param node
+	 *            the index of the node
+	 *
+	 * @return true if the node is a cut vertex
+	 */
+	public boolean isCutVertex(int node) {
+		return cutIndices[node] >= 0;
+	}
+
+	/**
+	 * Returns the first position of the nodes of the given block
+	 *
+	 * @param block
+	 *            the index of the block
+	 *
+	 * @return the position of the first node of the block
+	 */
+	public int blockBegin(int block) {
+		return blockOffsets[block];
+	}
+
+	/**
+	 * Returns the position following the last node of the given block
+	 *
+	 * @param block
+	 *            the index of the block
+	 *
+	 * @return the position following the last node of the block
+	 */
+	public int blockEnd(int block) {
+		return blockOffsets[block + 1];
+	}
+
+	/**
+	 * Returns the node at the given position, between blockBegin(b) and
+	 * blockEnd(b) for the nodes of block b
+	 *
+	 * @param position
+	 *            the position
+	 *
+	 * @return the index of the node at the given position
+	 */
+	public int blockNodeAt(int position) {
+		return blockNodes[position];
+	}
+
+	/**
+	 * Returns the blocks a path between the two given nodes goes through,
+	 * following the block-cut tree. The result alternates nodes and blocks:
+	 * it starts with the source, followed by the first block, by the cut
+	 * vertex between the first and the second block, by the second block, and
+	 * so on, until the last block and the target. The nodes of every block
+	 * are then the ones the path enters and leaves it through.
+	 *
+	 * @param source
+	 *            the index of the first node
+	 * @param target
+	 *            the index of the second node
+	 *
+	 * @return the nodes and the blocks between them, as described, which are
+	 *         only the source if it is the target, or null if there is no
+	 *         path between the nodes
+	 */
+	public int[] pathBetween(int source, int target) {
+		if (source == target)
+			return new int[] { source };
+		int from = treeNode(source);
+		int to = treeNode(target);
+		if (from < 0 || to < 0)
+			return null;
+
+		/* Breadth first search of the tree, from the tree node of the source */
+		int treeSize = treeOffsets.length - 1;
+		int[] parent = new int[treeSize];
+		Arrays.fill(parent, -1);
+		int[] queue = new int[treeSize];
+		int head = 0;
+		int tail = 0;
+		parent[from] = from;
+		queue[tail++] = from;
+		while (head < tail && parent[to] < 0) {
+			int current = queue[head++];
+			for (int p = treeOffsets[current]; p < treeOffsets[current + 1]; p++) {
+				int next = treeTargets[p];
+				if (parent[next] < 0) {
+					parent[next] = current;
+					queue[tail++] = next;
+				}
+			}
+		}
+		if (parent[to] < 0)
+			return null;
+
+		/* The tree path, from the target back to the source */
+		int length = 1;
+		for (int node = to; node != from; node = parent[node])
+			length++;
+		int[] treePath = new int[length];
+		for (int i = length - 1, node = to; i >= 0; i--, node = parent[node])
+			treePath[i] = node;
+
+		/*
+		 * The tree path alternates blocks and cut vertices, and starts and
+		 * ends with a block unless the source or the target is a cut vertex
+		 */
+		int blockCount = getBlockCount();
+		int first = treePath[0] < blockCount ? 0 : 1;
+		int last = treePath[length - 1] < blockCount ? length - 1 : length - 2;
+		int[] path = new int[last - first + 3];
+		path[0] = source;
+		for (int i = first; i <= last; i++) {
+			int node = treePath[i];
+			path[i - first + 1] = node < blockCount ? node : cutVertices[node - blockCount];
+		}
+		path[path.length - 1] = target;
+		return path;
+	}
+
+	/*
+	 * Returns the node of the tree of the given node of the maze: the node of
+	 * its cut vertex, or the node of its only block, or -1 if it has no edges
+	 */
+	private int treeNode(int node) {
+		if (cutIndices[node] >= 0)
+			return getBlockCount() + cutIndices[node];
+		return blockOf[node];
+	}
+
+	/*
+	 * Finds the blocks of the given maze with Tarjan's algorithm: a node v
+	 * first reached from node u closes a block when no node reached from v
+	 * has an edge to a node discovered before u. The nodes of the block are
+	 * then u and the nodes discovered from v, which are on the node stack
+	 * above v
+	 */
+	private void findBlocks(IndexedGraph<?> graph) {
+		int nodeCount = graph.getNodeCount();
+
+		/* Discovery time of every node, or -1, and the lowest one it reaches */
+		int[] discovery = new int[nodeCount];
+		Arrays.fill(discovery, -1);
+		int[] low = new int[nodeCount];
+		int[] parent = new int[nodeCount];
+		int time = 0;
+
+		/* Explicit stack of the search, and position of the next neighbour */
+		int[] callStack = new int[nodeCount];
+		int[] cursors = new int[nodeCount];
+		int depth = 0;
+
+		/* Nodes discovered and not yet assigned to a block */
+		int[] nodeStack = new int[nodeCount];
+		int nodeStackSize = 0;
+
+		/* Number of blocks of every node */
+		int[] memberships = new int[nodeCount];
+		blockOf = new int[nodeCount];
+		Arrays.fill(blockOf, -1);
+
+		int[] offsets = new int[16];
+		int[] nodes = new int[16];
+		int blockCount = 0;
+		int size = 0;
+
+		for (int root = 0; root < nodeCount; root++) {
+			if (discovery[root] >= 0)
+				continue;
+
+			discovery[root] = low[root] = time++;
+			parent[root] = -1;
+			cursors[root] = graph.neighboursBegin(root);
+			callStack[depth++] = root;
+			nodeStack[nodeStackSize++] = root;
+
+			while (depth > 0) {
+				int current = callStack[depth - 1];
+
+				if (cursors[current] < graph.neighboursEnd(current)) {
+					int neighbour = graph.neighbourAt(cursors[current]++);
+					if (neighbour == current || neighbour == parent[current])
+						continue;
+
+					if (discovery[neighbour] < 0) {
+						/* Going down to a node not discovered yet */
+						discovery[neighbour] = low[neighbour] = time++;
+						parent[neighbour] = current;
+						cursors[neighbour] = graph.neighboursBegin(neighbour);
+						callStack[depth++] = neighbour;
+						nodeStack[nodeStackSize++] = neighbour;
+					} else {
+						low[current] = Math.min(low[current], discovery[neighbour]);
+					}
+					continue;
+				}
+
+				/* Going back up to the parent */
+				depth--;
+				int from = parent[current];
+				if (from < 0)
+					continue;
+				low[from] = Math.min(low[from], low[current]);
+
+				if (low[current] >= discovery[from]) {
+					/* The nodes above the current one, and its parent */
+					int blockSize = 1;
+					for (int i = nodeStackSize - 1; nodeStack[i] != current; i--)
+						blockSize++;
+					blockSize++;
+
+					if (blockCount + 2 > offsets.length)
+						offsets = Arrays.copyOf(offsets, offsets.length * 2);
+					while (size + blockSize > nodes.length)
+						nodes = Arrays.copyOf(nodes, nodes.length * 2);
+
+					int node;
+					do {
+						node = nodeStack[--nodeStackSize];
+						nodes[size++] = node;
+						memberships[node]++;
+						blockOf[node] = blockCount;
+					} while (node != current);
+					nodes[size++] = from;
+					memberships[from]++;
+					blockOf[from] = blockCount;
+
+					blockCount++;
+					offsets[blockCount] = size;
+				}
+			}
+
+			/* The root is left on the node stack */
+			nodeStackSize--;
+		}
+
+		blockOffsets = Arrays.copyOf(offsets, blockCount + 1);
+		blockNodes = Arrays.copyOf(nodes, size);
+
+		/* The nodes in more than one block are the cut vertices */
+		cutIndices = new int[nodeCount];
+		int cutCount = 0;
+		for (int node = 0; node < nodeCount; node++)
+			cutIndices[node] = memberships[node] > 1 ? cutCount++ : -1;
+		cutVertices = new int[cutCount];
+		for (int node = 0; node < nodeCount; node++) {
+			if (cutIndices[node] >= 0)
+				cutVertices[cutIndices[node]] = node;
+		}
+	}
+
+	/*
+	 * Builds the block-cut tree, linking every block to its cut vertices
+	 */
+	private void buildTree() {
+		int blockCount = getBlockCount();
+		int treeSize = blockCount + cutVertices.length;
+
+		treeOffsets = new int[treeSize + 1];
+		for (int block = 0; block < blockCount; block++) {
+			for (int p = blockOffsets[block]; p < blockOffsets[block + 1]; p++) {
+				int node = blockNodes[p];
+				if (cutIndices[node] >= 0) {
+					treeOffsets[block + 1]++;
+					treeOffsets[blockCount + cutIndices[node] + 1]++;
+				}
+			}
+		}
+		for (int i = 0; i < treeSize; i++)
+			treeOffsets[i + 1] += treeOffsets[i];
+
+		treeTargets = new int[treeOffsets[treeSize]];
+		int[] fill = Arrays.copyOf(treeOffsets, treeSize);
+		for (int block = 0; block < blockCount; block++) {
+			for (int p = blockOffsets[block]; p < blockOffsets[block + 1]; p++) {
+				int node = blockNodes[p];
+				if (cutIndices[node] >= 0) {
+					int cut = blockCount + cutIndices[node];
+					treeTargets[fill[block]++] = cut;
+					treeTargets[fill[cut]++] = block;
+				}
+			}
+		}
+	}
+}
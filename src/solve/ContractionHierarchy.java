@@ -0,0 +1,657 @@
+package solve;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+import maze.IndexedGraph;
+import maze.PreprocessEvent;
+
+/**
+ * This class represents a contraction hierarchy of a maze: a preprocessing of
+ * the maze which lets ContractionHierarchySearch answer shortest path queries
+ * between any two nodes by exploring only the few nodes above them in the
+ * hierarchy, instead of a large part of the maze.<br>
+ * <br>
+ * The nodes are contracted one at a time, in order of importance: a node is
+ * contracted by removing it from the maze and adding an edge, called a
+ * shortcut, between every two of its neighbours whose shortest path goes
+ * through it, with the weight of that path. A shortcut is not needed if a
+ * local search (the witness search) finds a path which is not longer and does
+ * not go through the node. The order is chosen greedily, contracting first the
+ * nodes which add the fewest shortcuts with respect to the edges they remove,
+ * such as the nodes along the corridors and the dead ends of a maze.<br>
+ * <br>
+ * The rank of a node is its position in the order. Every shortest path of the
+ * maze is then also a path of the hierarchy which first goes up to higher
+ * ranked nodes and then down to lower ranked ones. As the edges are
+ * undirected, the downward graph is the upward graph reversed, so only the
+ * upward graph is kept: the edges of every node to its neighbours of higher
+ * rank, at the time it was contracted. Every edge records the node its
+ * shortcut skips (its middle node), or -1 if it is an edge of the maze, so
+ * that paths of the hierarchy can be unpacked into paths of the maze.<br>
+ * <br>
+ * The upward graph is kept in the same compressed sparse row form as
+ * maze.IntMaze, with the ranks, the targets, the weights and the middle nodes
+ * held in IntBuffers, so that utils.HierarchyFile can save a hierarchy and
+ * map it back in memory without building it again.
+ *
+ * @see ContractionHierarchySearch
+ */
+public class ContractionHierarchy {
+
+	/*
+	 * Largest number of edges scanned by a witness search, when contracting a
+	 * node and when only computing its priority
+	 */
+	private static final int WITNESS_SCAN_LIMIT = 1 << 12;
+	private static final int SIMULATION_SCAN_LIMIT = 1 << 8;
+
+	/* Number of edges and fingerprint of the maze the hierarchy was built for */
+	private int edgeCount;
+	private int fingerprint;
+
+	/* Rank of every node */
+	private IntBuffer ranks;
+
+	/* Upward graph: neighbours of higher rank, weights and middle nodes */
+	private IntBuffer offsets;
+	private IntBuffer targets;
+	private IntBuffer weights;
+	private IntBuffer middles;
+
+	/*
+	 * Private constructor, the hierarchies are created by build and
+	 * fromBuffers
+	 */
+	private ContractionHierarchy(IntBuffer ranks, IntBuffer offsets, IntBuffer targets, IntBuffer weights,
+			IntBuffer middles, int edgeCount, int fingerprint) {
+		this.ranks = ranks;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		this.middles = middles;
+		this.edgeCount = edgeCount;
+		this.fingerprint = fingerprint;
+	}
+
+	/**
+	 * Builds the contraction hierarchy of the given maze
+	 *
+	 * @param graph
+	 *            the maze
+	 *
+	 * @return the contraction hierarchy of the maze
+	 *
+	 * @throws ArithmeticException
+	 *             if the weight of a shortcut does not fit in an int
+	 */
+	public static ContractionHierarchy build(IndexedGraph<?> graph) {
+		PreprocessEvent event = new PreprocessEvent();
+		event.begin();
+		ContractionHierarchy hierarchy = new Contraction(graph).contract();
+		event.commit("ContractionHierarchy", graph, "shortcuts",
+				hierarchy.getUpwardEdgeCount() - hierarchy.getEdgeCount());
+		return hierarchy;
+	}
+
+	/**
+	 * Creates a hierarchy from buffers which already hold it in the form
+	 * described for this class, such as the ones mapped from a file by
+	 * utils.HierarchyFile.<br>
+	 * <br>
+	 * The content of the buffers is checked in time linear in their size, so
+	 * that a corrupted hierarchy is rejected here rather than failing in the
+	 * middle of a query: the ranks have to be a permutation of the nodes, the
+	 * offsets have to start from 0 and never decrease, every upward edge has
+	 * to lead to a node of higher rank with a positive weight, and the middle
+	 * node of every shortcut has to be of lower rank than both its nodes, so
+	 * that unpacking a shortcut always ends.
+	 *
+	 * @param ranks
+	 *            the rank of every node
+	 * @param offsets
+	 *            the position of the upward edges of every node, followed by
+	 *            the number of positions
+	 * @param targets
+	 *            the target of every upward edge
+	 * @param weights
+	 *            the weight of every upward edge
+	 * @param middles
+	 *            the middle node of every upward edge, or -1 for the edges of
+	 *            the maze
+	 * @param edgeCount
+	 *            the number of edges of the maze the hierarchy was built for
+	 * @param fingerprint
+	 *            the fingerprint of the maze the hierarchy was built for
+	 *
+	 * @return the hierarchy held in the buffers
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the sizes or the content of the buffers are inconsistent
+	 */
+	public static ContractionHierarchy fromBuffers(IntBuffer ranks, IntBuffer offsets, IntBuffer targets,
+			IntBuffer weights, IntBuffer middles, int edgeCount, int fingerprint) {
+		int nodeCount = ranks.limit();
+		int length = targets.limit();
+		if (edgeCount < 0 || offsets.limit() != nodeCount + 1 || offsets.get(nodeCount) != length
+				|| weights.limit() != length || middles.limit() != length || !isValid(ranks, offsets, targets, weights, middles))
+			throw new IllegalArgumentException("Inconsistent hierarchy buffers");
+		return new ContractionHierarchy(ranks, offsets, targets, weights, middles, edgeCount, fingerprint);
+	}
+
+	/*
+	 * Returns true if the content of the buffers is consistent, as described
+	 * by fromBuffers. The sizes must have been checked already
+	 */
+	private static boolean isValid(IntBuffer ranks, IntBuffer offsets, IntBuffer targets, IntBuffer weights,
+			IntBuffer middles) {
+		int nodeCount = ranks.limit();
+
+		/* Every rank appears once */
+		boolean[] ranked = new boolean[nodeCount];
+		for (int i = 0; i < nodeCount; i++) {
+			int rank = ranks.get(i);
+			if (rank < 0 || rank >= nodeCount || ranked[rank])
+				return false;
+			ranked[rank] = true;
+		}
+
+		if (offsets.get(0) != 0)
+			return false;
+		for (int i = 0; i < nodeCount; i++) {
+			int begin = offsets.get(i);
+			int end = offsets.get(i + 1);
+			if (end < begin)
+				return false;
+
+			int rank = ranks.get(i);
+			for (int p = begin; p < end; p++) {
+				int target = targets.get(p);
+				int middle = middles.get(p);
+				if (target < 0 || target >= nodeCount || ranks.get(target) <= rank || weights.get(p) < 1)
+					return false;
+				if (middle != -1 && (middle < 0 || middle >= nodeCount || ranks.get(middle) >= rank))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a fingerprint of the given maze, a hash of its edges and of the
+	 * indices of their nodes. A hierarchy can only be used with a maze with
+	 * the same fingerprint as the one it was built for, as the indices of the
+	 * nodes may change if the maze is loaded in another way.
+	 *
+	 * @param graph
+	 *            the maze
+	 *
+	 * @return the fingerprint of the maze
+	 */
+	public static int fingerprint(IndexedGraph<?> graph) {
+		int hash = graph.getNodeCount();
+		for (int i = 0; i < graph.getNodeCount(); i++) {
+			hash = 31 * hash + graph.getDegree(i);
+			for (int p = graph.neighboursBegin(i); p < graph.neighboursEnd(i); p++)
+				hash = 31 * (31 * hash + graph.neighbourAt(p)) + graph.weightAt(p);
+		}
+		return hash;
+	}
+
+	/**
+	 * Returns the number of nodes of the maze the hierarchy was built for
+	 *
+	 * @return the number of nodes
+	 */
+	public int getNodeCount() {
+		return ranks.limit();
+	}
+
+	/**
+	 * Returns the number of edges of the maze the hierarchy was built for
+	 *
+	 * @return the number of edges of the maze
+	 */
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * Returns the fingerprint of the maze the hierarchy was built for
+	 *
+	 * @return the fingerprint of the maze
+	 *
+	 * @see #fingerprint(IndexedGraph)
+	 */
+	public int getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * Returns the number of edges of the upward graph, including the
+	 * shortcuts
+	 *
+	 * @return the number of edges of the upward graph
+	 */
+	public int getUpwardEdgeCount() {
+		return offsets.get(getNodeCount());
+	}
+
+	/**
+	 * Returns the rank of the node of the given index, that is its position
+	 * in the contraction order
+	 *
+	 * @param index
+	 *            the index of the node
+	 *
+	 * @return the rank of the node
+	 */
+	public int getRank(int index) {
+		return ranks.get(index);
+	}
+
+	/**
+	 * Returns the position of the first upward edge of the node of the given
+	 * index
+	 *
+	 * @param index
+	 *            the index of the node
+	 *
+	 * @return the position of the first upward edge of the node
+	 */
+	public int upwardBegin(int index) {
+		return offsets.get(index);
+	}
+
+	/**
+	 * Returns the position following the last upward edge of the node of the
+	 * given index
+	 *
+	 * @param index
+	 *            the index of the node
+	 *
+	 * @return the position following the last upward edge of the node
+	 */
+	public int upwardEnd(int index) {
+		return offsets.get(index + 1);
+	}
+
+	/**
+	 * Returns the node of higher rank the upward edge at the given position
+	 * leads to
+	 *
+	 * @param position
+	 *            the position of the upward edge
+	 *
+	 * @return the index of the target of the edge
+	 */
+	public int targetAt(int position) {
+		return targets.get(position);
+	}
+
+	/**
+	 * Returns the weight of the upward edge at the given position
+	 *
+	 * @param position
+	 *            the position of the upward edge
+	 *
+	 * @return the weight of the edge
+	 */
+	public int weightAt(int position) {
+		return weights.get(position);
+	}
+
+	/**
+	 * Returns the node skipped by the shortcut at the given position, or -1
+	 * if the upward edge at that position is an edge of the maze
+	 *
+	 * @param position
+	 *            the position of the upward edge
+	 *
+	 * @return the index of the middle node of the shortcut, or -1
+	 */
+	public int middleAt(int position) {
+		return middles.get(position);
+	}
+
+	/**
+	 * Returns the middle node of the edge between the two given nodes, as
+	 * middleAt does, looking the edge up among the upward edges of the one of
+	 * lower rank
+	 *
+	 * @param node1
+	 *            the index of one node of the edge
+	 * @param node2
+	 *            the index of the other node of the edge
+	 *
+	 * @return the index of the middle node of the shortcut, or -1 if the edge
+	 *         is an edge of the maze
+	 *
+	 * @throws IllegalArgumentException
+	 *             if there is no edge between the two nodes
+	 */
+	public int middleOf(int node1, int node2) {
+		int lower = getRank(node1) < getRank(node2) ? node1 : node2;
+		int upper = lower == node1 ? node2 : node1;
+		for (int p = upwardBegin(lower); p < upwardEnd(lower); p++) {
+			if (targetAt(p) == upper)
+				return middleAt(p);
+		}
+		throw new IllegalArgumentException("No edge between " + node1 + " and " + node2);
+	}
+
+	/*
+	 * Contraction of the nodes of a maze, which builds its hierarchy. The
+	 * remaining maze is kept in growable adjacency arrays, one per node, from
+	 * which contracted nodes are removed as they are contracted.
+	 */
+	private static class Contraction {
+		private int nodeCount;
+		private int edgeCount;
+		private int fingerprint;
+
+		/*
+		 * Remaining maze: neighbours, weights, middle nodes and number of
+		 * edges of the maze every edge stands for
+		 */
+		private int[][] neighbours;
+		private int[][] edgeWeights;
+		private int[][] edgeMiddles;
+		private int[][] edgeHops;
+		private int[] degrees;
+
+		/* Level of every node: one more than the highest contracted neighbour */
+		private int[] levels;
+
+		/* Witness search state, reset after every search */
+		private boolean[] targets;
+		private long[] witnessDistance;
+		private int[] touched;
+		private int touchedCount;
+		private IndexedMinHeap witnessHeap;
+
+		/* Shortcuts found by the last call to findShortcuts */
+		private int[] shortcuts;
+		private int shortcutCount;
+
+		public Contraction(IndexedGraph<?> graph) {
+			nodeCount = graph.getNodeCount();
+			edgeCount = graph.getEdgeCount();
+			fingerprint = fingerprint(graph);
+			neighbours = new int[nodeCount][];
+			edgeWeights = new int[nodeCount][];
+			edgeMiddles = new int[nodeCount][];
+			edgeHops = new int[nodeCount][];
+			degrees = new int[nodeCount];
+
+			/* Loops are never part of a shortest path, so they are dropped */
+			for (int i = 0; i < nodeCount; i++) {
+				int degree = graph.getDegree(i);
+				neighbours[i] = new int[degree];
+				edgeWeights[i] = new int[degree];
+				edgeMiddles[i] = new int[degree];
+				edgeHops[i] = new int[degree];
+				for (int p = graph.neighboursBegin(i); p < graph.neighboursEnd(i); p++) {
+					if (graph.neighbourAt(p) != i) {
+						neighbours[i][degrees[i]] = graph.neighbourAt(p);
+						edgeWeights[i][degrees[i]] = graph.weightAt(p);
+						edgeMiddles[i][degrees[i]] = -1;
+						edgeHops[i][degrees[i]] = 1;
+						degrees[i]++;
+					}
+				}
+			}
+
+			levels = new int[nodeCount];
+			targets = new boolean[nodeCount];
+			witnessDistance = new long[nodeCount];
+			Arrays.fill(witnessDistance, Long.MAX_VALUE);
+			touched = new int[nodeCount];
+			witnessHeap = new IndexedMinHeap(nodeCount);
+			shortcuts = new int[16];
+		}
+
+		/*
+		 * Contracts every node, returning the hierarchy
+		 */
+		public ContractionHierarchy contract() {
+			int[] ranks = new int[nodeCount];
+			int[][] upwardTargets = new int[nodeCount][];
+			int[][] upwardWeights = new int[nodeCount][];
+			int[][] upwardMiddles = new int[nodeCount][];
+
+			/*
+			 * Nodes ordered by priority, which is updated when a neighbour is
+			 * contracted and checked again when the node is taken
+			 */
+			IndexedMinHeap order = new IndexedMinHeap(nodeCount);
+			for (int i = 0; i < nodeCount; i++)
+				order.push(i, priority(i));
+
+			int rank = 0;
+			while (!order.isEmpty()) {
+				int node = order.pop();
+
+				/*
+				 * The priority may have grown since it was computed: if the
+				 * node is not the least important anymore, it waits its turn
+				 */
+				double current = priority(node);
+				if (!order.isEmpty() && current > order.peekKey()) {
+					order.push(node, current);
+					continue;
+				}
+
+				/* The remaining neighbours are the ones of higher rank */
+				ranks[node] = rank++;
+				upwardTargets[node] = Arrays.copyOf(neighbours[node], degrees[node]);
+				upwardWeights[node] = Arrays.copyOf(edgeWeights[node], degrees[node]);
+				upwardMiddles[node] = Arrays.copyOf(edgeMiddles[node], degrees[node]);
+
+				findShortcuts(node, WITNESS_SCAN_LIMIT);
+				for (int i = 0; i < shortcutCount; i += 4)
+					addEdge(shortcuts[i], shortcuts[i + 1], shortcuts[i + 2], shortcuts[i + 3], node);
+				removeNode(node);
+
+				/* The priorities of the neighbours are the ones to change */
+				for (int i = 0; i < upwardTargets[node].length; i++) {
+					int neighbour = upwardTargets[node][i];
+					levels[neighbour] = Math.max(levels[neighbour], levels[node] + 1);
+					order.update(neighbour, priority(neighbour));
+				}
+			}
+
+			/* Packing the upward edges in compressed sparse row form */
+			int[] offsets = new int[nodeCount + 1];
+			for (int i = 0; i < nodeCount; i++)
+				offsets[i + 1] = offsets[i] + upwardTargets[i].length;
+			int[] targets = new int[offsets[nodeCount]];
+			int[] weights = new int[offsets[nodeCount]];
+			int[] middles = new int[offsets[nodeCount]];
+			for (int i = 0; i < nodeCount; i++) {
+				System.arraycopy(upwardTargets[i], 0, targets, offsets[i], upwardTargets[i].length);
+				System.arraycopy(upwardWeights[i], 0, weights, offsets[i], upwardWeights[i].length);
+				System.arraycopy(upwardMiddles[i], 0, middles, offsets[i], upwardMiddles[i].length);
+			}
+
+			return new ContractionHierarchy(IntBuffer.wrap(ranks), IntBuffer.wrap(offsets), IntBuffer.wrap(targets),
+					IntBuffer.wrap(weights), IntBuffer.wrap(middles), edgeCount, fingerprint);
+		}
+
+		/*
+		 * Returns the priority of the given node, estimated with shorter
+		 * witness searches than the ones of the contraction: the ratio of the
+		 * shortcuts its contraction would add to the edges it would remove,
+		 * counted twice, plus the same ratio for the edges of the maze they
+		 * stand for, plus its level, so that the contracted nodes are spread
+		 * over the maze and the hierarchy does not get too deep
+		 */
+		private double priority(int node) {
+			findShortcuts(node, SIMULATION_SCAN_LIMIT);
+			int degree = degrees[node];
+			int removedHops = 0;
+			for (int i = 0; i < degree; i++)
+				removedHops += edgeHops[node][i];
+			int addedHops = 0;
+			for (int i = 3; i < shortcutCount; i += 4)
+				addedHops += shortcuts[i];
+			return 2.0 * (shortcutCount / 4) / Math.max(1, degree) + (double) addedHops / Math.max(1, removedHops)
+					+ levels[node];
+		}
+
+		/*
+		 * Finds the shortcuts needed to contract the given node, as two nodes,
+		 * a weight and the number of edges of the maze it stands for in the
+		 * shortcuts array. A shortcut is needed between two neighbours if the
+		 * witness search from the first, scanning at most the given number of
+		 * edges, does not find a path to the second, avoiding the node, which
+		 * is not longer than the one through the node.
+		 */
+		private void findShortcuts(int node, int scanLimit) {
+			shortcutCount = 0;
+			int degree = degrees[node];
+
+			for (int i = 0; i + 1 < degree; i++) {
+				int source = neighbours[node][i];
+				long sourceWeight = edgeWeights[node][i];
+
+				/* The neighbours after the source are the targets */
+				int maximumWeight = 0;
+				for (int j = i + 1; j < degree; j++) {
+					maximumWeight = Math.max(maximumWeight, edgeWeights[node][j]);
+					targets[neighbours[node][j]] = true;
+				}
+				witnessSearch(source, node, sourceWeight + maximumWeight, degree - i - 1, scanLimit);
+
+				for (int j = i + 1; j < degree; j++) {
+					targets[neighbours[node][j]] = false;
+					long weight = sourceWeight + edgeWeights[node][j];
+					if (witnessDistance[neighbours[node][j]] > weight) {
+						if (shortcutCount + 4 > shortcuts.length)
+							shortcuts = Arrays.copyOf(shortcuts, shortcuts.length * 2);
+						shortcuts[shortcutCount++] = source;
+						shortcuts[shortcutCount++] = neighbours[node][j];
+						shortcuts[shortcutCount++] = Math.toIntExact(weight);
+						shortcuts[shortcutCount++] = edgeHops[node][i] + edgeHops[node][j];
+					}
+				}
+
+				resetWitnessSearch();
+			}
+		}
+
+		/*
+		 * Dijkstra search from the given source in the remaining maze, avoiding
+		 * the given node, which stops when the given number of targets are
+		 * settled, after scanning the given number of edges or at the given
+		 * distance. The distances found are upper bounds of the ones in the
+		 * remaining maze, which is all a witness needs.
+		 */
+		private void witnessSearch(int source, int avoided, long limit, int targetCount, int scanLimit) {
+			touch(source, 0);
+			witnessHeap.push(source, 0);
+
+			int scanned = 0;
+			while (!witnessHeap.isEmpty() && scanned < scanLimit && witnessHeap.peekKey() <= limit) {
+				int current = witnessHeap.pop();
+				if (targets[current] && --targetCount == 0)
+					return;
+
+				scanned += degrees[current];
+				for (int i = 0; i < degrees[current]; i++) {
+					int neighbour = neighbours[current][i];
+					long distance = witnessDistance[current] + edgeWeights[current][i];
+					if (neighbour != avoided && distance < witnessDistance[neighbour]) {
+						touch(neighbour, distance);
+						witnessHeap.push(neighbour, distance);
+					}
+				}
+			}
+		}
+
+		/*
+		 * Sets the witness distance of the given node, remembering it has to be
+		 * reset
+		 */
+		private void touch(int node, long distance) {
+			if (witnessDistance[node] == Long.MAX_VALUE)
+				touched[touchedCount++] = node;
+			witnessDistance[node] = distance;
+		}
+
+		/*
+		 * Resets the state of the witness search, in time linear in the number
+		 * of nodes it reached
+		 */
+		private void resetWitnessSearch() {
+			for (int i = 0; i < touchedCount; i++)
+				witnessDistance[touched[i]] = Long.MAX_VALUE;
+			touchedCount = 0;
+			witnessHeap.clear();
+		}
+
+		/*
+		 * Adds a shortcut between the two given nodes, or lowers the weight of
+		 * the edge between them if it is heavier
+		 */
+		private void addEdge(int node1, int node2, int weight, int hops, int middle) {
+			addArc(node1, node2, weight, hops, middle);
+			addArc(node2, node1, weight, hops, middle);
+		}
+
+		/*
+		 * Adds the shortcut from the first node to the second to the adjacency
+		 * arrays of the first
+		 */
+		private void addArc(int from, int to, int weight, int hops, int middle) {
+			for (int i = 0; i < degrees[from]; i++) {
+				if (neighbours[from][i] == to) {
+					if (weight < edgeWeights[from][i]) {
+						edgeWeights[from][i] = weight;
+						edgeMiddles[from][i] = middle;
+						edgeHops[from][i] = hops;
+					}
+					return;
+				}
+			}
+
+			int degree = degrees[from]++;
+			if (degree == neighbours[from].length) {
+				int capacity = Math.max(4, degree * 2);
+				neighbours[from] = Arrays.copyOf(neighbours[from], capacity);
+				edgeWeights[from] = Arrays.copyOf(edgeWeights[from], capacity);
+				edgeMiddles[from] = Arrays.copyOf(edgeMiddles[from], capacity);
+				edgeHops[from] = Arrays.copyOf(edgeHops[from], capacity);
+			}
+			neighbours[from][degree] = to;
+			edgeWeights[from][degree] = weight;
+			edgeMiddles[from][degree] = middle;
+			edgeHops[from][degree] = hops;
+		}
+
+		/*
+		 * Removes the given node from the remaining maze
+		 */
+		private void removeNode(int node) {
+			for (int i = 0; i < degrees[node]; i++) {
+				int neighbour = neighbours[node][i];
+				for (int j = 0; j < degrees[neighbour]; j++) {
+					if (neighbours[neighbour][j] == node) {
+						/* The last neighbour takes the place of the removed one */
+						int last = --degrees[neighbour];
+						neighbours[neighbour][j] = neighbours[neighbour][last];
+						edgeWeights[neighbour][j] = edgeWeights[neighbour][last];
+						edgeMiddles[neighbour][j] = edgeMiddles[neighbour][last];
+						edgeHops[neighbour][j] = edgeHops[neighbour][last];
+						break;
+					}
+				}
+			}
+			neighbours[node] = null;
+			edgeWeights[node] = null;
+			edgeMiddles[node] = null;
+			edgeHops[node] = null;
+			degrees[node] = 0;
+		}
+	}
+}
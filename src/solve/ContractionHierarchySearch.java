@@ -0,0 +1,382 @@
+package solve;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import maze.IndexedGraph;
+import maze.Maze;
+
+/**
+ * This class answers shortest path queries on a maze using its
+ * ContractionHierarchy, which has to be built, or loaded, once for the maze
+ * and can then be shared by any number of searches.<br>
+ * <br>
+ * A query runs a Dijkstra search from each of its two nodes on the upward
+ * graph of the hierarchy, so that both searches only go to nodes of higher
+ * rank. The two searches settle their nodes alternately, and each of them
+ * stops when its smallest distance is not smaller than the shortest path found
+ * through a node reached by both. As every shortest path goes up and then
+ * down the hierarchy, the one with the highest node in common is found, and
+ * the searches only explore the few nodes of high rank above the two
+ * nodes.<br>
+ * <br>
+ * A search does not go on from a node if one of its neighbours of higher rank
+ * is already known to be nearer to the source than the edge between them
+ * implies (stall on demand): the path found to the node is then not a
+ * shortest path, so no shortest path goes through it. As the edges are
+ * undirected, these neighbours are the targets of the upward edges of the
+ * node.<br>
+ * <br>
+ * The path found is a path of the hierarchy, whose shortcuts are unpacked,
+ * following their middle nodes, into the path of the maze they stand for.<br>
+ * <br>
+ * The state of the searches is kept in arrays indexed by node, which are
+ * allocated once and reset after every query in time linear in the number of
+ * nodes the query reached, so that queries do not depend on the size of the
+ * maze. For this reason an instance must not be used by more than one thread
+ * at a time.<br>
+ * <br>
+ * Note that, as this implementation only searches for one solution, trying to
+ * solve a maze after passing AbstractSearch.SolveMode.ALL_SOLUTIONS to the
+ * constructor will result in an UnsupportedOperationException
+ *
+ * @see ContractionHierarchy
+ */
+public class ContractionHierarchySearch<NodeType> extends AbstractSearch<NodeType>
+		implements ShortestPathQuery<NodeType> {
+
+	/* The hierarchy of the maze */
+	private ContractionHierarchy hierarchy;
+
+	/* Distance of every node from the two nodes of the query */
+	private long[] forwardDistance;
+	private long[] backwardDistance;
+
+	/* Node every reached node was reached from, in the two searches */
+	private int[] forwardParent;
+	private int[] backwardParent;
+
+	/* Open sets of the two searches */
+	private IndexedMinHeap forwardOpen;
+	private IndexedMinHeap backwardOpen;
+
+	/* Nodes reached by the last query, whose state has to be reset */
+	private int[] touched;
+	private int touchedCount;
+
+	/* Length of the shortest path found by the last query, and its top node */
+	private long bestLength;
+	private int meetingNode;
+
+	/**
+	 * This constructor will create an instance that will search the given maze
+	 * for the shortest solution, using the given hierarchy, which has to be
+	 * the hierarchy of maze.index().
+	 *
+	 * @param maze
+	 *            the maze to be searched for solutions
+	 * @param solveMode
+	 *            This has to be AbstractSearch.SolveMode.ONE_SOLUTION (one,
+	 *            optimal solution is returned), otherwise the solve method will
+	 *            throw an UnsupportedOperationException
+	 * @param hierarchy
+	 *            the contraction hierarchy of the maze
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the hierarchy was not built for the maze
+	 */
+	public ContractionHierarchySearch(Maze<NodeType> maze, SolveMode solveMode, ContractionHierarchy hierarchy) {
+		super(maze, solveMode);
+		initialise(hierarchy);
+	}
+
+	/**
+	 * This constructor will create an instance that will search the given
+	 * maze, which is already indexed, such as a maze.IntMaze, for the shortest
+	 * solution, using the given hierarchy.
+	 *
+	 * @param graph
+	 *            the maze to be searched for solutions
+	 * @param solveMode
+	 *            This has to be AbstractSearch.SolveMode.ONE_SOLUTION (one,
+	 *            optimal solution is returned), otherwise the solve method will
+	 *            throw an UnsupportedOperationException
+	 * @param hierarchy
+	 *            the contraction hierarchy of the maze
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the hierarchy was not built for the maze
+	 */
+	public ContractionHierarchySearch(IndexedGraph<NodeType> graph, SolveMode solveMode,
+			ContractionHierarchy hierarchy) {
+		super(graph, solveMode);
+		initialise(hierarchy);
+	}
+
+	/*
+	 * Checks the hierarchy against the maze and allocates the state of the
+	 * searches
+	 */
+	private void initialise(ContractionHierarchy hierarchy) {
+		int nodeCount = graph.getNodeCount();
+		if (hierarchy.getNodeCount() != nodeCount || hierarchy.getEdgeCount() != graph.getEdgeCount()
+				|| hierarchy.getFingerprint() != ContractionHierarchy.fingerprint(graph))
+			throw new IllegalArgumentException("The hierarchy was built for another maze");
+
+		this.hierarchy = hierarchy;
+		forwardDistance = new long[nodeCount];
+		backwardDistance = new long[nodeCount];
+		Arrays.fill(forwardDistance, Long.MAX_VALUE);
+		Arrays.fill(backwardDistance, Long.MAX_VALUE);
+		forwardParent = new int[nodeCount];
+		backwardParent = new int[nodeCount];
+		forwardOpen = new IndexedMinHeap(nodeCount);
+		backwardOpen = new IndexedMinHeap(nodeCount);
+		touched = new int[nodeCount];
+	}
+
+	/**
+	 * Search the maze for the shortest path to the end.
+	 *
+	 * @return the shortest solution to the maze, or an empty list if there is
+	 *         no solution
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if AbstractSearch.SolveMode.ALL_SOLUTIONS was passed when
+	 *             instantiating this class
+	 */
+	@Override
+	public ArrayList<ArrayList<NodeType>> solve() {
+		if (solveMode != SolveMode.ONE_SOLUTION)
+			throw new UnsupportedOperationException();
+
+		SolveEvent event = new SolveEvent();
+		event.begin();
+
+		ArrayList<ArrayList<NodeType>> paths = new ArrayList<>();
+		int[] path = findPath(graph.getStart(), graph.getEnd());
+		if (path != null) {
+			ArrayList<NodeType> solution = new ArrayList<>(path.length);
+			for (int node : path)
+				solution.add(graph.getNode(node));
+			paths.add(solution);
+		}
+		event.commit(this, paths.size());
+		return paths;
+	}
+
+	/**
+	 * Returns the length of the shortest path between the two nodes of the
+	 * given indices, that is the total weight of its edges
+	 *
+	 * @param source
+	 *            the index of the first node
+	 * @param target
+	 *            the index of the second node
+	 *
+	 * @return the length of the shortest path, or -1 if there is no path
+	 */
+	@Override
+	public long findDistance(int source, int target) {
+		query(source, target);
+		long length = meetingNode < 0 ? -1 : bestLength;
+		reset();
+		return length;
+	}
+
+	/**
+	 * Returns the shortest path between the two nodes of the given indices,
+	 * as the indices of its nodes in order
+	 *
+	 * @param source
+	 *            the index of the first node
+	 * @param target
+	 *            the index of the second node
+	 *
+	 * @return the indices of the nodes of the shortest path, from the source
+	 *         to the target, or null if there is no path
+	 */
+	@Override
+	public int[] findPath(int source, int target) {
+		query(source, target);
+		stats.startPhase("unpacking");
+		int[] path = meetingNode < 0 ? null : unpack(source, target);
+		stats.endPhase();
+		reset();
+		return path;
+	}
+
+	/*
+	 * Runs the two searches between the given nodes, setting bestLength and
+	 * meetingNode, which is -1 if there is no path
+	 */
+	private void query(int source, int target) {
+		stats.reset();
+		stats.startPhase("search");
+		bestLength = Long.MAX_VALUE;
+		meetingNode = -1;
+
+		reach(forwardDistance, forwardParent, forwardOpen, source, source, 0);
+		reach(backwardDistance, backwardParent, backwardOpen, target, target, 0);
+		if (source == target) {
+			bestLength = 0;
+			meetingNode = source;
+		}
+
+		/*
+		 * The searches settle a node each in turn, and each one stops when no
+		 * shorter path can be found through the nodes it has left
+		 */
+		boolean forwardDone = false;
+		boolean backwardDone = false;
+		while (!forwardDone || !backwardDone) {
+			stats.frontier(forwardOpen.size() + backwardOpen.size());
+			forwardDone = forwardOpen.isEmpty() || forwardOpen.peekKey() >= bestLength;
+			if (!forwardDone) {
+				settle(forwardDistance, forwardParent, forwardOpen, backwardDistance);
+				stats.forwardExpanded++;
+			}
+
+			backwardDone = backwardOpen.isEmpty() || backwardOpen.peekKey() >= bestLength;
+			if (!backwardDone) {
+				settle(backwardDistance, backwardParent, backwardOpen, forwardDistance);
+				stats.backwardExpanded++;
+			}
+		}
+
+		stats.nodesExpanded = stats.forwardExpanded + stats.backwardExpanded;
+		stats.endPhase();
+	}
+
+	/*
+	 * Settles the nearest node of the open set of one of the searches,
+	 * relaxing its upward edges
+	 */
+	private void settle(long[] distance, int[] parent, IndexedMinHeap open, long[] otherDistance) {
+		int current = open.pop();
+
+		/*
+		 * Stall on demand: if a node of higher rank, already reached, gives a
+		 * shorter path to this node, the distance of this node is not its
+		 * distance in the maze, and no shortest path goes up through it
+		 */
+		for (int p = hierarchy.upwardBegin(current); p < hierarchy.upwardEnd(current); p++) {
+			int neighbour = hierarchy.targetAt(p);
+			if (distance[neighbour] != Long.MAX_VALUE
+					&& distance[neighbour] + hierarchy.weightAt(p) < distance[current]) {
+				stats.edgesScanned += p - hierarchy.upwardBegin(current) + 1;
+				return;
+			}
+		}
+		stats.edgesScanned += 2 * (hierarchy.upwardEnd(current) - hierarchy.upwardBegin(current));
+
+		for (int p = hierarchy.upwardBegin(current); p < hierarchy.upwardEnd(current); p++) {
+			int neighbour = hierarchy.targetAt(p);
+			long neighbourDistance = distance[current] + hierarchy.weightAt(p);
+
+			if (neighbourDistance < distance[neighbour]) {
+				reach(distance, parent, open, neighbour, current, neighbourDistance);
+
+				/* The neighbour connects the two searches */
+				if (otherDistance[neighbour] != Long.MAX_VALUE
+						&& neighbourDistance + otherDistance[neighbour] < bestLength) {
+					bestLength = neighbourDistance + otherDistance[neighbour];
+					meetingNode = neighbour;
+				}
+			}
+		}
+	}
+
+	/*
+	 * Records that one of the searches reached the given node from the given
+	 * parent, at the given distance
+	 */
+	private void reach(long[] distance, int[] parent, IndexedMinHeap open, int node, int from, long nodeDistance) {
+		if (forwardDistance[node] == Long.MAX_VALUE && backwardDistance[node] == Long.MAX_VALUE)
+			touched[touchedCount++] = node;
+		distance[node] = nodeDistance;
+		parent[node] = from;
+		open.push(node, nodeDistance);
+	}
+
+	/*
+	 * Resets the state of the searches, in time linear in the number of nodes
+	 * reached by the last query
+	 */
+	private void reset() {
+		for (int i = 0; i < touchedCount; i++) {
+			forwardDistance[touched[i]] = Long.MAX_VALUE;
+			backwardDistance[touched[i]] = Long.MAX_VALUE;
+		}
+		touchedCount = 0;
+		forwardOpen.clear();
+		backwardOpen.clear();
+	}
+
+	/*
+	 * Returns the path of the maze between the given nodes, found by the last
+	 * query: the path of the hierarchy through the meeting node, with every
+	 * shortcut replaced by the edges it stands for
+	 */
+	private int[] unpack(int source, int target) {
+		/* The path of the hierarchy, from the source to the target */
+		int upwardLength = 0;
+		for (int node = meetingNode; node != source; node = forwardParent[node])
+			upwardLength++;
+		int downwardLength = 0;
+		for (int node = meetingNode; node != target; node = backwardParent[node])
+			downwardLength++;
+		int[] nodes = new int[upwardLength + downwardLength + 1];
+		int position = upwardLength;
+		for (int node = meetingNode; node != source; node = forwardParent[node])
+			nodes[position--] = node;
+		nodes[0] = source;
+		position = upwardLength;
+		for (int node = meetingNode; node != target; node = backwardParent[node])
+			nodes[++position] = backwardParent[node];
+
+		/* Its edges are pushed on a stack, the one from the source on top */
+		int[] stack = new int[2 * nodes.length];
+		int stackSize = 0;
+		for (int i = nodes.length - 1; i > 0; i--) {
+			stack[stackSize++] = nodes[i - 1];
+			stack[stackSize++] = nodes[i];
+		}
+
+		/*
+		 * The edges are taken from the top of the stack, which holds the one
+		 * from the source: an edge of the maze is added to the path, while a
+		 * shortcut is replaced by its two halves
+		 */
+		int[] path = new int[16];
+		int length = 0;
+		path[length++] = source;
+		while (stackSize > 0) {
+			int to = stack[--stackSize];
+			int from = stack[--stackSize];
+			int middle = hierarchy.middleOf(from, to);
+			if (middle < 0) {
+				path = ensureCapacity(path, length + 1);
+				path[length++] = to;
+			} else {
+				stack = ensureCapacity(stack, stackSize + 4);
+				stack[stackSize++] = middle;
+				stack[stackSize++] = to;
+				stack[stackSize++] = from;
+				stack[stackSize++] = middle;
+			}
+		}
+
+		return Arrays.copyOf(path, length);
+	}
+
+	/*
+	 * Returns the given array, or a larger copy of it if it can not hold the
+	 * given number of elements
+	 */
+	private static int[] ensureCapacity(int[] array, int minimum) {
+		if (minimum <= array.length)
+			return array;
+		return Arrays.copyOf(array, Math.max(minimum, array.length * 2));
+	}
+}
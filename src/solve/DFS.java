@@ -1,43 +1,52 @@
 package solve;
 
+import java.math.BigInteger;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.Arrays;
 
-import exceptions.NullNodeException;
+import maze.IndexedGraph;
 import maze.Maze;
 
 /**
- * This class implements a DFS recursive algorithm that can solve a maze. The
+ * This class implements a DFS iterative algorithm that can solve a maze. The
  * nodes chosen to be expanded are always the most far away from the start, and
  * the algorithm backtracks only when going forward is no longer possible<br>
  * <br>
  * The type parameter NodeType allows this implementation not to require any particular
- * representation of a node. Correct implementations of hashCode and equals
- * methods are everything that this class needs to work with any type of node.
+ * representation of a node. The search works on the dense index of the maze
+ * (see maze.IndexedGraph), so it never looks nodes up by hash code: two
+ * different nodes are always told apart, even if their hash codes are equal.
  * <br>
- * The colouring needed not to repeat the same node is implemented by
- * encapsulating nodes in an inner type, DFSNode. This class contains a pointer
- * to the node and a colour parameter from the enumeration type Color, which is
- * also enclosed in this class. <br>
+ * The colouring needed not to repeat the same node is kept in a byte array
+ * indexed by node index. A node can have three colours: WHITE, GREY and BLACK,
+ * which respectively mean "Node never encountered", "Node encountered but not
+ * fully explored" and "Node encountered and fully explored (all the accessible
+ * subgraph have been completely expanded)".<br>
  * <br>
- * This type contains three colours: WHITE, GREY and BLACK, which respectively
- * mean "Node never encountered", "Node encountered but not fully explored" and
- * "Node encountered and fully explored (all the accessible subgraph have been
- * completely expanded)".<br>
+ * Instead of recursing, the search keeps an explicit stack of frames, one for
+ * each node on the current path. A frame is made of the index of the node, the
+ * position of the next neighbour to be expanded and, when searching for all
+ * solutions, the count of neighbours found to be black and whether a solution
+ * was found through the node. The frames are kept in parallel arrays, so that
+ * no object is allocated while visiting a node, and the depth of the search is
+ * only limited by the size of the maze.<br>
  * <br>
- * To find one non-optimal solution, the oneSolutionStep method recursively
- * calls itself on the neighbours of every encountered node, starting from the
- * beginning of the maze.<br>
+ * The nodes on the stack are the current path. When the end is reached, a view
+ * of the stack is passed to the SolutionVisitor given to
+ * solve(SolutionVisitor), so that solutions are streamed without being copied,
+ * and the memory used does not depend on the number of solutions. The solve()
+ * method collects copies of the streamed solutions.<br>
+ * <br>
+ * To find one non-optimal solution, the oneSolution method expands the
+ * neighbours of every encountered node, starting from the beginning of the
+ * maze.<br>
  * It returns if it runs out of unexplored nodes or if it finds a solution.<br>
- * In the first case, an empty ArrayList is returned, while in the latter the
- * so-found solution is returned.<br>
  * The nodes are coloured as GREY as soon as they are encountered, and only
  * WHITE nodes are selected to be visited. Moreover, the nodes are marked as
  * BLACK if they are fully expanded.<br>
  * <br>
- * To find all solutions, the allSolutionStep method use a similar approach, but
+ * To find all solutions, the allSolutions method use a similar approach, but
  * there are two main differences:
  * <ul>
  * <li>first of all, the search does not stop if a solution is found;</li>
@@ -48,32 +57,107 @@ import maze.Maze;
  * neighbours at all. In this way any path that leads to a dead end is not
  * expanded again in next iterations.</li>
  * </ul>
+ * Moreover, before searching for all solutions, the maze is split into its
+ * blocks (see BlockCutTree). Only the blocks on the way from the start to the
+ * end can hold a solution, so the search never leaves them, and the paths
+ * within each block are found once and combined with the paths of the other
+ * blocks, instead of being found again for every path leading to the block.
+ * <br>
+ * <br>
+ * In the AbstractSearch.SolveMode.COUNT_ALL_SOLUTIONS mode, the solutions are
+ * counted by countSolutions() without being built: the paths within every
+ * block on the way from the start to the end are counted once, by the same
+ * search, and the number of solutions is the product of these counts. As
+ * counting the simple paths of a maze is as hard as finding them, the search
+ * within every block still takes time proportional to the number of its paths,
+ * but no path is ever copied, and the blocks are never combined.
  */
 public class DFS<NodeType> extends AbstractSearch<NodeType> {
 
+	/* Colours of the nodes */
+	private static final byte WHITE = 0;
+	private static final byte GREY = 1;
+	private static final byte BLACK = 2;
+
+	/* Colour of every node, indexed by node index */
+	private byte[] colours;
+
+	/* Explicit stack: the nodes on the current path */
+	private int[] stack;
+
+	/* Explicit stack: the position of the next neighbour to be expanded */
+	private int[] cursors;
+
+	/* Explicit stack: the number of neighbours found to be black */
+	private int[] blackNeighbours;
+
+	/* Explicit stack: whether a solution was found through the node */
+	private boolean[] found;
+
+	/* Number of frames on the explicit stack */
+	private int depth;
+
+	/* The visitor receiving the solutions */
+	private SolutionVisitor<NodeType> visitor;
+
+	/*
+	 * Nodes of a solution before and after the nodes on the explicit stack,
+	 * when searching for all solutions block by block
+	 */
+	private int[] prefix;
+	private int prefixLength;
+	private int[] suffix;
+	private int suffixLength;
+
+	/*
+	 * Paths found within the current block, or null if they are passed to the
+	 * visitor as part of a solution
+	 */
+	private BlockPaths blockPaths;
+
 	/*
-	 * To keep trace of the colours, the nodes have to be encapsulated in a
-	 * DFSNode instance. This HashMap will contains these instances.
-	 * 
-	 * The nodes are added while searching, when they are needed.
+	 * Whether the paths found within the current block are only counted, and
+	 * their number, which is moved to countOverflow before it overflows
 	 */
-	private HashMap<Integer, DFSNode> DFSNodes;
-	
+	private boolean counting;
+	private long pathCount;
+	private BigInteger countOverflow;
+
 	/**
 	 * Constructor that initialise a new instance of a maze solver using the
-	 * recursive DFS algorithm
-	 * 
+	 * iterative DFS algorithm
+	 *
 	 * @param maze
 	 *            The maze to solve
 	 * @param solveMode
 	 *            This can be one of AbstractSearch.SolveMode.ONE_SOLUTION (one
-	 *            solution is returned) or
+	 *            solution is returned),
 	 *            AbstractSearch.SolveMode.ALL_SOLUTIONS (all possible solutions
-	 *            are returned)
+	 *            are returned) or
+	 *            AbstractSearch.SolveMode.COUNT_ALL_SOLUTIONS (all possible
+	 *            solutions are counted by countSolutions())
 	 */
 	public DFS(Maze<NodeType> maze, SolveMode solveMode) {
 		super(maze, solveMode);
-		this.DFSNodes = new HashMap<>();
+	}
+
+	/**
+	 * Constructor that initialise a new instance of a maze solver using the
+	 * iterative DFS algorithm, for a maze which is already indexed, such as a
+	 * maze.IntMaze
+	 *
+	 * @param graph
+	 *            The maze to solve
+	 * @param solveMode
+	 *            This can be one of AbstractSearch.SolveMode.ONE_SOLUTION (one
+	 *            solution is returned),
+	 *            AbstractSearch.SolveMode.ALL_SOLUTIONS (all possible solutions
+	 *            are returned) or
+	 *            AbstractSearch.SolveMode.COUNT_ALL_SOLUTIONS (all possible
+	 *            solutions are counted by countSolutions())
+	 */
+	public DFS(IndexedGraph<NodeType> graph, SolveMode solveMode) {
+		super(graph, solveMode);
 	}
 
 	/**
@@ -84,258 +168,447 @@ public class DFS<NodeType> extends AbstractSearch<NodeType> {
 	 * <li>AbstractSearch.SolveMode.ALL_SOLUTIONS: all possible solutions are
 	 * returned.</li>
 	 * </ul>
-	 * 
+	 *
 	 * @return paths in the maze (from start to solution) or an empty list if no
 	 *         solution is found.
 	 */
 	@Override
 	public ArrayList<ArrayList<NodeType>> solve() {
-		if (solveMode == SolveMode.ONE_SOLUTION) {
-			ArrayList<ArrayList<NodeType>> result = new ArrayList<>();
-			result.add(oneSolutionStep(maze.getStart()));
-			return result;
-		} else {
-			return allSolutionsStep(maze.getStart());
-		}
+		ArrayList<ArrayList<NodeType>> paths = new ArrayList<>();
+
+		/* Every solution streamed is copied to the list to be returned */
+		solve(solution -> paths.add(new ArrayList<>(solution)));
+
+		return paths;
 	}
 
-	/*
-	 * Fundamental DFS recursive step to find one solution.
+	/**
+	 * Find solutions to the maze, passing each of them to the given visitor as
+	 * soon as it is found. The maximum number of solutions visited depends on
+	 * the solve mode chosen, as for solve(), and the search stops earlier if
+	 * the visitor returns false.<br>
+	 * <br>
+	 * The list passed to the visitor is a view of the current path of the
+	 * search, so it has to be copied to be kept after the visitor returns.
+	 *
+	 * @param visitor
+	 *            the visitor receiving the solutions
 	 */
-	private ArrayList<NodeType> oneSolutionStep(NodeType currentNode) {
-		/* Variable to store a solution path */
-		ArrayList<NodeType> path = new ArrayList<>();
+	@Override
+	public void solve(SolutionVisitor<NodeType> visitor) {
+		if (solveMode != SolveMode.ONE_SOLUTION && solveMode != SolveMode.ALL_SOLUTIONS)
+			throw new UnsupportedOperationException();
 
-		/*
-		 * Getting (or adding if not present) the DFSNode corresponding to the
-		 * current node
-		 */
-		DFSNode currentDFSNode = getDFSNode(currentNode);
+		SolveEvent event = new SolveEvent();
+		event.begin();
+
+		/* The solutions are counted for the event of the solve */
+		long[] solutions = { 0 };
+		allocate();
+		this.visitor = solution -> {
+			solutions[0]++;
+			return visitor.visit(solution);
+		};
 
-		/* Getting the neighbours of the current node */
-		HashSet<NodeType> neighbours = null;
 		try {
-			neighbours = maze.neighbours(currentNode);
-		} catch (NullNodeException e1) {
-			e1.printStackTrace();
+			if (solveMode == SolveMode.ONE_SOLUTION) {
+				stats.startPhase("search");
+				oneSolution();
+			} else {
+				allSolutions();
+			}
+		} finally {
+			release();
 		}
+		event.commit(this, solutions[0]);
+	}
 
-		/* Iterating over the neighbours */
-		Iterator<NodeType> neighboursIterator = neighbours.iterator();
+	/**
+	 * Counts all the simple solutions of the maze, without building them. The
+	 * paths within every block on the way from the start to the end are
+	 * counted separately, and multiplied.
+	 *
+	 * @return the number of solutions of the maze, which is 0 if it has no
+	 *         solution
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if AbstractSearch.SolveMode.COUNT_ALL_SOLUTIONS was not passed
+	 *             when instantiating this class
+	 */
+	@Override
+	public BigInteger countSolutions() {
+		if (solveMode != SolveMode.COUNT_ALL_SOLUTIONS)
+			throw new UnsupportedOperationException();
+
+		SolveEvent event = new SolveEvent();
+		event.begin();
+		BigInteger solutions = countBlocks();
+		event.commit(this, solutions);
+		return solutions;
+	}
 
-		/*
-		 * Stopping if a solution is found, or if there are no more neighbours
-		 */
-		while (neighboursIterator.hasNext() && path.isEmpty()) {
-			NodeType neighbour = neighboursIterator.next();
+	/*
+	 * Counts the paths within every block on the way from the start to the end,
+	 * and returns their product
+	 */
+	private BigInteger countBlocks() {
+		allocate();
+		counting = true;
 
-			/*
-			 * Getting (or adding if not present) the DFSNode corresponding to
-			 * the neighbour
-			 */
-			DFSNode DFSNeighbour = getDFSNode(neighbour);
+		try {
+			stats.startPhase("blocks");
+			BlockCutTree tree = BlockCutTree.build(graph);
+			int[] route = tree.pathBetween(graph.getStart(), graph.getEnd());
 
-			/* Nodes are grey-coloured as soon as they are encountered */
-			currentDFSNode.colorGrey();
+			/* As for all solutions, the start is not a solution by itself */
+			if (route == null || route.length == 1)
+				return BigInteger.ZERO;
 
-			/* Expanding only white neighbours, to avoid loops */
-			if (DFSNeighbour.isWhite()) {
-				/* If a solution is found is added to the path */
-				if (neighbour.equals(maze.getEnd()))
-					path.add(neighbour);
-				else {
-					/* Otherwise, this method calls himself on the neighbour */
-					path = oneSolutionStep(neighbour);
+			stats.startPhase("search");
 
-				}
+			Arrays.fill(colours, BLACK);
+
+			BigInteger solutions = BigInteger.ONE;
+			for (int i = 0; i < route.length / 2 && solutions.signum() > 0; i++) {
+				pathCount = 0;
+				countOverflow = BigInteger.ZERO;
+				blockSolutions(tree, route[2 * i + 1], route[2 * i], route[2 * i + 2]);
+				solutions = solutions.multiply(countOverflow.add(BigInteger.valueOf(pathCount)));
 			}
+			return solutions;
+		} finally {
+			release();
 		}
+	}
 
-		/*
-		 * When all the possible neighbours are explored, colour this node black
-		 */
-		currentDFSNode.colorBlack();
-
-		/* If a solution path is being returned, add this node to it */
-		if (path.size() != 0)
-			path.add(0, currentNode);
-
-		return path;
+	/*
+	 * Allocates the state of the search
+	 */
+	private void allocate() {
+		stats.reset();
+		int nodeCount = graph.getNodeCount();
+		colours = new byte[nodeCount];
+		stack = new int[nodeCount + 1];
+		cursors = new int[nodeCount];
+		if (solveMode != SolveMode.ONE_SOLUTION) {
+			blackNeighbours = new int[nodeCount];
+			found = new boolean[nodeCount];
+		}
+		depth = 0;
+		prefixLength = 0;
+		suffixLength = 0;
 	}
 
-	@SuppressWarnings("unchecked")
-	private ArrayList<ArrayList<NodeType>> allSolutionsStep(NodeType currentNode) {
+	/*
+	 * The search state is not needed anymore
+	 */
+	private void release() {
+		stats.endPhase();
+		colours = null;
+		stack = null;
+		cursors = null;
+		blackNeighbours = null;
+		found = null;
+		prefix = null;
+		suffix = null;
+		blockPaths = null;
+		counting = false;
+		countOverflow = null;
+		visitor = null;
+	}
 
-		/* Variable to store a list of solution paths */
-		ArrayList<ArrayList<NodeType>> paths = new ArrayList<>();
+	/*
+	 * Fundamental DFS loop to find one solution, which is visited
+	 */
+	private void oneSolution() {
+		int end = graph.getEnd();
 
-		/* Variable to store a solution path */
-		ArrayList<NodeType> path = new ArrayList<>();
+		push(graph.getStart());
 
-		/*
-		 * Getting (or adding if not present) the DFSNode corresponding to the
-		 * current node
-		 */
-		DFSNode currentDFSNode = getDFSNode(currentNode);
+		while (depth > 0) {
+			int top = depth - 1;
+			int current = stack[top];
 
-		/* Nodes are grey-coloured as soon as they are encountered */
-		currentDFSNode.colorGrey();
+			/*
+			 * When all the possible neighbours are explored, colour this node
+			 * black and backtrack
+			 */
+			if (cursors[top] == graph.neighboursEnd(current)) {
+				colours[current] = BLACK;
+				depth--;
+				continue;
+			}
 
-		/*
-		 * Variable to count how many neighbours are black after returning from
-		 * this method's call on them.
-		 * 
-		 * If this matches the numbers of neighbour - 1 (as the node we came
-		 * from to reach this one is of course unreachable as it was grey
-		 * already), and no solutions path are being returned, this node can be
-		 * marked as black as well, as it can not lead to any solution.
-		 */
-		int blackNeighbours = 0;
+			int neighbour = graph.neighbourAt(cursors[top]++);
+			stats.edgesScanned++;
 
-		/* Getting the neighbours of the current node */
-		HashSet<NodeType> neighbours = null;
-		try {
-			neighbours = maze.neighbours(currentNode);
-		} catch (NullNodeException e1) {
-			e1.printStackTrace();
+			/* Expanding only white neighbours, to avoid loops */
+			if (colours[neighbour] == WHITE) {
+				/* If a solution is found the search stops */
+				if (neighbour == end) {
+					visitSolution(neighbour);
+					return;
+				}
+				push(neighbour);
+			}
 		}
+	}
 
-		/* Iterating over the neighbours */
-		Iterator<NodeType> neighboursIterator = neighbours.iterator();
+	/*
+	 * Finds all the solutions through the blocks of the maze (see
+	 * BlockCutTree). A solution goes through the blocks on the path of the
+	 * block-cut tree from the start to the end, and through no other node, so
+	 * the paths within each of these blocks are found separately, between the
+	 * nodes the solutions enter and leave it through, and every combination of
+	 * them is a solution. The paths of every block but the largest one are
+	 * kept, and for every combination of them the paths of the largest block
+	 * are found again and visited, so that the largest set of paths, which can
+	 * be the one of the whole maze, is never kept in memory
+	 */
+	private void allSolutions() {
+		stats.startPhase("blocks");
+		BlockCutTree tree = BlockCutTree.build(graph);
+		int[] route = tree.pathBetween(graph.getStart(), graph.getEnd());
+
+		/* As for one solution, the start is not a solution by itself */
+		if (route == null || route.length == 1)
+			return;
+
+		stats.startPhase("search");
+
+		/* Nodes outside the current block are never expanded */
+		Arrays.fill(colours, BLACK);
+
+		/* The block at route[2 * i + 1] is entered and left through its neighbours */
+		int blockCount = route.length / 2;
+		int largest = 0;
+		for (int i = 1; i < blockCount; i++) {
+			if (blockSize(tree, route[2 * i + 1]) > blockSize(tree, route[2 * largest + 1]))
+				largest = i;
+		}
 
-		/* The search does not stop until it runs out of solutions */
-		while (neighboursIterator.hasNext()) {
-			NodeType neighbour = neighboursIterator.next();
+		BlockPaths[] paths = new BlockPaths[blockCount];
+		for (int i = 0; i < blockCount; i++) {
+			if (i == largest)
+				continue;
+			blockPaths = new BlockPaths();
+			blockSolutions(tree, route[2 * i + 1], route[2 * i], route[2 * i + 2]);
+			paths[i] = blockPaths;
+			if (blockPaths.count == 0)
+				return;
+		}
+		blockPaths = null;
+
+		/* Every combination of the paths kept, counting as an odometer */
+		int[] choices = new int[blockCount];
+		prefix = new int[graph.getNodeCount()];
+		suffix = new int[graph.getNodeCount()];
+		do {
+			/* The blocks before the largest one, without their last nodes */
+			prefixLength = 0;
+			for (int i = 0; i < largest; i++)
+				prefixLength = paths[i].copy(choices[i], prefix, prefixLength, 0, 1);
+
+			/* The blocks after the largest one, without their first nodes */
+			suffixLength = 0;
+			for (int i = largest + 1; i < blockCount; i++)
+				suffixLength = paths[i].copy(choices[i], suffix, suffixLength, 1, 0);
+
+			if (!blockSolutions(tree, route[2 * largest + 1], route[2 * largest], route[2 * largest + 2]))
+				return;
+		} while (next(choices, paths, largest));
+	}
 
-			/*
-			 * Getting (or adding if not present) the DFSNode corresponding to
-			 * the neighbour
-			 */
-			DFSNode DFSNeighbour = getDFSNode(neighbour);
+	/*
+	 * Fundamental DFS loop to find all the paths between the given nodes
+	 * within the given block, which are visited as part of a solution, kept
+	 * in blockPaths if it is set, or only counted when counting. Returns false
+	 * if the visitor stopped the search
+	 */
+	private boolean blockSolutions(BlockCutTree tree, int block, int source, int target) {
+		for (int p = tree.blockBegin(block); p < tree.blockEnd(block); p++)
+			colours[tree.blockNodeAt(p)] = WHITE;
 
-			/* Expanding only white neighbours, to avoid loops */
-			if (DFSNeighbour.isWhite()) {
-				/*
-				 * If a solution is found, a new path is added to the list of
-				 * paths to be returned
-				 */
-				if (neighbour.equals(maze.getEnd())) {
-					path.add(neighbour);
-					paths.add((ArrayList<NodeType>) path.clone());
-					path.clear();
+		try {
+			push(source);
+
+			/* The search does not stop until it runs out of solutions */
+			while (depth > 0) {
+				int top = depth - 1;
+				int current = stack[top];
+
+				if (cursors[top] < graph.neighboursEnd(current)) {
+					int neighbour = graph.neighbourAt(cursors[top]++);
+					stats.edgesScanned++;
+
+					/* Expanding only white neighbours, to avoid loops */
+					if (colours[neighbour] == WHITE) {
+						/*
+						 * If a solution is found, it is visited, and the search
+						 * stops if the visitor says so
+						 */
+						if (neighbour == target) {
+							found[top] = true;
+							if (!visitSolution(neighbour))
+								return false;
+						} else {
+							push(neighbour);
+						}
+					}
 				} else {
-					/* Otherwise, this method calls itself on the neighbour */
-					paths.addAll(allSolutionsStep(neighbour));
-
 					/*
-					 * If the neighbour is black after returning from the call,
-					 * add 1 to the count of black neighbours
+					 * Check if this node is a dead end, if so it is coloured
+					 * black.
+					 *
+					 * The count of black neighbours has to match the numbers of
+					 * neighbour - 1, as the node we came from to reach this one
+					 * is of course unreachable as it was grey already
 					 */
-					if (DFSNeighbour.isBlack())
-						blackNeighbours++;
+					if (!found[top] && blackNeighbours[top] == graph.getDegree(current) - 1)
+						colours[current] = BLACK;
+					else
+						colours[current] = WHITE;
+
+					/* Backtracking, and reporting to the previous node */
+					depth--;
+					if (depth > 0) {
+						if (found[top])
+							found[top - 1] = true;
+						if (colours[current] == BLACK)
+							blackNeighbours[top - 1]++;
+					}
 				}
 			}
+			return true;
+		} finally {
+			depth = 0;
+			for (int p = tree.blockBegin(block); p < tree.blockEnd(block); p++)
+				colours[tree.blockNodeAt(p)] = BLACK;
 		}
+	}
 
-		/* Check if this node is a dead end, if so it is coloured black */
-		if (paths.isEmpty() && blackNeighbours == neighbours.size() - 1) {
-			currentDFSNode.colorBlack();
-		} else
-			currentDFSNode.colorWhite();
-
-		if (paths.size() != 0) {
-			for (ArrayList<NodeType> returningPath : paths)
-				returningPath.add(0, currentNode);
-		}
-
-		return paths;
+	/*
+	 * Returns the number of nodes of the given block
+	 */
+	private static int blockSize(BlockCutTree tree, int block) {
+		return tree.blockEnd(block) - tree.blockBegin(block);
 	}
 
 	/*
-	 * Method to get the corresponding DFSNode from a NodeType instance. If this is the
-	 * first time this node is encountered, this method will add a new DFSNode
-	 * instance to the HasMap, colouring it white
+	 * Moves to the next combination of the paths of the blocks other than the
+	 * largest one, returning false if there are no more
 	 */
-	private DFSNode getDFSNode(NodeType node) {
-		if (DFSNodes.containsKey(node.hashCode()))
-			return DFSNodes.get(node.hashCode());
-		else {
-			/* DFSNode instances are created with the white colour */
-			DFSNode newNode = new DFSNode(node);
-			DFSNodes.put(node.hashCode(), newNode);
-			return newNode;
+	private static boolean next(int[] choices, BlockPaths[] paths, int largest) {
+		for (int i = choices.length - 1; i >= 0; i--) {
+			if (i == largest)
+				continue;
+			if (++choices[i] < paths[i].count)
+				return true;
+			choices[i] = 0;
 		}
+		return false;
 	}
 
 	/*
-	 * Inner class to store the pointer to a node, among with its colour. It
-	 * also contains methods to check and change colour
+	 * Pushes a new frame for the given node on the explicit stack. Nodes are
+	 * grey-coloured as soon as they are encountered
 	 */
-	private class DFSNode {
-		public NodeType node;
-		public Color color;
-
-		public DFSNode(NodeType node) {
-			this.node = node;
-			this.color = Color.WHITE;
+	private void push(int node) {
+		colours[node] = GREY;
+		stack[depth] = node;
+		cursors[depth] = graph.neighboursBegin(node);
+		if (blackNeighbours != null) {
+			blackNeighbours[depth] = 0;
+			found[depth] = false;
 		}
+		depth++;
+		stats.nodesExpanded++;
+		stats.stack(depth);
+	}
 
-		public void colorWhite() {
-			this.color = Color.WHITE;
+	/*
+	 * Passes the path on the explicit stack, followed by the given last node,
+	 * to the visitor, returning whether the search has to go on. When counting,
+	 * the path is only counted
+	 */
+	private boolean visitSolution(int last) {
+		if (counting) {
+			if (++pathCount == Long.MAX_VALUE) {
+				countOverflow = countOverflow.add(BigInteger.valueOf(pathCount));
+				pathCount = 0;
+			}
+			return true;
 		}
-
-		public void colorGrey() {
-			this.color = Color.GREY;
+		stack[depth] = last;
+		if (blockPaths != null) {
+			blockPaths.add(stack, depth + 1);
+			return true;
 		}
+		return visitor.visit(new PathView(depth + 1));
+	}
 
-		public void colorBlack() {
-			this.color = Color.BLACK;
-		}
+	/*
+	 * Unmodifiable view of the first nodes of the explicit stack, between the
+	 * prefix and the suffix, converting the indices to nodes when they are
+	 * read
+	 */
+	private class PathView extends AbstractList<NodeType> {
+		private int stackSize;
 
-		public boolean isWhite() {
-			return this.color == Color.WHITE;
+		public PathView(int stackSize) {
+			this.stackSize = stackSize;
 		}
 
-		@SuppressWarnings("unused")
-		public boolean isGrey() {
-			return this.color == Color.GREY;
+		@Override
+		public NodeType get(int index) {
+			if (index < 0 || index >= size())
+				throw new IndexOutOfBoundsException();
+			if (index < prefixLength)
+				return graph.getNode(prefix[index]);
+			index -= prefixLength;
+			if (index < stackSize)
+				return graph.getNode(stack[index]);
+			return graph.getNode(suffix[index - stackSize]);
 		}
 
-		public boolean isBlack() {
-			return this.color == Color.BLACK;
+		@Override
+		public int size() {
+			return prefixLength + stackSize + suffixLength;
 		}
+	}
 
-		/*
-		 * The hashCode and equals methods calls the one of the enclosed node,
-		 * so that equals node can be recognised
-		 */
-		@Override
-		public int hashCode() {
-			return node.hashCode();
+	/*
+	 * Paths found within a block, one after the other in a growable array
+	 */
+	private static class BlockPaths {
+		private int[] nodes = new int[16];
+		private int size;
+
+		/* Position of the first node of every path, and the end of the last */
+		private int[] offsets = new int[16];
+		private int count;
+
+		/* Adds the path made of the first nodes of the given array */
+		public void add(int[] path, int length) {
+			while (size + length > nodes.length)
+				nodes = Arrays.copyOf(nodes, nodes.length * 2);
+			if (count + 2 > offsets.length)
+				offsets = Arrays.copyOf(offsets, offsets.length * 2);
+			System.arraycopy(path, 0, nodes, size, length);
+			size += length;
+			offsets[++count] = size;
 		}
 
 		/*
-		 * And the equals method just check for the inner node equality as well,
-		 * not for the colour equality
+		 * Copies the given path, without the given numbers of first and last
+		 * nodes, to the given array from the given position, returning the
+		 * position following the last one copied
 		 */
-		@Override
-		public boolean equals(Object obj) {
-
-			if (this == obj)
-				return true;
-			if (obj == null)
-				return false;
-			if (getClass() != obj.getClass())
-				return false;
-			@SuppressWarnings("unchecked")
-			DFSNode other = (DFSNode) obj;
-			if (!node.equals(other.node))
-				return false;
-			return true;
+		public int copy(int path, int[] to, int position, int skipFirst, int skipLast) {
+			int begin = offsets[path] + skipFirst;
+			int length = offsets[path + 1] - skipLast - begin;
+			System.arraycopy(nodes, begin, to, position, length);
+			return position + length;
 		}
 	}
-
-	private static enum Color {
-		WHITE, GREY, BLACK;
-	}
 }
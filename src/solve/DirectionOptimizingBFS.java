@@ -0,0 +1,374 @@
+package solve;
+
+import java.util.Arrays;
+
+import maze.IndexedGraph;
+
+/**
+ * This class implements a level-synchronous breadth first search over an
+ * indexed maze, which can be run one level at a time, as the two halves of a
+ * bidirectional search are. Each level is expanded in one of two directions:
+ * <ul>
+ * <li>top-down: every node of the frontier (the current level) visits its
+ * neighbours which were not visited yet. This examines every edge leaving the
+ * frontier;</li>
+ * <li>bottom-up: every node not visited yet looks for a neighbour in the
+ * frontier, and stops at the first one it finds. The frontier is held in a bit
+ * set for this purpose. When the frontier is a large part of the maze, most of
+ * the nodes left find a parent after examining a few edges, so many fewer
+ * edges are examined than top-down.</li>
+ * </ul>
+ * The search starts top-down, switches to bottom-up when the edges leaving the
+ * frontier are more than a fraction (1 / TOP_DOWN_FACTOR) of the edges of the
+ * nodes not visited yet and the frontier is growing, and switches back to
+ * top-down when the frontier shrinks below a fraction (1 / BOTTOM_UP_FACTOR)
+ * of the nodes of the maze. This is the direction-optimising BFS of Beamer,
+ * Asanovic and Patterson.<br>
+ * <br>
+ * The whole state is kept in primitive arrays indexed by node: the distance of
+ * every node from the source (-1 for nodes not visited yet), the node it was
+ * discovered from, a bit set of the visited nodes and a queue of the visited
+ * nodes, in which the nodes of the current level are the last ones. These
+ * arrays are allocated once, and a search can be restarted from another
+ * source with reset(int), which clears only the nodes visited before.<br>
+ * <br>
+ * When a step is given another search over the same maze, it stops as soon as
+ * it visits a node already visited by the other search, and returns it.
+ */
+public class DirectionOptimizingBFS {
+
+	/**
+	 * The search switches to bottom-up when the edges leaving the frontier are
+	 * more than the edges of the nodes not visited yet divided by this value
+	 */
+	public static final int TOP_DOWN_FACTOR = 14;
+
+	/**
+	 * The search switches back to top-down when the frontier is smaller than
+	 * the number of nodes of the maze divided by this value
+	 */
+	public static final int BOTTOM_UP_FACTOR = 24;
+
+	/* The maze to be searched */
+	private IndexedGraph<?> graph;
+
+	/* Distance of every node from the source, or -1 */
+	private int[] distance;
+
+	/* Node every visited node was discovered from */
+	private int[] parent;
+
+	/* Visited nodes, and nodes of the current level, as bit sets */
+	private long[] visited;
+	private long[] frontier;
+
+	/*
+	 * Queue of the visited nodes. The nodes of the current level are the ones
+	 * from head (included) to tail (excluded)
+	 */
+	private int[] queue;
+	private int head;
+	private int tail;
+
+	/* Distance of the nodes of the current level from the source */
+	private int level;
+
+	/* Size of the previous level */
+	private int previousLevelSize;
+
+	/*
+	 * Number of edges leaving the current level, and number of edges of the
+	 * nodes not visited yet, counted once for each of their nodes
+	 */
+	private long frontierEdges;
+	private long unexploredEdges;
+
+	/* Whether the current level is expanded bottom-up */
+	private boolean bottomUp;
+
+	/* Number of nodes expanded and of edges scanned since the last reset */
+	private long expandedNodes;
+	private long scannedEdges;
+
+	/**
+	 * Creates a search of the given maze starting from the given node, which
+	 * makes the first level
+	 *
+	 * @param graph
+	 *            the maze to be searched
+	 * @param source
+	 *            the index of the node to start from
+	 */
+	public DirectionOptimizingBFS(IndexedGraph<?> graph, int source) {
+		this(graph);
+		reset(source);
+	}
+
+	/**
+	 * Creates a search of the given maze, which has to be given a source with
+	 * reset(int) before it is run
+	 *
+	 * @param graph
+	 *            the maze to be searched
+	 */
+	public DirectionOptimizingBFS(IndexedGraph<?> graph) {
+		this.graph = graph;
+		int nodeCount = graph.getNodeCount();
+		distance = new int[nodeCount];
+		Arrays.fill(distance, -1);
+		parent = new int[nodeCount];
+		visited = new long[(nodeCount + 63) >>> 6];
+		frontier = new long[visited.length];
+		queue = new int[nodeCount];
+	}
+
+	/**
+	 * Discards the state of the previous search and starts a new one from the
+	 * given node, reusing the arrays of this search. Only the nodes visited by
+	 * the previous search are cleared, which are the ones in the queue, so
+	 * the cost of a reset is proportional to the previous search and not to
+	 * the size of the maze.
+	 *
+	 * @param source
+	 *            the index of the node to start from
+	 */
+	public void reset(int source) {
+		for (int i = 0; i < tail; i++) {
+			distance[queue[i]] = -1;
+			visited[queue[i] >>> 6] = 0;
+		}
+
+		head = 0;
+		tail = 0;
+		level = 0;
+		previousLevelSize = 0;
+		frontierEdges = 0;
+		bottomUp = false;
+		expandedNodes = 0;
+		scannedEdges = 0;
+		int nodeCount = graph.getNodeCount();
+		unexploredEdges = nodeCount == 0 ? 0 : graph.neighboursEnd(nodeCount - 1) - graph.neighboursBegin(0);
+		visit(source, source);
+	}
+
+	/**
+	 * Returns true if there are no more nodes to expand
+	 *
+	 * @return true if the current level is empty
+	 */
+	public boolean isEmpty() {
+		return head == tail;
+	}
+
+	/**
+	 * Returns the number of nodes in the current level
+	 *
+	 * @return the number of nodes in the current level
+	 */
+	public int levelSize() {
+		return tail - head;
+	}
+
+	/**
+	 * Returns the distance of the nodes of the current level from the source
+	 *
+	 * @return the distance of the current level
+	 */
+	public int getLevel() {
+		return level;
+	}
+
+	/**
+	 * Returns whether the next level will be expanded bottom-up, or top-down
+	 *
+	 * @return true if the search is bottom-up
+	 */
+	public boolean isBottomUp() {
+		return bottomUp;
+	}
+
+	/**
+	 * Returns the number of nodes whose neighbours were read since the last
+	 * reset: the nodes of the levels expanded top-down, and the nodes not
+	 * visited yet of the levels expanded bottom-up
+	 *
+	 * @return the number of nodes expanded
+	 */
+	public long getExpandedNodes() {
+		return expandedNodes;
+	}
+
+	/**
+	 * Returns the number of neighbours read since the last reset
+	 *
+	 * @return the number of edges scanned
+	 */
+	public long getScannedEdges() {
+		return scannedEdges;
+	}
+
+	/**
+	 * Returns whether the given node has been visited by this search
+	 *
+	 * @param node
+	 *            the index of the node
+	 *
+	 * @return true if the node has been visited
+	 */
+	public boolean isVisited(int node) {
+		return (visited[node >>> 6] & (1L << node)) != 0;
+	}
+
+	/**
+	 * Returns the distance of the given node from the source, or -1 if it has
+	 * not been visited
+	 *
+	 * @param node
+	 *            the index of the node
+	 *
+	 * @return the distance of the node, or -1
+	 */
+	public int getDistance(int node) {
+		return distance[node];
+	}
+
+	/**
+	 * Returns the node the given visited node was discovered from. The source
+	 * is its own parent
+	 *
+	 * @param node
+	 *            the index of a visited node
+	 *
+	 * @return the index of the parent of the node
+	 */
+	public int getParent(int node) {
+		return parent[node];
+	}
+
+	/**
+	 * Expands every node of the current level, so that the nodes visited make
+	 * the next level
+	 */
+	public void step() {
+		step(null);
+	}
+
+	/**
+	 * Expands the current level, stopping as soon as a node visited by the
+	 * given search is visited
+	 *
+	 * @param other
+	 *            another search of the same maze, or null
+	 *
+	 * @return the first node visited by both searches, or -1 if there is none
+	 */
+	public int step(DirectionOptimizingBFS other) {
+		/* Choosing the direction of this level */
+		int levelSize = levelSize();
+		if (!bottomUp)
+			bottomUp = frontierEdges > unexploredEdges / TOP_DOWN_FACTOR && levelSize > previousLevelSize;
+		else
+			bottomUp = levelSize >= graph.getNodeCount() / BOTTOM_UP_FACTOR || levelSize >= previousLevelSize;
+
+		int levelStart = head;
+		int levelEnd = tail;
+		frontierEdges = 0;
+		int connection = bottomUp ? bottomUpStep(other) : topDownStep(other);
+
+		head = levelEnd;
+		previousLevelSize = levelEnd - levelStart;
+		level++;
+		return connection;
+	}
+
+	/*
+	 * Every node of the current level visits its neighbours not visited yet
+	 */
+	private int topDownStep(DirectionOptimizingBFS other) {
+		int levelEnd = tail;
+
+		for (int i = head; i < levelEnd; i++) {
+			int current = queue[i];
+			int begin = graph.neighboursBegin(current);
+			expandedNodes++;
+
+			for (int p = begin; p < graph.neighboursEnd(current); p++) {
+				int neighbour = graph.neighbourAt(p);
+
+				if (distance[neighbour] < 0) {
+					visit(neighbour, current);
+					if (other != null && other.isVisited(neighbour)) {
+						scannedEdges += p - begin + 1;
+						return neighbour;
+					}
+				}
+			}
+			scannedEdges += graph.neighboursEnd(current) - begin;
+		}
+
+		return -1;
+	}
+
+	/*
+	 * Every node not visited yet looks for a neighbour in the current level
+	 */
+	private int bottomUpStep(DirectionOptimizingBFS other) {
+		int levelEnd = tail;
+		int nodeCount = graph.getNodeCount();
+		int connection = -1;
+
+		for (int i = head; i < levelEnd; i++)
+			frontier[queue[i] >>> 6] |= 1L << queue[i];
+
+		scan: for (int word = 0; word < visited.length; word++) {
+			/* Nodes of this word which have not been visited */
+			long unvisited = ~visited[word];
+			while (unvisited != 0) {
+				int node = (word << 6) + Long.numberOfTrailingZeros(unvisited);
+				unvisited &= unvisited - 1;
+				if (node >= nodeCount)
+					break scan;
+
+				int begin = graph.neighboursBegin(node);
+				int end = graph.neighboursEnd(node);
+				expandedNodes++;
+
+				for (int p = begin; p < end; p++) {
+					int neighbour = graph.neighbourAt(p);
+
+					if ((frontier[neighbour >>> 6] & (1L << neighbour)) != 0) {
+						visit(node, neighbour);
+						end = p + 1;
+						if (other != null && other.isVisited(node)) {
+							scannedEdges += end - begin;
+							connection = node;
+							break scan;
+						}
+						break;
+					}
+				}
+				scannedEdges += end - begin;
+			}
+		}
+
+		for (int i = head; i < levelEnd; i++)
+			frontier[queue[i] >>> 6] = 0;
+
+		return connection;
+	}
+
+	/*
+	 * Marks the given node as visited from the given parent, adding it to the
+	 * next level
+	 */
+	private void visit(int node, int from) {
+		distance[node] = from == node ? 0 : distance[from] + 1;
+		parent[node] = from;
+		visited[node >>> 6] |= 1L << node;
+		queue[tail++] = node;
+
+		int degree = graph.getDegree(node);
+		frontierEdges += degree;
+		unexploredEdges -= degree;
+	}
+}
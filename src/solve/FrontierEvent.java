@@ -0,0 +1,57 @@
+package solve;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*
+ * Flight recorder event of the expansion of one level of one of the two
+ * searches of BidirectionalSearch. There is an event for every level, so it
+ * is disabled unless a recording enables it
+ */
+@Name("maze.Frontier")
+@Label("Frontier Level")
+@Category({ "Maze Solver", "Solve" })
+@Description("The expansion of a level of a side of a bidirectional search")
+@Enabled(false)
+class FrontierEvent extends Event {
+
+	@Label("Algorithm")
+	String algorithm;
+
+	@Label("Nodes")
+	int nodes;
+
+	@Label("Side")
+	@Description("The side of the search, start or end")
+	String side;
+
+	@Label("Level")
+	int level;
+
+	@Label("Level Size")
+	int levelSize;
+
+	@Label("Bottom-Up")
+	boolean bottomUp;
+
+	/*
+	 * Ends the event of the expansion of the level of the given size by the
+	 * given breadth first search, the given side of the given search, and
+	 * commits it
+	 */
+	void commit(AbstractSearch<?> search, String side, DirectionOptimizingBFS bfs, int levelSize) {
+		if (!shouldCommit())
+			return;
+		algorithm = search.getClass().getSimpleName();
+		nodes = search.getGraph().getNodeCount();
+		this.side = side;
+		level = bfs.getLevel() - 1;
+		this.levelSize = levelSize;
+		bottomUp = bfs.isBottomUp();
+		commit();
+	}
+}
@@ -0,0 +1,70 @@
+package solve;
+
+import maze.Coordinates;
+
+/**
+ * This interface represents an estimate of the length of the shortest path
+ * between two nodes of an indexed maze, used by goal-directed searches such
+ * as AStar.<br>
+ * <br>
+ * A heuristic is admissible if it never overestimates the length of the
+ * shortest path, in which case the searches using it still return shortest
+ * paths. The heuristics based on Coordinates returned by the static methods of
+ * this interface are admissible as long as no edge is shorter than the
+ * distance between its nodes, as for a grid maze in which adjacent cells are
+ * one unit apart.
+ */
+@FunctionalInterface
+public interface Heuristic {
+
+	/**
+	 * Estimates the length of the shortest path between two nodes
+	 *
+	 * @param node
+	 *            the index of the node the path starts from
+	 * @param target
+	 *            the index of the node the path ends at
+	 *
+	 * @return an estimate of the length of the path
+	 */
+	double estimate(int node, int target);
+
+	/**
+	 * Returns the heuristic which always estimates 0, which makes A* behave as
+	 * Dijkstra's algorithm
+	 *
+	 * @return the zero heuristic
+	 */
+	static Heuristic zero() {
+		return (node, target) -> 0;
+	}
+
+	/**
+	 * Returns the heuristic estimating the Manhattan distance (the sum of the
+	 * horizontal and the vertical distances) between two nodes, which suits
+	 * mazes moving along the rows and columns of a grid
+	 *
+	 * @param coordinates
+	 *            the coordinates of the nodes
+	 *
+	 * @return the Manhattan distance heuristic
+	 */
+	static Heuristic manhattan(Coordinates coordinates) {
+		return (node, target) -> Math.abs(coordinates.getX(node) - coordinates.getX(target))
+				+ Math.abs(coordinates.getY(node) - coordinates.getY(target));
+	}
+
+	/**
+	 * Returns the heuristic estimating the Euclidean (straight line) distance
+	 * between two nodes
+	 *
+	 * @param coordinates
+	 *            the coordinates of the nodes
+	 *
+	 * @return the Euclidean distance heuristic
+	 */
+	static Heuristic euclidean(Coordinates coordinates) {
+		return (node, target) -> Math.hypot(coordinates.getX(node) - coordinates.getX(target),
+				coordinates.getY(node) - coordinates.getY(target));
+	}
+}
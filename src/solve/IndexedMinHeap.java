@@ -0,0 +1,145 @@
+package solve;
+
+import java.util.Arrays;
+
+/*
+ * Binary min-heap of node indices with a key each, kept in primitive arrays.
+ * The position of every node in the heap is recorded, so that the key of a
+ * node already in the heap can be decreased in logarithmic time instead of
+ * inserting the node again.
+ */
+class IndexedMinHeap {
+	/* Nodes in the heap, in heap order */
+	private int[] heap;
+	private int size;
+
+	/* Position of every node in the heap, or -1 if it is not in the heap */
+	private int[] positions;
+
+	/* Key of every node in the heap */
+	private double[] keys;
+
+	/*
+	 * Creates an empty heap for nodes of index from 0 to nodeCount - 1
+	 */
+	public IndexedMinHeap(int nodeCount) {
+		heap = new int[nodeCount];
+		positions = new int[nodeCount];
+		Arrays.fill(positions, -1);
+		keys = new double[nodeCount];
+	}
+
+	/* Returns true if there are no nodes in the heap */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/* Returns the number of nodes in the heap */
+	public int size() {
+		return size;
+	}
+
+	/* Returns true if the given node is in the heap */
+	public boolean contains(int node) {
+		return positions[node] >= 0;
+	}
+
+	/* Returns the smallest key in the heap, which must not be empty */
+	public double peekKey() {
+		return keys[heap[0]];
+	}
+
+	/*
+	 * Adds the given node with the given key, or decreases its key if it is
+	 * already in the heap with a larger one. Returns true if the heap changed
+	 */
+	public boolean push(int node, double key) {
+		int position = positions[node];
+		if (position < 0) {
+			position = size++;
+			heap[position] = node;
+			positions[node] = position;
+		} else if (key >= keys[node]) {
+			return false;
+		}
+
+		keys[node] = key;
+		siftUp(position);
+		return true;
+	}
+
+	/*
+	 * Adds the given node with the given key, or changes its key, larger or
+	 * smaller, if it is already in the heap
+	 */
+	public void update(int node, double key) {
+		if (positions[node] < 0 || key < keys[node]) {
+			push(node, key);
+		} else {
+			keys[node] = key;
+			siftDown(positions[node]);
+		}
+	}
+
+	/* Removes and returns the node with the smallest key */
+	public int pop() {
+		int node = heap[0];
+		positions[node] = -1;
+		size--;
+
+		if (size > 0) {
+			heap[0] = heap[size];
+			positions[heap[0]] = 0;
+			siftDown(0);
+		}
+
+		return node;
+	}
+
+	/* Removes every node from the heap, in time linear in its size */
+	public void clear() {
+		for (int i = 0; i < size; i++)
+			positions[heap[i]] = -1;
+		size = 0;
+	}
+
+	/* Moves the node at the given position up until its parent is smaller */
+	private void siftUp(int position) {
+		int node = heap[position];
+		double key = keys[node];
+
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			if (keys[heap[parent]] <= key)
+				break;
+			heap[position] = heap[parent];
+			positions[heap[position]] = position;
+			position = parent;
+		}
+
+		heap[position] = node;
+		positions[node] = position;
+	}
+
+	/* Moves the node at the given position down until its children are larger */
+	private void siftDown(int position) {
+		int node = heap[position];
+		double key = keys[node];
+
+		while (true) {
+			int child = 2 * position + 1;
+			if (child >= size)
+				break;
+			if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]])
+				child++;
+			if (keys[heap[child]] >= key)
+				break;
+			heap[position] = heap[child];
+			positions[heap[position]] = position;
+			position = child;
+		}
+
+		heap[position] = node;
+		positions[node] = position;
+	}
+}
@@ -0,0 +1,423 @@
+package solve;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+
+import maze.IndexedGraph;
+import maze.Maze;
+
+/**
+ * This class implements Yen's algorithm to find the K shortest simple paths of
+ * a maze, that is the K paths without loops whose edges have the smallest
+ * total weights, in order of length.<br>
+ * <br>
+ * The first path is the shortest path of the maze. Every following path
+ * leaves one of the paths already found at some node, the spur node, and then
+ * follows the shortest path to the end which does not go through the nodes
+ * before the spur node (so that it has no loops) and which does not leave the
+ * spur node through an edge already taken by a path found with the same nodes
+ * before it (so that it is a new path). For every node of the last path found
+ * such a candidate path is searched, and the shortest candidate not yet taken
+ * is the next path.<br>
+ * <br>
+ * Only the nodes of the last path from the one where it left the path it was
+ * found from are used as spur nodes (Lawler's refinement), as the candidates
+ * through the nodes before it were already searched from that path. The
+ * number of searches is then the total length of the paths found, at most,
+ * and in practice the K paths are found in a time close to K times the time
+ * of a single search of the maze.<br>
+ * <br>
+ * The searches from the spur nodes are breadth first searches, or Dijkstra
+ * searches if the edges are weighted, which stop as soon as the end is
+ * reached. They share the same arrays indexed by node, the node sets of
+ * NodeStamps and the binary heap of node indices, which are allocated once and
+ * cleared only where they were used, so that a search from a spur node close
+ * to the end only costs as much as the part of the maze it explores.<br>
+ * <br>
+ * Note that trying to solve a maze after passing a solve mode other than
+ * AbstractSearch.SolveMode.K_SHORTEST_SOLUTIONS to the constructor will result
+ * in an UnsupportedOperationException
+ */
+public class KShortestPaths<NodeType> extends AbstractSearch<NodeType> {
+
+	/* Maximum number of paths to be found */
+	private int k;
+
+	/*
+	 * Distance of every node from the spur node, and node every node was
+	 * reached from, valid only for the nodes in the reached set
+	 */
+	private long[] distance;
+	private int[] parent;
+	private NodeStamps reached;
+
+	/* Nodes before the spur node, and neighbours it can not be left to */
+	private NodeStamps blockedNodes;
+	private NodeStamps blockedNeighbours;
+
+	/* Queue of the breadth first search, or open set of the Dijkstra search */
+	private int[] queue;
+	private IndexedMinHeap open;
+
+	/**
+	 * This constructor will create an instance that will search the given maze
+	 * for its k shortest simple solutions.
+	 *
+	 * @param maze
+	 *            the maze to be searched for solutions
+	 * @param solveMode
+	 *            This has to be AbstractSearch.SolveMode.K_SHORTEST_SOLUTIONS,
+	 *            otherwise the solve method will throw an
+	 *            UnsupportedOperationException
+	 * @param k
+	 *            the maximum number of solutions to be found
+	 *
+	 * @throws IllegalArgumentException
+	 *             if k is not positive
+	 */
+	public KShortestPaths(Maze<NodeType> maze, SolveMode solveMode, int k) {
+		super(maze, solveMode);
+		setK(k);
+	}
+
+	/**
+	 * This constructor will create an instance that will search the given
+	 * maze, which is already indexed, such as a maze.IntMaze, for its k
+	 * shortest simple solutions.
+	 *
+	 * @param graph
+	 *            the maze to be searched for solutions
+	 * @param solveMode
+	 *            This has to be AbstractSearch.SolveMode.K_SHORTEST_SOLUTIONS,
+	 *            otherwise the solve method will throw an
+	 *            UnsupportedOperationException
+	 * @param k
+	 *            the maximum number of solutions to be found
+	 *
+	 * @throws IllegalArgumentException
+	 *             if k is not positive
+	 */
+	public KShortestPaths(IndexedGraph<NodeType> graph, SolveMode solveMode, int k) {
+		super(graph, solveMode);
+		setK(k);
+	}
+
+	/*
+	 * Checks and sets the maximum number of paths to be found
+	 */
+	private void setK(int k) {
+		if (k < 1)
+			throw new IllegalArgumentException("The number of paths must be positive: " + k);
+		this.k = k;
+	}
+
+	/**
+	 * Search the maze for its k shortest simple solutions.
+	 *
+	 * @return the k shortest solutions of the maze, in order of length, or
+	 *         fewer if the maze does not have k solutions
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if AbstractSearch.SolveMode.K_SHORTEST_SOLUTIONS was not
+	 *             passed when instantiating this class
+	 */
+	@Override
+	public ArrayList<ArrayList<NodeType>> solve() {
+		ArrayList<ArrayList<NodeType>> paths = new ArrayList<>();
+
+		solve(solution -> paths.add(new ArrayList<>(solution)));
+
+		return paths;
+	}
+
+	/**
+	 * Find the k shortest simple solutions of the maze, passing each of them
+	 * to the given visitor as soon as it is found, in order of length. No
+	 * further path is searched once the visitor returns false.
+	 *
+	 * @param visitor
+	 *            the visitor receiving the solutions
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if AbstractSearch.SolveMode.K_SHORTEST_SOLUTIONS was not
+	 *             passed when instantiating this class
+	 */
+	@Override
+	public void solve(SolutionVisitor<NodeType> visitor) {
+		if (solveMode != SolveMode.K_SHORTEST_SOLUTIONS)
+			throw new UnsupportedOperationException();
+
+		SolveEvent event = new SolveEvent();
+		event.begin();
+
+		long[] solutions = { 0 };
+		findShortestPaths(graph.getStart(), graph.getEnd(), nodes -> {
+			ArrayList<NodeType> path = new ArrayList<>(nodes.length);
+			for (int node : nodes)
+				path.add(graph.getNode(node));
+			solutions[0]++;
+			return visitor.visit(path);
+		});
+		event.commit(this, solutions[0]);
+	}
+
+	/**
+	 * Returns the k shortest simple paths between the two nodes of the given
+	 * indices, in order of length. The state of the searches is reused by
+	 * every call.
+	 *
+	 * @param source
+	 *            the index of the first node
+	 * @param target
+	 *            the index of the second node
+	 *
+	 * @return the indices of the nodes of every path, from the source to the
+	 *         target, which are fewer than k if there are not k paths
+	 */
+	public ArrayList<int[]> findShortestPaths(int source, int target) {
+		ArrayList<int[]> paths = new ArrayList<>();
+
+		findShortestPaths(source, target, paths::add);
+
+		return paths;
+	}
+
+	/*
+	 * Finds the k shortest simple paths between the given nodes with Yen's
+	 * algorithm, passing each of them to the given visitor as soon as it is
+	 * found, until it returns false
+	 */
+	private void findShortestPaths(int source, int target, PathVisitor visitor) {
+		stats.reset();
+		stats.startPhase("first path");
+		try {
+			yen(source, target, visitor);
+		} finally {
+			stats.endPhase();
+		}
+	}
+
+	/*
+	 * Yen's algorithm, as described by findShortestPaths
+	 */
+	private void yen(int source, int target, PathVisitor visitor) {
+		if (distance == null) {
+			int nodeCount = graph.getNodeCount();
+			distance = new long[nodeCount];
+			parent = new int[nodeCount];
+			reached = new NodeStamps(nodeCount);
+			blockedNodes = new NodeStamps(nodeCount);
+			blockedNeighbours = new NodeStamps(nodeCount);
+			if (graph.isWeighted())
+				open = new IndexedMinHeap(nodeCount);
+			else
+				queue = new int[nodeCount];
+		}
+
+		blockedNodes.clear();
+		blockedNeighbours.clear();
+		Path first = spurPath(null, 0, source, target);
+		if (first == null)
+			return;
+
+		stats.startPhase("spur paths");
+		ArrayList<Path> found = new ArrayList<>();
+		PriorityQueue<Path> candidates = new PriorityQueue<>();
+		HashSet<Path> seen = new HashSet<>();
+		candidates.add(first);
+		seen.add(first);
+
+		while (!candidates.isEmpty()) {
+			Path path = candidates.poll();
+			found.add(path);
+			if (!visitor.visit(path.nodes.clone()) || found.size() == k)
+				return;
+
+			/* Every node from the deviation, but the target, is a spur node */
+			for (int i = path.deviation; i < path.nodes.length - 1; i++) {
+				int spur = path.nodes[i];
+
+				/* The nodes before the spur node can not be on the spur path */
+				blockedNodes.clear();
+				for (int j = 0; j < i; j++)
+					blockedNodes.add(path.nodes[j]);
+
+				/* The edges taken by the paths found with the same root */
+				blockedNeighbours.clear();
+				for (Path other : found) {
+					if (other.sharesRoot(path, i))
+						blockedNeighbours.add(other.nodes[i + 1]);
+				}
+
+				Path candidate = spurPath(path, i, spur, target);
+				if (candidate != null && seen.add(candidate))
+					candidates.add(candidate);
+			}
+		}
+	}
+
+	/*
+	 * Searches the shortest path from the given spur node to the target which
+	 * avoids the blocked nodes and neighbours, and returns the path made of
+	 * the nodes of the given path before the spur node, the i-th, followed by
+	 * it, or null if there is none
+	 */
+	private Path spurPath(Path root, int i, int spur, int target) {
+		reached.clear();
+		reached.add(spur);
+		distance[spur] = 0;
+		parent[spur] = spur;
+
+		boolean found = graph.isWeighted() ? dijkstra(spur, target) : breadthFirst(spur, target);
+		if (!found)
+			return null;
+
+		int spurNodes = 1;
+		for (int node = target; node != spur; node = parent[node])
+			spurNodes++;
+
+		int[] nodes = new int[i + spurNodes];
+		long[] lengths = new long[nodes.length];
+		if (root != null) {
+			System.arraycopy(root.nodes, 0, nodes, 0, i);
+			System.arraycopy(root.lengths, 0, lengths, 0, i);
+		}
+		long rootLength = root == null ? 0 : root.lengths[i];
+		for (int p = nodes.length - 1, node = target; p >= i; p--, node = parent[node]) {
+			nodes[p] = node;
+			lengths[p] = rootLength + distance[node];
+		}
+		return new Path(nodes, lengths, i);
+	}
+
+	/*
+	 * Breadth first search from the spur node, until the target is reached.
+	 * Returns true if it is
+	 */
+	private boolean breadthFirst(int spur, int target) {
+		if (spur == target)
+			return true;
+
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = spur;
+
+		while (head < tail) {
+			stats.frontier(tail - head);
+			int current = queue[head++];
+			int begin = graph.neighboursBegin(current);
+			stats.nodesExpanded++;
+			stats.edgesScanned += graph.neighboursEnd(current) - begin;
+
+			for (int p = begin; p < graph.neighboursEnd(current); p++) {
+				int neighbour = graph.neighbourAt(p);
+				if (!canTake(current, spur, neighbour) || reached.contains(neighbour))
+					continue;
+
+				reached.add(neighbour);
+				distance[neighbour] = distance[current] + 1;
+				parent[neighbour] = current;
+				if (neighbour == target) {
+					/* The neighbours after the target are not scanned */
+					stats.edgesScanned -= graph.neighboursEnd(current) - p - 1;
+					return true;
+				}
+				queue[tail++] = neighbour;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Dijkstra search from the spur node, until the target is settled.
+	 * Returns true if it is
+	 */
+	private boolean dijkstra(int spur, int target) {
+		open.clear();
+		open.push(spur, 0);
+
+		while (!open.isEmpty()) {
+			stats.frontier(open.size());
+			int current = open.pop();
+			if (current == target)
+				return true;
+			stats.nodesExpanded++;
+			stats.edgesScanned += graph.getDegree(current);
+
+			for (int p = graph.neighboursBegin(current); p < graph.neighboursEnd(current); p++) {
+				int neighbour = graph.neighbourAt(p);
+				if (!canTake(current, spur, neighbour))
+					continue;
+
+				long neighbourDistance = distance[current] + graph.weightAt(p);
+				if (!reached.contains(neighbour) || neighbourDistance < distance[neighbour]) {
+					reached.add(neighbour);
+					distance[neighbour] = neighbourDistance;
+					parent[neighbour] = current;
+					open.push(neighbour, neighbourDistance);
+				}
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Returns true if the spur path can go from the given node to the given
+	 * neighbour
+	 */
+	private boolean canTake(int current, int spur, int neighbour) {
+		if (blockedNodes.contains(neighbour))
+			return false;
+		return current != spur || !blockedNeighbours.contains(neighbour);
+	}
+
+	/*
+	 * Interface to receive the paths found, as arrays of node indices
+	 */
+	private static interface PathVisitor {
+		public boolean visit(int[] path);
+	}
+
+	/*
+	 * A path found or candidate, with the distance of every node from the
+	 * source along the path, and the position of the node where it leaves the
+	 * path it was found from. Paths are ordered by length, and equal if they
+	 * have the same nodes
+	 */
+	private static class Path implements Comparable<Path> {
+		private int[] nodes;
+		private long[] lengths;
+		private int deviation;
+
+		public Path(int[] nodes, long[] lengths, int deviation) {
+			this.nodes = nodes;
+			this.lengths = lengths;
+			this.deviation = deviation;
+		}
+
+		/* Returns true if the first i + 1 nodes of the two paths are the same */
+		public boolean sharesRoot(Path other, int i) {
+			if (nodes.length <= i + 1)
+				return false;
+			return Arrays.equals(nodes, 0, i + 1, other.nodes, 0, i + 1);
+		}
+
+		@Override
+		public int compareTo(Path other) {
+			int byLength = Long.compare(lengths[lengths.length - 1], other.lengths[other.lengths.length - 1]);
+			return byLength != 0 ? byLength : Integer.compare(nodes.length, other.nodes.length);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Path && Arrays.equals(nodes, ((Path) other).nodes);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(nodes);
+		}
+	}
+}
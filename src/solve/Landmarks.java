@@ -0,0 +1,408 @@
+package solve;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import maze.IndexedGraph;
+import maze.PreprocessEvent;
+
+/**
+ * This class represents a landmark index of a maze: the distances from a few
+ * nodes, the landmarks, to every node of the maze, which give bounds on the
+ * distance between any two nodes without running a search.<br>
+ * <br>
+ * By the triangle inequality, for every landmark L and nodes u and v, the
+ * distance between u and v is at least |d(L, u) - d(L, v)| and at most d(L, u)
+ * + d(L, v). The largest of the lower bounds over the landmarks is an
+ * admissible and consistent heuristic, so this class implements Heuristic and
+ * makes AStar goal-directed on any maze, even without coordinates (the ALT
+ * algorithm: A*, landmarks and triangle inequality).<br>
+ * <br>
+ * The bounds are tight for the nodes lying behind a landmark, as seen from the
+ * other node, so the landmarks are chosen far apart, near the border of the
+ * maze, by farthest-first selection: the first landmark is the node farthest
+ * from the start of the maze, and every next one is the node farthest from the
+ * landmarks chosen so far. The distances from the landmarks chosen so far are
+ * kept as a single array, and every new landmark only updates the nodes it is
+ * closer to, with a search which stops at the others. Then the distances from
+ * every landmark are computed by a full search each, run in parallel on the
+ * threads of a ForkJoinPool: a breadth first search (DirectionOptimizingBFS)
+ * if the edges of the maze all have weight 1, or Dijkstra's algorithm
+ * otherwise.<br>
+ * <br>
+ * The distances are held in a single int array, in which the distances of a
+ * node from all the landmarks are next to each other, so that a bound between
+ * two nodes reads two short runs of memory. The landmarks are chosen in the
+ * part of the maze connected to its start: the bounds involving nodes which
+ * no landmark reaches are not known.
+ */
+public class Landmarks implements Heuristic {
+
+	/* Number of nodes of the maze */
+	private int nodeCount;
+
+	/* The landmarks */
+	private int[] landmarks;
+
+	/*
+	 * Distance of every node from every landmark, or -1 if the landmark does
+	 * not reach the node: the distance of node v from the i-th landmark is at
+	 * position v * landmarks.length + i
+	 */
+	private int[] distances;
+
+	/*
+	 * Private constructor, the landmark indices are created by build
+	 */
+	private Landmarks(int nodeCount, int[] landmarks, int[] distances) {
+		this.nodeCount = nodeCount;
+		this.landmarks = landmarks;
+		this.distances = distances;
+	}
+
+	/**
+	 * Builds the landmark index of the given maze with the given number of
+	 * landmarks, using the common ForkJoinPool
+	 *
+	 * @param graph
+	 *            the maze
+	 * @param count
+	 *            the number of landmarks, which can be fewer if the part of
+	 *            the maze connected to its start has fewer nodes
+	 *
+	 * @return the landmark index of the maze
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the count is not positive, or the distances do not fit in
+	 *             an array
+	 * @throws ArithmeticException
+	 *             if a distance does not fit in an int
+	 */
+	public static Landmarks build(IndexedGraph<?> graph, int count) {
+		return build(graph, count, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Builds the landmark index of the given maze with the given number of
+	 * landmarks, computing the distances from the landmarks in the given pool
+	 *
+	 * @param graph
+	 *            the maze
+	 * @param count
+	 *            the number of landmarks, which can be fewer if the part of
+	 *            the maze connected to its start has fewer nodes
+	 * @param pool
+	 *            the pool computing the distances from the landmarks
+	 *
+	 * @return the landmark index of the maze
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the count is not positive, or the distances do not fit in
+	 *             an array
+	 * @throws ArithmeticException
+	 *             if a distance does not fit in an int
+	 */
+	public static Landmarks build(IndexedGraph<?> graph, int count, ForkJoinPool pool) {
+		if (count < 1)
+			throw new IllegalArgumentException("The number of landmarks has to be positive");
+		int nodeCount = graph.getNodeCount();
+		if ((long) nodeCount * count > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Too many landmarks for the maze");
+
+		PreprocessEvent event = new PreprocessEvent();
+		event.begin();
+		int[] landmarks = select(graph, count);
+
+		/* One task for each landmark, each writing its own array */
+		int[][] rows = new int[landmarks.length][];
+		pool.invoke(new Search(graph, landmarks, rows, 0, landmarks.length));
+
+		/* The arrays are interleaved, so that the distances of a node are close */
+		int[] distances = new int[nodeCount * landmarks.length];
+		for (int i = 0; i < landmarks.length; i++) {
+			int[] row = rows[i];
+			rows[i] = null;
+			for (int node = 0, position = i; node < nodeCount; node++, position += landmarks.length)
+				distances[position] = row[node];
+		}
+
+		event.commit("Landmarks", graph, "landmarks", landmarks.length);
+		return new Landmarks(nodeCount, landmarks, distances);
+	}
+
+	/**
+	 * Returns the number of nodes of the maze the index was built for
+	 *
+	 * @return the number of nodes
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Returns the number of landmarks
+	 *
+	 * @return the number of landmarks
+	 */
+	public int getCount() {
+		return landmarks.length;
+	}
+
+	/**
+	 * Returns the index of the landmark of the given position
+	 *
+	 * @param i
+	 *            the position of the landmark, from 0 to getCount() - 1
+	 *
+	 * @return the index of the landmark node
+	 */
+	public int getLandmark(int i) {
+		return landmarks[i];
+	}
+
+	/**
+	 * Returns the distance of the given node from the landmark of the given
+	 * position
+	 *
+	 * @param i
+	 *            the position of the landmark, from 0 to getCount() - 1
+	 * @param node
+	 *            the index of the node
+	 *
+	 * @return the distance of the node from the landmark, or -1 if the
+	 *         landmark does not reach the node
+	 */
+	public int getDistance(int i, int node) {
+		return distances[node * landmarks.length + i];
+	}
+
+	/**
+	 * Returns a lower bound of the distance between the two given nodes: the
+	 * largest difference of their distances from a landmark
+	 *
+	 * @param node
+	 *            the index of the first node
+	 * @param target
+	 *            the index of the second node
+	 *
+	 * @return a lower bound of the distance, 0 if no landmark reaches the
+	 *         nodes, or Long.MAX_VALUE if a landmark reaches only one of them,
+	 *         in which case there is no path between them
+	 */
+	public long lowerBound(int node, int target) {
+		int count = landmarks.length;
+		int nodeBase = node * count;
+		int targetBase = target * count;
+		int bound = 0;
+
+		for (int i = 0; i < count; i++) {
+			int nodeDistance = distances[nodeBase + i];
+			int targetDistance = distances[targetBase + i];
+			if ((nodeDistance < 0) != (targetDistance < 0))
+				return Long.MAX_VALUE;
+			bound = Math.max(bound, Math.abs(nodeDistance - targetDistance));
+		}
+
+		return bound;
+	}
+
+	/**
+	 * Returns an upper bound of the distance between the two given nodes: the
+	 * length of the shortest path through a landmark
+	 *
+	 * @param node
+	 *            the index of the first node
+	 * @param target
+	 *            the index of the second node
+	 *
+	 * @return an upper bound of the distance, or Long.MAX_VALUE if no landmark
+	 *         reaches both nodes
+	 */
+	public long upperBound(int node, int target) {
+		if (node == target)
+			return 0;
+
+		int count = landmarks.length;
+		int nodeBase = node * count;
+		int targetBase = target * count;
+		long bound = Long.MAX_VALUE;
+
+		for (int i = 0; i < count; i++) {
+			int nodeDistance = distances[nodeBase + i];
+			int targetDistance = distances[targetBase + i];
+			if (nodeDistance >= 0 && targetDistance >= 0)
+				bound = Math.min(bound, (long) nodeDistance + targetDistance);
+		}
+
+		return bound;
+	}
+
+	/**
+	 * Estimates the distance between the two given nodes with its lower bound,
+	 * which is an admissible and consistent heuristic
+	 *
+	 * @param node
+	 *            the index of the node the path starts from
+	 * @param target
+	 *            the index of the node the path ends at
+	 *
+	 * @return the lower bound of the distance, or positive infinity if there
+	 *         is no path
+	 */
+	@Override
+	public double estimate(int node, int target) {
+		long bound = lowerBound(node, target);
+		return bound == Long.MAX_VALUE ? Double.POSITIVE_INFINITY : bound;
+	}
+
+	/*
+	 * Chooses the landmarks by farthest-first selection, from the start of the
+	 * given maze
+	 */
+	private static int[] select(IndexedGraph<?> graph, int count) {
+		int nodeCount = graph.getNodeCount();
+		int[] landmarks = new int[count];
+		int selected = 0;
+
+		/* Distance of every node from the nearest landmark chosen so far */
+		int[] nearest = new int[nodeCount];
+		IndexedMinHeap open = new IndexedMinHeap(nodeCount);
+
+		/* The first landmark is the node farthest from the start */
+		Arrays.fill(nearest, Integer.MAX_VALUE);
+		approach(graph, graph.getStart(), nearest, open);
+		int candidate = farthest(nearest);
+		if (candidate < 0)
+			candidate = graph.getStart();
+		Arrays.fill(nearest, Integer.MAX_VALUE);
+
+		while (selected < count && candidate >= 0) {
+			landmarks[selected++] = candidate;
+			approach(graph, candidate, nearest, open);
+			candidate = farthest(nearest);
+		}
+
+		return Arrays.copyOf(landmarks, selected);
+	}
+
+	/*
+	 * Lowers the distances of the given array to the distances from the given
+	 * node, where they are larger. The search only goes on through the nodes
+	 * whose distance is lowered: the nodes closer to another landmark are
+	 * reached from it by shortest paths which are not longer, so no shorter
+	 * path from the given node goes through them.
+	 */
+	private static void approach(IndexedGraph<?> graph, int source, int[] nearest, IndexedMinHeap open) {
+		nearest[source] = 0;
+		open.push(source, 0);
+
+		while (!open.isEmpty()) {
+			int current = open.pop();
+
+			for (int p = graph.neighboursBegin(current); p < graph.neighboursEnd(current); p++) {
+				int neighbour = graph.neighbourAt(p);
+				int neighbourDistance = Math.addExact(nearest[current], graph.weightAt(p));
+
+				if (neighbourDistance < nearest[neighbour]) {
+					nearest[neighbour] = neighbourDistance;
+					open.push(neighbour, neighbourDistance);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Returns the reached node with the largest distance in the given array, or
+	 * -1 if every reached node has distance 0, being a landmark already
+	 */
+	private static int farthest(int[] nearest) {
+		int farthest = -1;
+		int farthestDistance = 0;
+		for (int node = 0; node < nearest.length; node++) {
+			if (nearest[node] != Integer.MAX_VALUE && nearest[node] > farthestDistance) {
+				farthest = node;
+				farthestDistance = nearest[node];
+			}
+		}
+		return farthest;
+	}
+
+	/*
+	 * Returns the distance of every node of the given maze from the given
+	 * node, or -1 for the nodes it does not reach
+	 */
+	private static int[] distancesFrom(IndexedGraph<?> graph, int source) {
+		int nodeCount = graph.getNodeCount();
+		int[] distance = new int[nodeCount];
+
+		/* Breadth first search, if the edges all have weight 1 */
+		if (!graph.isWeighted()) {
+			DirectionOptimizingBFS bfs = new DirectionOptimizingBFS(graph, source);
+			while (!bfs.isEmpty())
+				bfs.step();
+			for (int node = 0; node < nodeCount; node++)
+				distance[node] = bfs.getDistance(node);
+			return distance;
+		}
+
+		/* Dijkstra's algorithm otherwise */
+		Arrays.fill(distance, -1);
+		IndexedMinHeap open = new IndexedMinHeap(nodeCount);
+		distance[source] = 0;
+		open.push(source, 0);
+
+		while (!open.isEmpty()) {
+			int current = open.pop();
+
+			for (int p = graph.neighboursBegin(current); p < graph.neighboursEnd(current); p++) {
+				int neighbour = graph.neighbourAt(p);
+				int neighbourDistance = Math.addExact(distance[current], graph.weightAt(p));
+
+				if (distance[neighbour] < 0 || neighbourDistance < distance[neighbour]) {
+					distance[neighbour] = neighbourDistance;
+					open.push(neighbour, neighbourDistance);
+				}
+			}
+		}
+
+		return distance;
+	}
+
+	/*
+	 * Task computing the distances from a range of the landmarks, which is
+	 * split in halves until it holds a single landmark
+	 */
+	private static class Search extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private IndexedGraph<?> graph;
+		private int[] landmarks;
+		private int[][] rows;
+
+		/* Range of the landmarks searched by this task */
+		private int begin;
+		private int end;
+
+		public Search(IndexedGraph<?> graph, int[] landmarks, int[][] rows, int begin, int end) {
+			this.graph = graph;
+			this.landmarks = landmarks;
+			this.rows = rows;
+			this.begin = begin;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - begin > 1) {
+				int middle = (begin + end) >>> 1;
+				invokeAll(new Search(graph, landmarks, rows, begin, middle),
+						new Search(graph, landmarks, rows, middle, end));
+				return;
+			}
+
+			for (int i = begin; i < end; i++)
+				rows[i] = distancesFrom(graph, landmarks[i]);
+		}
+	}
+}
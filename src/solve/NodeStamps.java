@@ -0,0 +1,49 @@
+package solve;
+
+import java.util.Arrays;
+
+/*
+ * Set of node indices which can be emptied in constant time, so that the
+ * state of a search kept in arrays indexed by node can be reused by the next
+ * search without clearing the arrays.
+ *
+ * Every node has a stamp, and the nodes in the set are the ones whose stamp is
+ * the current generation. Emptying the set starts a new generation; only when
+ * the generations run out, after about four billion of them, are the stamps
+ * actually cleared. A search then considers the values of its other arrays
+ * only for the nodes in the set, and overwrites them when it adds a node.
+ */
+class NodeStamps {
+	/* Stamp of every node */
+	private int[] stamps;
+
+	/* Current generation, never 0, which is the stamp of no generation */
+	private int generation;
+
+	/*
+	 * Creates an empty set for nodes of index from 0 to nodeCount - 1
+	 */
+	public NodeStamps(int nodeCount) {
+		stamps = new int[nodeCount];
+		generation = 1;
+	}
+
+	/* Returns true if the given node is in the set */
+	public boolean contains(int node) {
+		return stamps[node] == generation;
+	}
+
+	/* Adds the given node to the set */
+	public void add(int node) {
+		stamps[node] = generation;
+	}
+
+	/* Removes every node from the set */
+	public void clear() {
+		generation++;
+		if (generation == 0) {
+			Arrays.fill(stamps, 0);
+			generation = 1;
+		}
+	}
+}
@@ -0,0 +1,280 @@
+package solve;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import maze.IndexedGraph;
+import maze.Maze;
+
+/**
+ * This class finds a shortest path of a maze with a breadth first search from
+ * the start, whose levels are expanded by all the threads of a
+ * ForkJoinPool.<br>
+ * <br>
+ * The search is level-synchronous: the nodes of the current level (the
+ * frontier) are split in ranges, and each range is expanded by a task of the
+ * pool, which visits the neighbours not visited yet. The next level starts
+ * when every task is done. Small levels, as the ones along the corridors of a
+ * maze, are expanded by the calling thread only, as splitting them would cost
+ * more than it saves.<br>
+ * <br>
+ * A node is visited by the task which sets its parent first: the parents of
+ * the nodes are kept in an AtomicIntegerArray, -1 for nodes not visited yet,
+ * and a task claims a node with a compare-and-set, so that no lock is ever
+ * taken. Each task writes the nodes it claims to its own buffer, and the
+ * buffers are joined, in the order of the ranges, into the next level.<br>
+ * <br>
+ * The search stops after the level in which the end of the maze is visited,
+ * and the path is rebuilt by following the parents. Its length is the one of
+ * the path returned by BidirectionalSearch, although the path can be another
+ * one of the same length: as for BidirectionalSearch, the path has the fewest
+ * edges, and the weights of the edges are ignored.<br>
+ * <br>
+ * Every task counts the nodes it expands and the edges it scans in its own
+ * fields, which are added up with the buffers when the level is joined, so
+ * that the statistics of the search (see getStats()) cost no
+ * synchronisation.<br>
+ * <br>
+ * Note that, as this implementation only searches for one solution, trying to
+ * solve a maze after passing AbstractSearch.SolveMode.ALL_SOLUTIONS to the
+ * constructor will result in an UnsupportedOperationException
+ */
+public class ParallelBFS<NodeType> extends AbstractSearch<NodeType> {
+
+	/* Minimum number of frontier nodes expanded by a task */
+	private static final int MINIMUM_RANGE = 1 << 10;
+
+	/* Number of tasks for each thread of the pool a level is split in */
+	private static final int TASKS_PER_THREAD = 4;
+
+	/* The pool running the tasks */
+	private ForkJoinPool pool;
+
+	/* Node every visited node was discovered from, or -1 */
+	private AtomicIntegerArray parent;
+
+	/* Nodes of the current level, and their number */
+	private int[] frontier;
+	private int frontierSize;
+
+	/* Set when the end of the maze is visited */
+	private volatile boolean found;
+
+	/**
+	 * Constructor that initialise a new instance of a maze solver using the
+	 * common ForkJoinPool
+	 *
+	 * @param maze
+	 *            The maze to solve
+	 * @param solveMode
+	 *            This has to be AbstractSearch.SolveMode.ONE_SOLUTION (one,
+	 *            optimal solution is returned), otherwise the solve method will
+	 *            throw an UnsupportedOperationException
+	 */
+	public ParallelBFS(Maze<NodeType> maze, SolveMode solveMode) {
+		super(maze, solveMode);
+		this.pool = ForkJoinPool.commonPool();
+	}
+
+	/**
+	 * Constructor that initialise a new instance of a maze solver using the
+	 * common ForkJoinPool, for a maze which is already indexed, such as a
+	 * maze.IntMaze
+	 *
+	 * @param graph
+	 *            The maze to solve
+	 * @param solveMode
+	 *            This has to be AbstractSearch.SolveMode.ONE_SOLUTION (one,
+	 *            optimal solution is returned), otherwise the solve method will
+	 *            throw an UnsupportedOperationException
+	 */
+	public ParallelBFS(IndexedGraph<NodeType> graph, SolveMode solveMode) {
+		this(graph, solveMode, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructor that initialise a new instance of a maze solver using the
+	 * given ForkJoinPool, for a maze which is already indexed, such as a
+	 * maze.IntMaze
+	 *
+	 * @param graph
+	 *            The maze to solve
+	 * @param solveMode
+	 *            This has to be AbstractSearch.SolveMode.ONE_SOLUTION (one,
+	 *            optimal solution is returned), otherwise the solve method will
+	 *            throw an UnsupportedOperationException
+	 * @param pool
+	 *            the pool running the search
+	 */
+	public ParallelBFS(IndexedGraph<NodeType> graph, SolveMode solveMode, ForkJoinPool pool) {
+		super(graph, solveMode);
+		this.pool = pool;
+	}
+
+	/**
+	 * Search the maze for the shortest path to the end.
+	 *
+	 * @return the shortest solution to the maze, or an empty list if there is
+	 *         no solution
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if AbstractSearch.SolveMode.ALL_SOLUTIONS was passed when
+	 *             instantiating this class
+	 */
+	@Override
+	public ArrayList<ArrayList<NodeType>> solve() {
+		if (solveMode != SolveMode.ONE_SOLUTION)
+			throw new UnsupportedOperationException();
+
+		SolveEvent event = new SolveEvent();
+		event.begin();
+		stats.reset();
+		stats.startPhase("search");
+		ArrayList<ArrayList<NodeType>> paths = new ArrayList<>();
+		int nodeCount = graph.getNodeCount();
+		int start = graph.getStart();
+		int end = graph.getEnd();
+
+		int[] parents = new int[nodeCount];
+		Arrays.fill(parents, -1);
+		parent = new AtomicIntegerArray(parents);
+		parents = null;
+		frontier = new int[nodeCount];
+		int[] next = new int[nodeCount];
+		found = start == end;
+
+		parent.set(start, start);
+		frontier[0] = start;
+		frontierSize = 1;
+
+		try {
+			while (frontierSize > 0 && !found) {
+				stats.frontier(frontierSize);
+				/* Each level is split in ranges of at least MINIMUM_RANGE nodes */
+				int tasks = pool.getParallelism() * TASKS_PER_THREAD;
+				int range = Math.max(MINIMUM_RANGE, (frontierSize + tasks - 1) / tasks);
+
+				Expand expand = new Expand(0, frontierSize, range);
+				if (frontierSize <= range)
+					expand.compute();
+				else
+					pool.invoke(expand);
+
+				/* The buffers of the tasks make the next level */
+				frontierSize = expand.collect(next, 0);
+				int[] swap = frontier;
+				frontier = next;
+				next = swap;
+			}
+
+			/* Rebuilding the path from the end, following the parents */
+			stats.startPhase("path");
+			if (found) {
+				ArrayList<NodeType> path = new ArrayList<>();
+				int node = end;
+				path.add(graph.getNode(node));
+				while (node != start) {
+					node = parent.get(node);
+					path.add(graph.getNode(node));
+				}
+				for (int i = 0, j = path.size() - 1; i < j; i++, j--) {
+					NodeType swap = path.get(i);
+					path.set(i, path.get(j));
+					path.set(j, swap);
+				}
+				paths.add(path);
+			}
+		} finally {
+			/* The search state is not needed anymore */
+			parent = null;
+			frontier = null;
+			stats.endPhase();
+		}
+
+		event.commit(this, paths.size());
+		return paths;
+	}
+
+	/*
+	 * Task expanding a range of the current level, which is split in halves
+	 * until it is not larger than the given range size
+	 */
+	private class Expand extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		/* Range of the current level expanded by this task */
+		private int begin;
+		private int end;
+		private int range;
+
+		/* Tasks this one was split into, if any */
+		private Expand left;
+		private Expand right;
+
+		/* Nodes claimed by this task, and their number */
+		private int[] buffer;
+		private int size;
+
+		/* Nodes expanded and edges scanned by this task */
+		private long expanded;
+		private long scanned;
+
+		public Expand(int begin, int end, int range) {
+			this.begin = begin;
+			this.end = end;
+			this.range = range;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - begin > range) {
+				int middle = (begin + end) >>> 1;
+				left = new Expand(begin, middle, range);
+				right = new Expand(middle, end, range);
+				invokeAll(left, right);
+				return;
+			}
+
+			int target = graph.getEnd();
+			buffer = new int[16];
+
+			for (int i = begin; i < end && !found; i++) {
+				int current = frontier[i];
+				expanded++;
+				scanned += graph.neighboursEnd(current) - graph.neighboursBegin(current);
+
+				for (int p = graph.neighboursBegin(current); p < graph.neighboursEnd(current); p++) {
+					int neighbour = graph.neighbourAt(p);
+
+					/* Claiming the neighbour, if no other task did */
+					if (parent.get(neighbour) < 0 && parent.compareAndSet(neighbour, -1, current)) {
+						if (neighbour == target)
+							found = true;
+						if (size == buffer.length)
+							buffer = Arrays.copyOf(buffer, size * 2);
+						buffer[size++] = neighbour;
+					}
+				}
+			}
+		}
+
+		/*
+		 * Copies the nodes claimed by this task, and by the tasks it was split
+		 * into, to the given array from the given position, returning the
+		 * position following the last one copied. Their counters are added to
+		 * the statistics of the search
+		 */
+		private int collect(int[] next, int position) {
+			if (left != null)
+				return right.collect(next, left.collect(next, position));
+
+			stats.nodesExpanded += expanded;
+			stats.edgesScanned += scanned;
+			System.arraycopy(buffer, 0, next, position, size);
+			return position + size;
+		}
+	}
+}
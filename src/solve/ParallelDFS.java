@@ -0,0 +1,459 @@
+package solve;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import maze.IndexedGraph;
+import maze.Maze;
+
+/**
+ * This class finds all the solutions of a maze, using the same DFS algorithm
+ * as the DFS class on all the threads of a ForkJoinPool.<br>
+ * <br>
+ * The search tree is split at its first branching nodes into independent
+ * subproblems, one for each neighbour that can be expanded. Every subproblem
+ * is a path from the start of the maze, and is solved by a task of the pool,
+ * which has its own copy of the set of nodes on the path (the GREY nodes of
+ * the DFS class). Nodes along corridors, which have a single neighbour that
+ * can be expanded, do not cause any split. When a path has gone through enough
+ * branching nodes to give every thread of the pool plenty of tasks, the
+ * subproblem is solved by an iterative DFS as in the DFS class, and idle threads
+ * steal the tasks left.<br>
+ * <br>
+ * Dead ends (the BLACK nodes of the DFS class) can not lead to any solution
+ * whatever the path that reaches them, so they are shared by all the tasks:
+ * a dead end found by one task is not expanded again by the others.<br>
+ * <br>
+ * The solutions found are the same as the ones found by DFS, but
+ * they are found in a different order. They are passed to a SolutionVisitor
+ * one at a time, so the visitor does not need to be thread safe.<br>
+ * <br>
+ * Every task counts the nodes it expands, the edges it scans and its deepest
+ * path in its own fields, and a task which splits adds up the counters of
+ * the tasks it split into once they complete, so that the statistics of the
+ * search (see getStats()) cost no synchronisation.<br>
+ * <br>
+ * Note that, as this implementation only searches for all solutions, trying to
+ * solve a maze after passing AbstractSearch.SolveMode.ONE_SOLUTION to the
+ * constructor will result in an UnsupportedOperationException
+ */
+public class ParallelDFS<NodeType> extends AbstractSearch<NodeType> {
+
+	/* Number of tasks for each thread of the pool the search aims at */
+	private static final int TASKS_PER_THREAD = 16;
+
+	/* The pool running the tasks */
+	private ForkJoinPool pool;
+
+	/* Number of branching nodes after which a path is not split anymore */
+	private int maximumSplits;
+
+	/* Dead ends found so far, shared by all the tasks */
+	private boolean[] deadEnds;
+
+	/* The visitor receiving the solutions, and the lock to call it */
+	private SolutionVisitor<NodeType> visitor;
+	private Object visitorLock;
+
+	/* Set when the visitor asks to stop the search */
+	private volatile boolean stopped;
+
+	/* Number of solutions visited, counted under the lock of the visitor */
+	private long solutionCount;
+
+	/**
+	 * Constructor that initialise a new instance of a maze solver using the
+	 * common ForkJoinPool
+	 *
+	 * @param maze
+	 *            The maze to solve
+	 * @param solveMode
+	 *            This has to be AbstractSearch.SolveMode.ALL_SOLUTIONS (all
+	 *            possible solutions are returned), otherwise the solve method
+	 *            will throw an UnsupportedOperationException
+	 */
+	public ParallelDFS(Maze<NodeType> maze, SolveMode solveMode) {
+		super(maze, solveMode);
+		setPool(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructor that initialise a new instance of a maze solver using the
+	 * common ForkJoinPool, for a maze which is already indexed, such as a
+	 * maze.IntMaze
+	 *
+	 * @param graph
+	 *            The maze to solve
+	 * @param solveMode
+	 *            This has to be AbstractSearch.SolveMode.ALL_SOLUTIONS (all
+	 *            possible solutions are returned), otherwise the solve method
+	 *            will throw an UnsupportedOperationException
+	 */
+	public ParallelDFS(IndexedGraph<NodeType> graph, SolveMode solveMode) {
+		this(graph, solveMode, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructor that initialise a new instance of a maze solver using the
+	 * given ForkJoinPool, for a maze which is already indexed, such as a
+	 * maze.IntMaze
+	 *
+	 * @param graph
+	 *            The maze to solve
+	 * @param solveMode
+	 *            This has to be AbstractSearch.SolveMode.ALL_SOLUTIONS (all
+	 *            possible solutions are returned), otherwise the solve method
+	 *            will throw an UnsupportedOperationException
+	 * @param pool
+	 *            the pool running the search
+	 */
+	public ParallelDFS(IndexedGraph<NodeType> graph, SolveMode solveMode, ForkJoinPool pool) {
+		super(graph, solveMode);
+		setPool(pool);
+	}
+
+	/*
+	 * Sets the pool running the search, and the number of splits needed to
+	 * keep its threads busy
+	 */
+	private void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+
+		/* Every branching node at least doubles the number of tasks */
+		int tasks = pool.getParallelism() * TASKS_PER_THREAD;
+		this.maximumSplits = 32 - Integer.numberOfLeadingZeros(tasks - 1);
+	}
+
+	/**
+	 * Find all the solutions to the maze.
+	 *
+	 * @return paths in the maze (from start to solution) or an empty list if no
+	 *         solution is found.
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if AbstractSearch.SolveMode.ONE_SOLUTION was passed when
+	 *             instantiating this class
+	 */
+	@Override
+	public ArrayList<ArrayList<NodeType>> solve() {
+		ArrayList<ArrayList<NodeType>> paths = new ArrayList<>();
+
+		/* Every solution streamed is copied to the list to be returned */
+		solve(solution -> paths.add(new ArrayList<>(solution)));
+
+		return paths;
+	}
+
+	/**
+	 * Find all the solutions to the maze, passing each of them to the given
+	 * visitor as soon as it is found. The visitor is called by the threads of
+	 * the pool, but never by two of them at the same time. The search stops
+	 * when the visitor returns false, although the tasks running at that
+	 * moment may still find a few solutions, which are not visited.<br>
+	 * <br>
+	 * The list passed to the visitor is a view of the current path of a task,
+	 * so it has to be copied to be kept after the visitor returns.
+	 *
+	 * @param visitor
+	 *            the visitor receiving the solutions
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if AbstractSearch.SolveMode.ONE_SOLUTION was passed when
+	 *             instantiating this class
+	 */
+	@Override
+	public void solve(SolutionVisitor<NodeType> visitor) {
+		if (solveMode != SolveMode.ALL_SOLUTIONS)
+			throw new UnsupportedOperationException();
+
+		SolveEvent event = new SolveEvent();
+		event.begin();
+		stats.reset();
+		stats.startPhase("search");
+		deadEnds = new boolean[graph.getNodeCount()];
+		this.visitor = visitor;
+		visitorLock = new Object();
+		stopped = false;
+		solutionCount = 0;
+
+		Search root = new Search(null, graph.getStart(), 0);
+		try {
+			pool.invoke(root);
+		} finally {
+			stats.nodesExpanded = root.expanded;
+			stats.edgesScanned = root.scanned;
+			stats.stack(root.deepest);
+			stats.endPhase();
+			deadEnds = null;
+			this.visitor = null;
+			visitorLock = null;
+		}
+		event.commit(this, solutionCount);
+	}
+
+	/*
+	 * Passes the first length nodes of the given path, followed by the given
+	 * last node, to the visitor, unless the search has been stopped
+	 */
+	private void visitSolution(int[] path, int length, int last) {
+		synchronized (visitorLock) {
+			if (stopped)
+				return;
+			path[length] = last;
+			solutionCount++;
+			if (!visitor.visit(new PathView(path, length + 1)))
+				stopped = true;
+		}
+	}
+
+	/*
+	 * Task solving the subproblem of finding all the solutions which begin
+	 * with a given path
+	 */
+	private class Search extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		/* Task which split into this one, which waits for it to complete */
+		private Search parent;
+
+		/* Last node of the path of this subproblem */
+		private int node;
+
+		/* Number of branching nodes on the path */
+		private int splits;
+
+		/* Nodes on the path, in order, and their number */
+		private int[] path;
+		private int length;
+
+		/* Nodes on the path, as a bit set */
+		private long[] onPath;
+
+		/* Explicit stack of the sequential search, as in DFS */
+		private int[] cursors;
+		private int[] blackNeighbours;
+		private boolean[] found;
+
+		/*
+		 * Nodes expanded, edges scanned and length of the longest path, by this
+		 * task and by the tasks it split into
+		 */
+		private long expanded;
+		private long scanned;
+		private int deepest;
+
+		/*
+		 * Creates the task for the path of the given parent followed by the
+		 * given node. The path is copied when the task runs, as the parent
+		 * does not change it while waiting
+		 */
+		public Search(Search parent, int node, int splits) {
+			this.parent = parent;
+			this.node = node;
+			this.splits = splits;
+		}
+
+		@Override
+		protected void compute() {
+			copyPath();
+
+			int end = graph.getEnd();
+			int current = node;
+
+			/* Going forward along corridors, until a branching node */
+			while (!stopped) {
+				int candidates = 0;
+				int candidate = -1;
+				scanned += graph.getDegree(current);
+
+				for (int p = graph.neighboursBegin(current); p < graph.neighboursEnd(current); p++) {
+					int neighbour = graph.neighbourAt(p);
+					if (isWhite(neighbour)) {
+						if (neighbour == end) {
+							visitSolution(path, length, neighbour);
+						} else {
+							candidates++;
+							candidate = neighbour;
+						}
+					}
+				}
+
+				if (candidates == 0)
+					return;
+
+				if (candidates == 1) {
+					add(candidate);
+					current = candidate;
+				} else if (splits < maximumSplits) {
+					split(current);
+					return;
+				} else {
+					sequential();
+					return;
+				}
+			}
+		}
+
+		/*
+		 * Creates a task for each neighbour of the given node that can be
+		 * expanded, and waits for them to complete
+		 */
+		private void split(int current) {
+			ArrayList<Search> tasks = new ArrayList<>();
+			for (int p = graph.neighboursBegin(current); p < graph.neighboursEnd(current); p++) {
+				int neighbour = graph.neighbourAt(p);
+				if (isWhite(neighbour) && neighbour != graph.getEnd())
+					tasks.add(new Search(this, neighbour, splits + 1));
+			}
+			scanned += graph.getDegree(current);
+			invokeAll(tasks);
+
+			for (Search task : tasks) {
+				expanded += task.expanded;
+				scanned += task.scanned;
+				deepest = Math.max(deepest, task.deepest);
+			}
+
+			/* The path is not needed anymore */
+			path = null;
+			onPath = null;
+		}
+
+		/*
+		 * Iterative DFS from the last node of the path, as in
+		 * DFS.allSolutions, leaving the path as it is when done. The solution
+		 * through the end, if it is a neighbour of the last node, has already
+		 * been visited by compute, so it is not visited again
+		 */
+		private void sequential() {
+			int end = graph.getEnd();
+			int base = length - 1;
+
+			cursors = new int[path.length];
+			blackNeighbours = new int[path.length];
+			found = new boolean[path.length];
+			cursors[base] = graph.neighboursBegin(path[base]);
+
+			while (length > base && !stopped) {
+				int top = length - 1;
+				int current = path[top];
+
+				if (cursors[top] < graph.neighboursEnd(current)) {
+					int neighbour = graph.neighbourAt(cursors[top]++);
+					scanned++;
+
+					/* Expanding only white neighbours, to avoid loops */
+					if (isWhite(neighbour)) {
+						if (neighbour == end) {
+							found[top] = true;
+							if (top > base)
+								visitSolution(path, length, neighbour);
+						} else {
+							add(neighbour);
+							cursors[length - 1] = graph.neighboursBegin(neighbour);
+							blackNeighbours[length - 1] = 0;
+							found[length - 1] = false;
+						}
+					}
+				} else {
+					/* The node runs out of neighbours: checking for a dead end */
+					boolean deadEnd = !found[top] && blackNeighbours[top] == graph.getDegree(current) - 1;
+					if (deadEnd)
+						deadEnds[current] = true;
+
+					/* Backtracking, and reporting to the previous node */
+					remove();
+					if (top > base) {
+						if (found[top])
+							found[top - 1] = true;
+						if (deadEnd)
+							blackNeighbours[top - 1]++;
+					}
+				}
+			}
+
+			cursors = null;
+			blackNeighbours = null;
+			found = null;
+			path = null;
+			onPath = null;
+		}
+
+		/*
+		 * Copies the path of the parent, which has been split, and adds the
+		 * node of this task to it
+		 */
+		private void copyPath() {
+			int nodeCount = graph.getNodeCount();
+			if (parent == null) {
+				path = new int[16];
+				onPath = new long[(nodeCount + 63) >>> 6];
+			} else {
+				path = Arrays.copyOf(parent.path, Math.max(16, parent.length * 2));
+				length = parent.length;
+				onPath = parent.onPath.clone();
+				parent = null;
+			}
+			add(node);
+		}
+
+		/* Returns true if the given node is neither on the path nor a dead end */
+		private boolean isWhite(int node) {
+			return (onPath[node >>> 6] & (1L << node)) == 0 && !deadEnds[node];
+		}
+
+		/* Adds a node at the end of the path */
+		private void add(int node) {
+			/* One more element is kept for the end of the maze */
+			if (length + 2 > path.length) {
+				int capacity = path.length * 2;
+				path = Arrays.copyOf(path, capacity);
+				if (cursors != null) {
+					cursors = Arrays.copyOf(cursors, capacity);
+					blackNeighbours = Arrays.copyOf(blackNeighbours, capacity);
+					found = Arrays.copyOf(found, capacity);
+				}
+			}
+			path[length++] = node;
+			onPath[node >>> 6] |= 1L << node;
+			expanded++;
+			if (length > deepest)
+				deepest = length;
+		}
+
+		/* Removes the last node of the path */
+		private void remove() {
+			int node = path[--length];
+			onPath[node >>> 6] &= ~(1L << node);
+		}
+	}
+
+	/*
+	 * Unmodifiable view of the first nodes of a path, converting the indices
+	 * to nodes when they are read
+	 */
+	private class PathView extends AbstractList<NodeType> {
+		private int[] path;
+		private int size;
+
+		public PathView(int[] path, int size) {
+			this.path = path;
+			this.size = size;
+		}
+
+		@Override
+		public NodeType get(int index) {
+			if (index < 0 || index >= size)
+				throw new IndexOutOfBoundsException();
+			return graph.getNode(path[index]);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
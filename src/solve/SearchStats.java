@@ -0,0 +1,204 @@
+package solve;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class holds the statistics of the last solve, or of the last query
+ * between two nodes, of a search (see AbstractSearch.getStats()), to see
+ * where the time of a slow solve goes:
+ * <ul>
+ * <li>the number of nodes expanded, that is the nodes whose neighbours were
+ * read from the maze, which is the number of neighbours() calls;</li>
+ * <li>the number of edges scanned, that is the neighbours read;</li>
+ * <li>the largest frontier of the search: the open set, or the current level
+ * of a breadth first search, counting both sides of a bidirectional
+ * search;</li>
+ * <li>the deepest stack of a depth first search, that is the longest path
+ * explored;</li>
+ * <li>for bidirectional searches, the nodes expanded by the side of the start
+ * and by the side of the end, and the number of times a side did not take
+ * its turn, to keep the two sides balanced;</li>
+ * <li>the time taken by every phase of the search, such as building the
+ * blocks of the maze, searching and building the path found.</li>
+ * </ul>
+ * The searches count directly into the fields of this class, which are plain
+ * longs, without any locking: every task of the parallel searches counts into
+ * fields of its own (expanded, scanned and, for ParallelDFS, deepest), and
+ * the thread of the search moves them into these fields once the tasks
+ * complete. The statistics are only consistent once the solve returns.
+ */
+public class SearchStats {
+
+	/* Counters, incremented directly by the searches of this package */
+	long nodesExpanded;
+	long edgesScanned;
+	long peakFrontier;
+	long peakStack;
+	long forwardExpanded;
+	long backwardExpanded;
+	long skippedSteps;
+
+	/* Time taken by every phase, in nanoseconds, in order of start */
+	private LinkedHashMap<String, Long> phaseNanos = new LinkedHashMap<>();
+
+	/* The phase being timed, or null, and the time it started */
+	private String phase;
+	private long phaseStart;
+
+	/**
+	 * Returns the number of nodes expanded, that is the nodes whose
+	 * neighbours were read
+	 *
+	 * @return the number of nodes expanded
+	 */
+	public long getNodesExpanded() {
+		return nodesExpanded;
+	}
+
+	/**
+	 * Returns the number of edges scanned, that is the neighbours read
+	 *
+	 * @return the number of edges scanned
+	 */
+	public long getEdgesScanned() {
+		return edgesScanned;
+	}
+
+	/**
+	 * Returns the largest number of nodes in the frontier of the search at
+	 * the same time, or 0 for depth first searches
+	 *
+	 * @return the largest size of the frontier
+	 */
+	public long getPeakFrontier() {
+		return peakFrontier;
+	}
+
+	/**
+	 * Returns the largest number of nodes on the stack of a depth first
+	 * search, or 0 for the other searches
+	 *
+	 * @return the largest size of the stack
+	 */
+	public long getPeakStack() {
+		return peakStack;
+	}
+
+	/**
+	 * Returns the number of nodes expanded by the side of the start of a
+	 * bidirectional search, or 0 for the other searches
+	 *
+	 * @return the number of nodes expanded from the start
+	 */
+	public long getForwardExpanded() {
+		return forwardExpanded;
+	}
+
+	/**
+	 * Returns the number of nodes expanded by the side of the end of a
+	 * bidirectional search, or 0 for the other searches
+	 *
+	 * @return the number of nodes expanded from the end
+	 */
+	public long getBackwardExpanded() {
+		return backwardExpanded;
+	}
+
+	/**
+	 * Returns the number of times a side of a bidirectional search did not
+	 * take its turn, as it was much larger than the other one, or 0 for the
+	 * other searches
+	 *
+	 * @return the number of steps skipped
+	 */
+	public long getSkippedSteps() {
+		return skippedSteps;
+	}
+
+	/**
+	 * Returns the time taken by every phase of the search, in nanoseconds, in
+	 * the order the phases started
+	 *
+	 * @return an unmodifiable map from the name of every phase to its time
+	 */
+	public Map<String, Long> getPhaseNanos() {
+		return Collections.unmodifiableMap(phaseNanos);
+	}
+
+	/**
+	 * Sets every counter to 0 and forgets the phases, before a new search
+	 */
+	public void reset() {
+		nodesExpanded = 0;
+		edgesScanned = 0;
+		peakFrontier = 0;
+		peakStack = 0;
+		forwardExpanded = 0;
+		backwardExpanded = 0;
+		skippedSteps = 0;
+		phaseNanos.clear();
+		phase = null;
+	}
+
+	/*
+	 * Ends the current phase, if any, and starts timing the given one
+	 */
+	void startPhase(String name) {
+		long now = System.nanoTime();
+		endPhase(now);
+		phase = name;
+		phaseStart = now;
+	}
+
+	/*
+	 * Ends the current phase, if any
+	 */
+	void endPhase() {
+		endPhase(System.nanoTime());
+	}
+
+	private void endPhase(long now) {
+		if (phase != null) {
+			phaseNanos.merge(phase, now - phaseStart, Long::sum);
+			phase = null;
+		}
+	}
+
+	/*
+	 * Records the given size of the frontier
+	 */
+	void frontier(long size) {
+		if (size > peakFrontier)
+			peakFrontier = size;
+	}
+
+	/*
+	 * Records the given size of the stack
+	 */
+	void stack(long size) {
+		if (size > peakStack)
+			peakStack = size;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder output = new StringBuilder();
+		output.append("Nodes expanded: ").append(nodesExpanded);
+		output.append("\nEdges scanned: ").append(edgesScanned);
+		if (peakFrontier > 0)
+			output.append("\nPeak frontier: ").append(peakFrontier);
+		if (peakStack > 0)
+			output.append("\nPeak stack: ").append(peakStack);
+		if (forwardExpanded > 0 || backwardExpanded > 0) {
+			output.append("\nExpanded from the start: ").append(forwardExpanded);
+			output.append("\nExpanded from the end: ").append(backwardExpanded);
+			output.append("\nSteps skipped to balance the sides: ").append(skippedSteps);
+		}
+		for (Map.Entry<String, Long> entry : phaseNanos.entrySet())
+			output.append("\nPhase ").append(entry.getKey()).append(": ").append(entry.getValue() / 1000000.0)
+					.append(" ms");
+		return output.toString();
+	}
+}
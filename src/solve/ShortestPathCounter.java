@@ -0,0 +1,243 @@
+package solve;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import maze.IndexedGraph;
+import maze.Maze;
+
+/**
+ * This class counts the shortest paths of a maze, that is the paths whose edges
+ * have the smallest total weight, without building any of them.<br>
+ * <br>
+ * The number of shortest paths to a node is the sum of the numbers of
+ * shortest paths to the nodes it is reached from along a shortest path: the
+ * nodes one layer closer to the start, if the edges are not weighted, or the
+ * nodes whose distance plus the weight of their edge to it is its distance.
+ * The nodes are then counted in order of distance from the start, by a breadth
+ * first search, layer by layer, or by Dijkstra's algorithm if the edges are
+ * weighted, and the search stops as soon as the end is counted, as no node
+ * farther from the start can be on a shortest path to it.<br>
+ * <br>
+ * The counts are kept in an array of longs indexed by node, and a count which
+ * would overflow is moved to an array of BigIntegers, allocated only when the
+ * first count overflows, so that no object is allocated for the counts of a
+ * typical maze, while the counts of a maze with more shortest paths than a long
+ * can hold are still exact.<br>
+ * <br>
+ * Note that, as this implementation only counts the solutions, trying to solve
+ * a maze will result in an UnsupportedOperationException, as will counting
+ * them after passing a solve mode other than
+ * AbstractSearch.SolveMode.COUNT_SHORTEST_SOLUTIONS to the constructor
+ */
+public class ShortestPathCounter<NodeType> extends AbstractSearch<NodeType> {
+
+	/* Distance of every node from the source, or -1 if it is not reached */
+	private long[] distance;
+
+	/* Number of shortest paths to every node, unless it is in bigCounts */
+	private long[] counts;
+
+	/* Numbers of shortest paths which do not fit in a long, or null */
+	private BigInteger[] bigCounts;
+
+	/**
+	 * This constructor will create an instance that will count the shortest
+	 * solutions of the given maze.
+	 *
+	 * @param maze
+	 *            the maze whose solutions are counted
+	 * @param solveMode
+	 *            This has to be
+	 *            AbstractSearch.SolveMode.COUNT_SHORTEST_SOLUTIONS, otherwise
+	 *            the countSolutions method will throw an
+	 *            UnsupportedOperationException
+	 */
+	public ShortestPathCounter(Maze<NodeType> maze, SolveMode solveMode) {
+		super(maze, solveMode);
+	}
+
+	/**
+	 * This constructor will create an instance that will count the shortest
+	 * solutions of the given maze, which is already indexed, such as a
+	 * maze.IntMaze.
+	 *
+	 * @param graph
+	 *            the maze whose solutions are counted
+	 * @param solveMode
+	 *            This has to be
+	 *            AbstractSearch.SolveMode.COUNT_SHORTEST_SOLUTIONS, otherwise
+	 *            the countSolutions method will throw an
+	 *            UnsupportedOperationException
+	 */
+	public ShortestPathCounter(IndexedGraph<NodeType> graph, SolveMode solveMode) {
+		super(graph, solveMode);
+	}
+
+	/**
+	 * The solutions are only counted, by countSolutions()
+	 *
+	 * @throws UnsupportedOperationException
+	 *             always
+	 */
+	@Override
+	public ArrayList<ArrayList<NodeType>> solve() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Counts the shortest solutions of the maze, without building them.
+	 *
+	 * @return the number of shortest solutions of the maze, which is 0 if it
+	 *         has no solution
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if AbstractSearch.SolveMode.COUNT_SHORTEST_SOLUTIONS was not
+	 *             passed when instantiating this class
+	 */
+	@Override
+	public BigInteger countSolutions() {
+		if (solveMode != SolveMode.COUNT_SHORTEST_SOLUTIONS)
+			throw new UnsupportedOperationException();
+
+		SolveEvent event = new SolveEvent();
+		event.begin();
+		BigInteger solutions = countPaths(graph.getStart(), graph.getEnd());
+		event.commit(this, solutions);
+		return solutions;
+	}
+
+	/**
+	 * Counts the shortest paths between the two nodes of the given indices.
+	 *
+	 * @param source
+	 *            the index of the first node
+	 * @param target
+	 *            the index of the second node
+	 *
+	 * @return the number of shortest paths, which is 1 if the source is the
+	 *         target, or 0 if there is no path
+	 */
+	public BigInteger countPaths(int source, int target) {
+		stats.reset();
+		stats.startPhase("counting");
+		int nodeCount = graph.getNodeCount();
+		distance = new long[nodeCount];
+		Arrays.fill(distance, -1);
+		counts = new long[nodeCount];
+		bigCounts = null;
+
+		try {
+			distance[source] = 0;
+			counts[source] = 1;
+			if (graph.isWeighted())
+				countWeighted(source, target);
+			else
+				countLayers(source, target);
+
+			return distance[target] < 0 ? BigInteger.ZERO : countOf(target);
+		} finally {
+			/* The counts are not needed anymore */
+			distance = null;
+			counts = null;
+			bigCounts = null;
+			stats.endPhase();
+		}
+	}
+
+	/*
+	 * Counts the paths layer by layer, with a breadth first search from the
+	 * source, until the layer of the target is reached
+	 */
+	private void countLayers(int source, int target) {
+		int[] queue = new int[graph.getNodeCount()];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = source;
+
+		while (head < tail) {
+			stats.frontier(tail - head);
+			int current = queue[head++];
+
+			/* The nodes of the layer of the target only lead farther */
+			if (distance[target] >= 0 && distance[current] >= distance[target])
+				return;
+			stats.nodesExpanded++;
+			stats.edgesScanned += graph.getDegree(current);
+
+			for (int p = graph.neighboursBegin(current); p < graph.neighboursEnd(current); p++) {
+				int neighbour = graph.neighbourAt(p);
+				if (distance[neighbour] < 0) {
+					distance[neighbour] = distance[current] + 1;
+					queue[tail++] = neighbour;
+				}
+				if (distance[neighbour] == distance[current] + 1)
+					addCount(neighbour, current);
+			}
+		}
+	}
+
+	/*
+	 * Counts the paths in order of distance from the source, with Dijkstra's
+	 * algorithm, until the target is settled
+	 */
+	private void countWeighted(int source, int target) {
+		IndexedMinHeap open = new IndexedMinHeap(graph.getNodeCount());
+		open.push(source, 0);
+
+		while (!open.isEmpty()) {
+			stats.frontier(open.size());
+			int current = open.pop();
+
+			/* Every node closer to the source is settled, with its count */
+			if (current == target)
+				return;
+			stats.nodesExpanded++;
+			stats.edgesScanned += graph.getDegree(current);
+
+			for (int p = graph.neighboursBegin(current); p < graph.neighboursEnd(current); p++) {
+				int neighbour = graph.neighbourAt(p);
+				long neighbourDistance = distance[current] + graph.weightAt(p);
+
+				if (distance[neighbour] < 0 || neighbourDistance < distance[neighbour]) {
+					/* A shorter path: the paths found so far are not shortest */
+					distance[neighbour] = neighbourDistance;
+					counts[neighbour] = 0;
+					if (bigCounts != null)
+						bigCounts[neighbour] = null;
+					addCount(neighbour, current);
+					open.push(neighbour, neighbourDistance);
+				} else if (neighbourDistance == distance[neighbour]) {
+					addCount(neighbour, current);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Adds the number of paths to the second given node to the number of
+	 * paths to the first one
+	 */
+	private void addCount(int node, int from) {
+		if (bigCounts == null || (bigCounts[node] == null && bigCounts[from] == null)) {
+			try {
+				counts[node] = Math.addExact(counts[node], counts[from]);
+				return;
+			} catch (ArithmeticException e) {
+				if (bigCounts == null)
+					bigCounts = new BigInteger[graph.getNodeCount()];
+			}
+		}
+		bigCounts[node] = countOf(node).add(countOf(from));
+	}
+
+	/*
+	 * Returns the number of paths to the given node
+	 */
+	private BigInteger countOf(int node) {
+		if (bigCounts != null && bigCounts[node] != null)
+			return bigCounts[node];
+		return BigInteger.valueOf(counts[node]);
+	}
+}
@@ -0,0 +1,141 @@
+package solve;
+
+import java.util.ArrayList;
+
+import maze.IndexedGraph;
+
+/**
+ * This interface represents a search which can find the shortest path between
+ * any two nodes of a maze, not only between its start and its end, so that a
+ * maze loaded once can answer any number of queries.<br>
+ * <br>
+ * An implementation allocates its buffers once, for the maze it was created
+ * for, and reuses them for every query: the state of the previous query is
+ * discarded by stamping the nodes with a new generation instead of clearing
+ * the buffers, so that the time of a query depends on the number of nodes it
+ * reaches and not on the size of the maze. For this reason an instance must
+ * not be used by more than one thread at a time, and a batch of queries is
+ * answered one query after the other.<br>
+ * <br>
+ * The length of a path is the number of its edges for the searches which
+ * ignore the weights of the edges, such as BidirectionalSearch, and the total
+ * weight of its edges otherwise.
+ */
+public interface ShortestPathQuery<NodeType> {
+
+	/**
+	 * Returns the maze the queries are answered on
+	 *
+	 * @return the maze, with every node given an index
+	 */
+	IndexedGraph<NodeType> getGraph();
+
+	/**
+	 * Returns the shortest path between the two nodes of the given indices,
+	 * as the indices of its nodes in order
+	 *
+	 * @param source
+	 *            the index of the first node
+	 * @param target
+	 *            the index of the second node
+	 *
+	 * @return the indices of the nodes of the shortest path, from the source
+	 *         to the target, or null if there is no path
+	 */
+	int[] findPath(int source, int target);
+
+	/**
+	 * Returns the length of the shortest path between the two nodes of the
+	 * given indices
+	 *
+	 * @param source
+	 *            the index of the first node
+	 * @param target
+	 *            the index of the second node
+	 *
+	 * @return the length of the shortest path, or -1 if there is no path
+	 */
+	long findDistance(int source, int target);
+
+	/**
+	 * Returns the shortest path between the two given nodes
+	 *
+	 * @param source
+	 *            the first node
+	 * @param target
+	 *            the second node
+	 *
+	 * @return the nodes of the shortest path, from the source to the target,
+	 *         or null if there is no path
+	 *
+	 * @throws IllegalArgumentException
+	 *             if one of the nodes is not in the maze
+	 */
+	default ArrayList<NodeType> findPath(NodeType source, NodeType target) {
+		IndexedGraph<NodeType> graph = getGraph();
+		int sourceIndex = graph.indexOf(source);
+		int targetIndex = graph.indexOf(target);
+		if (sourceIndex < 0 || targetIndex < 0)
+			throw new IllegalArgumentException("The node is not in the maze");
+
+		int[] path = findPath(sourceIndex, targetIndex);
+		if (path == null)
+			return null;
+
+		ArrayList<NodeType> nodes = new ArrayList<>(path.length);
+		for (int node : path)
+			nodes.add(graph.getNode(node));
+		return nodes;
+	}
+
+	/**
+	 * Returns the shortest paths between every pair of nodes of the given
+	 * indices, the i-th path being between sources[i] and targets[i]
+	 *
+	 * @param sources
+	 *            the indices of the first nodes of the pairs
+	 * @param targets
+	 *            the indices of the second nodes of the pairs
+	 *
+	 * @return the shortest path of every pair, as findPath(int, int) returns
+	 *         it
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the two arrays have different lengths
+	 */
+	default int[][] findPaths(int[] sources, int[] targets) {
+		if (sources.length != targets.length)
+			throw new IllegalArgumentException("Sources and targets do not match");
+
+		int[][] paths = new int[sources.length][];
+		for (int i = 0; i < sources.length; i++)
+			paths[i] = findPath(sources[i], targets[i]);
+		return paths;
+	}
+
+	/**
+	 * Returns the lengths of the shortest paths between every pair of nodes
+	 * of the given indices, the i-th length being the one between sources[i]
+	 * and targets[i]
+	 *
+	 * @param sources
+	 *            the indices of the first nodes of the pairs
+	 * @param targets
+	 *            the indices of the second nodes of the pairs
+	 *
+	 * @return the length of the shortest path of every pair, or -1 for the
+	 *         pairs with no path
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the two arrays have different lengths
+	 */
+	default long[] findDistances(int[] sources, int[] targets) {
+		if (sources.length != targets.length)
+			throw new IllegalArgumentException("Sources and targets do not match");
+
+		long[] distances = new long[sources.length];
+		for (int i = 0; i < sources.length; i++)
+			distances[i] = findDistance(sources[i], targets[i]);
+		return distances;
+	}
+}
@@ -0,0 +1,75 @@
+package solve;
+
+import java.math.BigInteger;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*
+ * Flight recorder event of a solve, from the start of a solve method of a
+ * search to its return, with the size of the maze and the statistics of the
+ * search. The event is begun before the search and committed with
+ * commit(AbstractSearch, long), which does nothing when it is not recorded
+ */
+@Name("maze.Solve")
+@Label("Solve")
+@Category({ "Maze Solver", "Solve" })
+@Description("A solve of a maze, or a count of its solutions")
+class SolveEvent extends Event {
+
+	@Label("Algorithm")
+	String algorithm;
+
+	@Label("Solve Mode")
+	String solveMode;
+
+	@Label("Nodes")
+	int nodes;
+
+	@Label("Edges")
+	long edges;
+
+	@Label("Solutions")
+	@Description("Solutions found or counted, Long.MAX_VALUE if they are more")
+	long solutions;
+
+	@Label("Nodes Expanded")
+	long nodesExpanded;
+
+	@Label("Edges Scanned")
+	long edgesScanned;
+
+	@Label("Peak Frontier")
+	long peakFrontier;
+
+	@Label("Peak Stack")
+	long peakStack;
+
+	/*
+	 * Ends the event of a count of the solutions by the given search, and
+	 * commits it
+	 */
+	void commit(AbstractSearch<?> search, BigInteger solutions) {
+		commit(search, solutions.bitLength() < Long.SIZE ? solutions.longValue() : Long.MAX_VALUE);
+	}
+
+	/* Ends the event of a solve by the given search, and commits it */
+	void commit(AbstractSearch<?> search, long solutions) {
+		if (!shouldCommit())
+			return;
+		algorithm = search.getClass().getSimpleName();
+		solveMode = search.getSolveMode().name();
+		nodes = search.getGraph().getNodeCount();
+		edges = search.getGraph().getEdgeCount();
+		this.solutions = solutions;
+		SearchStats stats = search.getStats();
+		nodesExpanded = stats.nodesExpanded;
+		edgesScanned = stats.edgesScanned;
+		peakFrontier = stats.peakFrontier;
+		peakStack = stats.peakStack;
+		commit();
+	}
+}
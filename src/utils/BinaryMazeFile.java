@@ -0,0 +1,315 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import exceptions.IllegalFileException;
+import maze.IntMaze;
+import maze.Maze;
+import maze.Node;
+
+/**
+ * This class reads and writes mazes in a binary format which holds a
+ * maze.IntMaze exactly as it is kept in memory, so that loading a maze does not
+ * require any parsing or building.<br>
+ * <br>
+ * The file is made of little endian 32 bit integers, in this order:
+ * <ol>
+ * <li>the magic number 0x4D5A4531 ("MZE1");</li>
+ * <li>the format version, 1;</li>
+ * <li>the number of nodes, n;</li>
+ * <li>the number of undirected edges;</li>
+ * <li>the index of the start of the maze;</li>
+ * <li>the index of the end of the maze;</li>
+ * <li>the number of neighbour entries, m;</li>
+ * <li>the flags, whose bit 0 is set if the edges are weighted, all the other
+ * bits being 0;</li>
+ * <li>the n sorted node IDs;</li>
+ * <li>the n + 1 offsets of the neighbours of every node;</li>
+ * <li>the m neighbour indices;</li>
+ * <li>only if the edges are weighted, the m weights of the neighbour
+ * entries.</li>
+ * </ol>
+ * See maze.IntMaze for the meaning of the arrays. Files written before the
+ * weights were introduced have flags 0, so they are still loaded as
+ * unweighted mazes.<br>
+ * <br>
+ * The load method memory maps the file and the maze uses the mapped arrays
+ * directly, so that nothing is parsed or copied, and the operating system
+ * pages the maze in. Only the header and the size of the file are checked
+ * by default, so that loading takes the same time whatever the size of the
+ * maze; the arrays can also be checked, reading the whole file once, when the
+ * file may be corrupted.
+ */
+public class BinaryMazeFile {
+
+	/* Magic number identifying the format */
+	private static final int MAGIC = 0x4D5A4531;
+
+	/* Version of the format */
+	private static final int VERSION = 1;
+
+	/* Flag set if the edges are weighted */
+	private static final int WEIGHTED = 1;
+
+	/* Number of integers in the header */
+	private static final int HEADER_INTS = 8;
+
+	/* Size of the buffer used when writing */
+	private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+	/**
+	 * Writes the given maze to the given file, in binary format
+	 *
+	 * @param maze
+	 *            the maze to be written
+	 * @param file
+	 *            the file to be written
+	 *
+	 * @throws IOException
+	 *             if the file can not be written
+	 */
+	public void write(IntMaze maze, File file) throws IOException {
+		int nodeCount = maze.getNodeCount();
+		int neighboursLength = maze.neighboursEnd(nodeCount - 1);
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+			/* Header */
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(nodeCount);
+			buffer.putInt(maze.getEdgeCount());
+			buffer.putInt(maze.getStart());
+			buffer.putInt(maze.getEnd());
+			buffer.putInt(neighboursLength);
+			buffer.putInt(maze.isWeighted() ? WEIGHTED : 0);
+
+			/* IDs */
+			for (int i = 0; i < nodeCount; i++)
+				putInt(channel, buffer, maze.getID(i));
+
+			/* Offsets */
+			for (int i = 0; i < nodeCount; i++)
+				putInt(channel, buffer, maze.neighboursBegin(i));
+			putInt(channel, buffer, neighboursLength);
+
+			/* Neighbours */
+			for (int p = 0; p < neighboursLength; p++)
+				putInt(channel, buffer, maze.neighbourAt(p));
+
+			/* Weights */
+			if (maze.isWeighted()) {
+				for (int p = 0; p < neighboursLength; p++)
+					putInt(channel, buffer, maze.weightAt(p));
+			}
+
+			flush(channel, buffer);
+		}
+	}
+
+	/**
+	 * Writes the given maze to the given file, in binary format
+	 *
+	 * @param maze
+	 *            the maze to be written
+	 * @param file
+	 *            the file to be written
+	 *
+	 * @throws IOException
+	 *             if the file can not be written
+	 */
+	public void write(Maze<Node> maze, File file) throws IOException {
+		write(IntMaze.fromMaze(maze), file);
+	}
+
+	/**
+	 * Converts a maze file in the text format read by Parser to a file in
+	 * binary format
+	 *
+	 * @param textFile
+	 *            the file in text format to be read
+	 * @param binaryFile
+	 *            the file in binary format to be written
+	 *
+	 * @throws IllegalFileException
+	 *             if the text file does not exist or is bad formatted
+	 * @throws IOException
+	 *             if the binary file can not be written
+	 */
+	public void convert(File textFile, File binaryFile) throws IllegalFileException, IOException {
+		write(new Parser().parseParallel(textFile), binaryFile);
+	}
+
+	/**
+	 * Loads a maze from a file in binary format, without checking its arrays
+	 * (see load(File, boolean)). If the file does not exist or is not in
+	 * binary format, an IllegalFileException is thrown instead.
+	 *
+	 * @param file
+	 *            the file to be loaded
+	 *
+	 * @return the maze held in the file
+	 *
+	 * @throws IllegalFileException
+	 *             if the file does not exist or is not in binary format
+	 */
+	public IntMaze load(File file) throws IllegalFileException {
+		return load(file, false);
+	}
+
+	/**
+	 * Loads a maze from a file in binary format. If the file does not exist or
+	 * is not in binary format, an IllegalFileException is thrown instead.<br>
+	 * <br>
+	 * The file is memory mapped and the returned maze reads the mapped file
+	 * directly. If one of the arrays is larger than 2GB, which is the largest
+	 * size that can be mapped at once, that array is copied to the heap
+	 * instead.<br>
+	 * <br>
+	 * The header, the size of the file and the start and the end are always
+	 * checked, in constant time. If verify is true, the arrays are checked
+	 * too, in time linear in the size of the maze: the IDs have to be
+	 * increasing, the offsets have to start from 0 and never decrease, the
+	 * neighbours have to be indices of nodes, and the weights have to be
+	 * positive. A corrupted file is then rejected here rather than failing in
+	 * the middle of a search, but the whole file is read before the search
+	 * starts.
+	 *
+	 * @param file
+	 *            the file to be loaded
+	 * @param verify
+	 *            true to check the arrays of the file
+	 *
+	 * @return the maze held in the file
+	 *
+	 * @throws IllegalFileException
+	 *             if the file does not exist or is not in binary format, or,
+	 *             if verify is true, if its arrays are inconsistent
+	 */
+	public IntMaze load(File file, boolean verify) throws IllegalFileException {
+		if (!file.exists() || file.isDirectory())
+			throw new IllegalFileException();
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_INTS * 4)
+				throw new IllegalFileException();
+
+			IntBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_INTS * 4)
+					.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			if (header.get(0) != MAGIC || header.get(1) != VERSION)
+				throw new IllegalFileException();
+			int nodeCount = header.get(2);
+			int edgeCount = header.get(3);
+			int start = header.get(4);
+			int end = header.get(5);
+			int neighboursLength = header.get(6);
+			int flags = header.get(7);
+			boolean weighted = (flags & WEIGHTED) != 0;
+
+			/* The size of the file has to match the one of the arrays */
+			long idsOffset = HEADER_INTS * 4L;
+			long offsetsOffset = idsOffset + nodeCount * 4L;
+			long neighboursOffset = offsetsOffset + (nodeCount + 1L) * 4L;
+			long weightsOffset = neighboursOffset + neighboursLength * 4L;
+			long expectedSize = weighted ? weightsOffset + neighboursLength * 4L : weightsOffset;
+			if (nodeCount < 1 || neighboursLength < 0 || (flags & ~WEIGHTED) != 0 || size != expectedSize)
+				throw new IllegalFileException();
+
+			IntBuffer ids = mapInts(channel, idsOffset, nodeCount);
+			IntBuffer offsets = mapInts(channel, offsetsOffset, nodeCount + 1);
+			IntBuffer targets = mapInts(channel, neighboursOffset, neighboursLength);
+			IntBuffer weights = weighted ? mapInts(channel, weightsOffset, neighboursLength) : null;
+			if (edgeCount < 0 || (verify && !isValid(ids, offsets, targets, weights)))
+				throw new IllegalFileException();
+
+			return IntMaze.fromBuffers(ids, offsets, targets, weights, edgeCount, start, end);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalFileException();
+		} catch (IOException e) {
+			e.printStackTrace();
+			throw new IllegalFileException();
+		}
+	}
+
+	/*
+	 * Returns true if the IDs are increasing, the offsets start from 0 and do
+	 * not decrease up to the number of neighbours, every neighbour is the
+	 * index of a node and every weight, if any, is positive
+	 */
+	private static boolean isValid(IntBuffer ids, IntBuffer offsets, IntBuffer targets, IntBuffer weights) {
+		int nodeCount = ids.limit();
+		for (int i = 1; i < nodeCount; i++) {
+			if (ids.get(i) <= ids.get(i - 1))
+				return false;
+		}
+
+		if (offsets.get(0) != 0)
+			return false;
+		for (int i = 1; i <= nodeCount; i++) {
+			if (offsets.get(i) < offsets.get(i - 1))
+				return false;
+		}
+		if (offsets.get(nodeCount) != targets.limit())
+			return false;
+
+		for (int p = 0; p < targets.limit(); p++) {
+			int target = targets.get(p);
+			if (target < 0 || target >= nodeCount || (weights != null && weights.get(p) < 1))
+				return false;
+		}
+		return true;
+	}
+
+	/*
+	 * Maps the given number of integers starting at the given offset of the
+	 * file, or reads them to the heap if they do not fit a single mapping.
+	 * The mapping stays valid after the channel is closed.
+	 */
+	static IntBuffer mapInts(FileChannel channel, long offset, int length) throws IOException {
+		long bytes = length * 4L;
+		if (bytes <= Integer.MAX_VALUE) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, bytes);
+			return buffer.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+		}
+
+		int[] values = new int[length];
+		int read = 0;
+		while (read < length) {
+			int count = Math.min(length - read, Integer.MAX_VALUE / 4);
+			channel.map(FileChannel.MapMode.READ_ONLY, offset + read * 4L, count * 4L).order(ByteOrder.LITTLE_ENDIAN)
+					.asIntBuffer().get(values, read, count);
+			read += count;
+		}
+		return IntBuffer.wrap(values);
+	}
+
+	/*
+	 * Puts an integer in the buffer, writing the buffer to the channel first
+	 * if it is full
+	 */
+	static void putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+		if (buffer.remaining() < 4)
+			flush(channel, buffer);
+		buffer.putInt(value);
+	}
+
+	/*
+	 * Writes the content of the buffer to the channel and clears the buffer
+	 */
+	static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+}
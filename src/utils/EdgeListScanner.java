@@ -0,0 +1,231 @@
+package utils;
+
+import java.nio.ByteBuffer;
+
+import exceptions.IllegalFileException;
+import maze.IntMaze;
+
+/**
+ * This class scans the bytes of a maze file, in the format described in the
+ * Parser class, adding every edge it reads to an IntMaze.Builder.<br>
+ * <br>
+ * The bytes are read directly into integers, without creating any String, and
+ * the lines are validated as Parser.parse does: after removing leading and
+ * trailing whitespace, each non empty line has to be made of two integers
+ * separated by a single space, optionally followed by a single space and the
+ * positive weight of the edge. Lines can end with "\n", "\r" or "\r\n".<br>
+ * <br>
+ * The file can be given to the scanner in more than one buffer, one after the
+ * other, even if lines span across buffers: the state of the current line is
+ * kept between calls to scan. The finish method has to be called after the
+ * last buffer.
+ */
+class EdgeListScanner {
+
+	/* States of the scanner within a line */
+	private static final int LEADING = 0;
+	private static final int FIRST = 1;
+	private static final int SECOND = 2;
+	private static final int WEIGHT = 3;
+	private static final int TRAILING = 4;
+
+	/* Magnitude of Integer.MIN_VALUE, the largest a token can have */
+	private static final long MAX_MAGNITUDE = 1L << 31;
+
+	/* Builder receiving the edges */
+	private IntMaze.Builder builder;
+
+	/* Current state */
+	private int state;
+
+	/* Offset in the file of the beginning of the current line */
+	private long lineOffset;
+
+	/* Token being read: sign, magnitude and number of digits */
+	private boolean signed;
+	private boolean negative;
+	private long magnitude;
+	private int digits;
+
+	/* IDs of the current line, when the following tokens are being read */
+	private int firstID;
+	private int secondID;
+
+	/* Number of edges read */
+	private long edgeCount;
+
+	/**
+	 * Constructor to create a scanner adding the edges to the given builder
+	 *
+	 * @param builder
+	 *            the builder receiving the edges
+	 * @param offset
+	 *            the offset in the file of the first byte that will be
+	 *            scanned, which has to be the beginning of a line
+	 */
+	EdgeListScanner(IntMaze.Builder builder, long offset) {
+		this.builder = builder;
+		this.state = LEADING;
+		this.lineOffset = offset;
+	}
+
+	/**
+	 * Scans the bytes of the given buffer, from its position to its limit. The
+	 * bytes have to follow the ones scanned by the previous call.
+	 *
+	 * @param buffer
+	 *            the buffer to be scanned
+	 * @param offset
+	 *            the offset in the file of the byte at the position of the
+	 *            buffer
+	 *
+	 * @throws IllegalFileException
+	 *             if a bad formatted line is found
+	 */
+	void scan(ByteBuffer buffer, long offset) throws IllegalFileException {
+		int begin = buffer.position();
+		int limit = buffer.limit();
+
+		for (int i = begin; i < limit; i++) {
+			int b = buffer.get(i) & 0xff;
+
+			if (b == '\n' || b == '\r') {
+				endLine();
+				lineOffset = offset + (i - begin) + 1;
+			} else if (b >= '0' && b <= '9') {
+				switch (state) {
+				case LEADING:
+					startToken(FIRST);
+					break;
+				case TRAILING:
+					throw new IllegalFileException(lineOffset);
+				default:
+					break;
+				}
+				magnitude = magnitude * 10 + (b - '0');
+				digits++;
+				if (magnitude > MAX_MAGNITUDE)
+					throw new IllegalFileException(lineOffset);
+			} else if (b == '-' || b == '+') {
+				/* A sign is only allowed before the first digit of a token */
+				if (state == LEADING)
+					startToken(FIRST);
+				else if (state == TRAILING || digits != 0 || signed)
+					throw new IllegalFileException(lineOffset);
+				signed = true;
+				negative = b == '-';
+			} else if (b == ' ' && state == FIRST) {
+				/* The single space between the two IDs */
+				firstID = endToken();
+				startToken(SECOND);
+			} else if (b == ' ' && state == SECOND) {
+				/* The single space between the second ID and the weight */
+				secondID = endToken();
+				startToken(WEIGHT);
+			} else if (b <= ' ') {
+				/* Whitespace is only allowed around the tokens of the line */
+				if (state == SECOND) {
+					secondID = endToken();
+					emit(1);
+					state = TRAILING;
+				} else if (state == WEIGHT) {
+					endWeight();
+					state = TRAILING;
+				} else if (state == FIRST) {
+					throw new IllegalFileException(lineOffset);
+				}
+			} else {
+				throw new IllegalFileException(lineOffset);
+			}
+		}
+	}
+
+	/**
+	 * Ends the scan, processing the last line if the file does not end with a
+	 * line terminator
+	 *
+	 * @throws IllegalFileException
+	 *             if the last line is bad formatted
+	 */
+	void finish() throws IllegalFileException {
+		endLine();
+	}
+
+	/**
+	 * Returns the number of edges scanned so far
+	 *
+	 * @return the number of edges scanned so far
+	 */
+	long getEdgeCount() {
+		return edgeCount;
+	}
+
+	/*
+	 * Processes the end of the current line
+	 */
+	private void endLine() throws IllegalFileException {
+		switch (state) {
+		case FIRST:
+			/* A line with a single ID */
+			throw new IllegalFileException(lineOffset);
+		case SECOND:
+			secondID = endToken();
+			emit(1);
+			break;
+		case WEIGHT:
+			endWeight();
+			break;
+		default:
+			break;
+		}
+		state = LEADING;
+	}
+
+	/*
+	 * Starts reading a token in the given state
+	 */
+	private void startToken(int newState) {
+		state = newState;
+		signed = false;
+		negative = false;
+		magnitude = 0;
+		digits = 0;
+	}
+
+	/*
+	 * Returns the value of the token that was being read
+	 */
+	private int endToken() throws IllegalFileException {
+		if (digits == 0 || (!negative && magnitude == MAX_MAGNITUDE))
+			throw new IllegalFileException(lineOffset);
+		return (int) (negative ? -magnitude : magnitude);
+	}
+
+	/*
+	 * Adds the edge of the current line to the builder, with the weight that
+	 * was being read, or with weight 1 if the line only had trailing
+	 * whitespace after the second ID
+	 */
+	private void endWeight() throws IllegalFileException {
+		if (digits == 0 && !signed) {
+			emit(1);
+			return;
+		}
+
+		int weight = endToken();
+		if (weight < 1)
+			throw new IllegalFileException(lineOffset);
+		emit(weight);
+	}
+
+	/*
+	 * Adds the edge of the current line, of the given weight, to the builder
+	 */
+	private void emit(int weight) {
+		if (weight == 1)
+			builder.addEdge(firstID, secondID);
+		else
+			builder.addEdge(firstID, secondID, weight);
+		edgeCount++;
+	}
+}
@@ -0,0 +1,158 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import exceptions.IllegalFileException;
+import solve.ContractionHierarchy;
+
+/**
+ * This class reads and writes the contraction hierarchy of a maze (see
+ * solve.ContractionHierarchy) in a binary format, so that the hierarchy of a
+ * maze which is searched many times is built only once.<br>
+ * <br>
+ * As for BinaryMazeFile, the file is made of little endian 32 bit integers,
+ * in this order:
+ * <ol>
+ * <li>the magic number 0x4D5A4831 ("MZH1");</li>
+ * <li>the format version, 1;</li>
+ * <li>the number of nodes of the maze, n;</li>
+ * <li>the number of edges of the maze;</li>
+ * <li>the number of upward edges, m;</li>
+ * <li>the fingerprint of the maze;</li>
+ * <li>two reserved integers, 0;</li>
+ * <li>the n ranks of the nodes;</li>
+ * <li>the n + 1 offsets of the upward edges of every node;</li>
+ * <li>the m targets of the upward edges;</li>
+ * <li>the m weights of the upward edges;</li>
+ * <li>the m middle nodes of the upward edges.</li>
+ * </ol>
+ * The load method memory maps the file, and the hierarchy uses the mapped
+ * arrays directly, once they have been checked (see
+ * ContractionHierarchy.fromBuffers).
+ */
+public class HierarchyFile {
+
+	/* Magic number identifying the format */
+	private static final int MAGIC = 0x4D5A4831;
+
+	/* Version of the format */
+	private static final int VERSION = 1;
+
+	/* Number of integers in the header */
+	private static final int HEADER_INTS = 8;
+
+	/* Size of the buffer used when writing */
+	private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+	/**
+	 * Writes the given hierarchy to the given file
+	 *
+	 * @param hierarchy
+	 *            the hierarchy to be written
+	 * @param file
+	 *            the file to be written
+	 *
+	 * @throws IOException
+	 *             if the file can not be written
+	 */
+	public void write(ContractionHierarchy hierarchy, File file) throws IOException {
+		int nodeCount = hierarchy.getNodeCount();
+		int upwardLength = hierarchy.getUpwardEdgeCount();
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+			/* Header */
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(nodeCount);
+			buffer.putInt(hierarchy.getEdgeCount());
+			buffer.putInt(upwardLength);
+			buffer.putInt(hierarchy.getFingerprint());
+			buffer.putInt(0);
+			buffer.putInt(0);
+
+			/* Ranks */
+			for (int i = 0; i < nodeCount; i++)
+				BinaryMazeFile.putInt(channel, buffer, hierarchy.getRank(i));
+
+			/* Offsets */
+			for (int i = 0; i < nodeCount; i++)
+				BinaryMazeFile.putInt(channel, buffer, hierarchy.upwardBegin(i));
+			BinaryMazeFile.putInt(channel, buffer, upwardLength);
+
+			/* Targets, weights and middle nodes */
+			for (int p = 0; p < upwardLength; p++)
+				BinaryMazeFile.putInt(channel, buffer, hierarchy.targetAt(p));
+			for (int p = 0; p < upwardLength; p++)
+				BinaryMazeFile.putInt(channel, buffer, hierarchy.weightAt(p));
+			for (int p = 0; p < upwardLength; p++)
+				BinaryMazeFile.putInt(channel, buffer, hierarchy.middleAt(p));
+
+			BinaryMazeFile.flush(channel, buffer);
+		}
+	}
+
+	/**
+	 * Loads a hierarchy from a file. If the file does not exist, is not a
+	 * hierarchy file or holds an inconsistent hierarchy, an
+	 * IllegalFileException is thrown instead.
+	 *
+	 * @param file
+	 *            the file to be loaded
+	 *
+	 * @return the hierarchy held in the file
+	 *
+	 * @throws IllegalFileException
+	 *             if the file does not exist or is not a hierarchy file
+	 */
+	public ContractionHierarchy load(File file) throws IllegalFileException {
+		if (!file.exists() || file.isDirectory())
+			throw new IllegalFileException();
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_INTS * 4)
+				throw new IllegalFileException();
+
+			IntBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_INTS * 4)
+					.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			if (header.get(0) != MAGIC || header.get(1) != VERSION)
+				throw new IllegalFileException();
+			int nodeCount = header.get(2);
+			int edgeCount = header.get(3);
+			int upwardLength = header.get(4);
+			int fingerprint = header.get(5);
+
+			/* The size of the file has to match the one of the arrays */
+			long ranksOffset = HEADER_INTS * 4L;
+			long offsetsOffset = ranksOffset + nodeCount * 4L;
+			long targetsOffset = offsetsOffset + (nodeCount + 1L) * 4L;
+			long weightsOffset = targetsOffset + upwardLength * 4L;
+			long middlesOffset = weightsOffset + upwardLength * 4L;
+			if (nodeCount < 1 || upwardLength < 0 || size != middlesOffset + upwardLength * 4L)
+				throw new IllegalFileException();
+
+			IntBuffer ranks = BinaryMazeFile.mapInts(channel, ranksOffset, nodeCount);
+			IntBuffer offsets = BinaryMazeFile.mapInts(channel, offsetsOffset, nodeCount + 1);
+			IntBuffer targets = BinaryMazeFile.mapInts(channel, targetsOffset, upwardLength);
+			IntBuffer weights = BinaryMazeFile.mapInts(channel, weightsOffset, upwardLength);
+			IntBuffer middles = BinaryMazeFile.mapInts(channel, middlesOffset, upwardLength);
+
+			return ContractionHierarchy.fromBuffers(ranks, offsets, targets, weights, middles, edgeCount,
+					fingerprint);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalFileException();
+		} catch (IOException e) {
+			e.printStackTrace();
+			throw new IllegalFileException();
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package utils;
+
+import java.io.File;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*
+ * Flight recorder event of the parsing of a maze file, by one of the parse
+ * methods of Parser. The event is begun before parsing and committed with
+ * commit, which does nothing when it is not recorded
+ */
+@Name("maze.Parse")
+@Label("Parse Maze")
+@Category({ "Maze Solver", "Parse" })
+@Description("The parsing of a maze file")
+class ParseEvent extends Event {
+
+	@Label("Method")
+	String method;
+
+	@Label("File")
+	String file;
+
+	@Label("Bytes")
+	@DataAmount
+	long bytes;
+
+	@Label("Threads")
+	int threads;
+
+	@Label("Nodes")
+	int nodes;
+
+	@Label("Edges")
+	long edges;
+
+	@Label("Weighted")
+	boolean weighted;
+
+	/*
+	 * Ends the event of the given file, parsed by the given method with the
+	 * given number of threads into a maze of the given size
+	 */
+	void commit(String method, File file, int threads, int nodes, long edges, boolean weighted) {
+		if (!shouldCommit())
+			return;
+		this.method = method;
+		this.file = file.getPath();
+		bytes = file.length();
+		this.threads = threads;
+		this.nodes = nodes;
+		this.edges = edges;
+		this.weighted = weighted;
+		commit();
+	}
+}
@@ -5,9 +5,21 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import exceptions.IllegalFileException;
 import exceptions.NullNodeException;
+import maze.Coordinates;
+import maze.IndexedGraph;
+import maze.IntMaze;
 import maze.Maze;
 import maze.Node;
 
@@ -25,7 +37,8 @@ import maze.Node;
  * <li>A whitespace</li>
  * <li>An integer, corresponding to the ID of the other node of the edge</li>
  * </ol>
- * Empty lines are allowed.<br>
+ * optionally followed by a whitespace and a positive integer, the weight of
+ * the edge, which is 1 if it is not given. Empty lines are allowed.<br>
  * <br>
  * The start of the maze must be represented by the node of ID 0, and the end of
  * the maze by the node of ID 1.<br>
@@ -33,9 +46,26 @@ import maze.Node;
  * Nodes themselves do not need to be represented, a node will be created the
  * first time it appears in the file as part of an edge.<br>
  * <br>
+ * Besides the parse method, which builds a Maze, the parseMapped and
+ * parseParallel methods build the compact maze.IntMaze representation of the
+ * same maze, and are meant for large files. The parseCoordinates method reads
+ * the position of the nodes of a maze from a separate file.<br>
+ * <br>
+ * Every parse of a maze is a maze.Parse event of the Java Flight Recorder,
+ * with the size of the file and of the maze, so that recordings show how long
+ * the mazes take to be read.
  */
 public class Parser {
 
+	/* Largest number of bytes mapped in memory at once */
+	private static final long MAPPING_SIZE = Integer.MAX_VALUE;
+
+	/* Smallest chunk of a file parsed by a thread */
+	private static final long MINIMUM_CHUNK_SIZE = 1 << 20;
+
+	/* Number of chunks each thread parses, on average, to balance the load */
+	private static final int CHUNKS_PER_THREAD = 4;
+
 	/**
 	 * Parse the given file and returns the corresponding Maze instance. If the
 	 * file does not exist or is in a wrong format, an IllegalFileException is
@@ -50,6 +80,10 @@ public class Parser {
 	 *             if the file does not exist or is bad formatted
 	 */
 	public Maze<Node> parse(File file) throws IllegalFileException {
+		ParseEvent event = new ParseEvent();
+		event.begin();
+		boolean weighted = false;
+
 		/* Variable for the maze to return */
 		Maze<Node> maze = null;
 		try {
@@ -81,21 +115,23 @@ public class Parser {
 				line = line.trim();
 				/* Allows empty lines, they are just skipped */
 				if (!line.equals("")) {
-					int id1, id2;
+					int id1, id2, weight = 1;
 
 					/* Split the line using the whitespace */
 					String[] tokens = line.split(" ");
 
 					/*
-					 * If there are not exactly two tokens, the exception is
-					 * thrown
+					 * If there are not two tokens, or three with the weight,
+					 * the exception is thrown
 					 */
-					if (tokens.length != 2)
+					if (tokens.length != 2 && tokens.length != 3)
 						throw new IllegalFileException();
 
 					try {
 						id1 = Integer.parseInt(tokens[0]);
 						id2 = Integer.parseInt(tokens[1]);
+						if (tokens.length == 3)
+							weight = Integer.parseInt(tokens[2]);
 					} catch (NumberFormatException e) {
 						/*
 						 * If a token is other than an integer, the exception is
@@ -103,12 +139,18 @@ public class Parser {
 						 */
 						throw new IllegalFileException();
 					}
+
+					/* Weights have to be positive */
+					if (weight < 1)
+						throw new IllegalFileException();
+					weighted |= weight != 1;
+
 					try {
 						/*
 						 * The addEdge method will add nodes as well, if they
 						 * are not already present
 						 */
-						maze.addEdge(new Node(id1), new Node(id2));
+						maze.addEdge(new Node(id1), new Node(id2), weight);
 					} catch (NullNodeException e) {
 					}
 				}
@@ -117,6 +159,273 @@ public class Parser {
 			e.printStackTrace();
 		}
 
+		event.commit("parse", file, 1, maze.getNodeCount(), maze.getEdgeCount(), weighted);
+		return maze;
+	}
+
+	/**
+	 * Parse the given file and returns the corresponding IntMaze instance. If
+	 * the file does not exist or is in a wrong format, an IllegalFileException
+	 * is thrown instead.<br>
+	 * <br>
+	 * The file is memory mapped and its bytes are scanned directly into node
+	 * IDs, which are collected in an IntMaze.Builder: no String is created for
+	 * the lines, and no object is created for the nodes and the edges. The
+	 * format of the file is validated as in the parse method.
+	 * 
+	 * @param file
+	 *            the file to be parsed
+	 * 
+	 * @return the maze represented by the file, in compact form
+	 * 
+	 * @throws IllegalFileException
+	 *             if the file does not exist or is bad formatted
+	 */
+	public IntMaze parseMapped(File file) throws IllegalFileException {
+		if (!file.exists() || file.isDirectory())
+			throw new IllegalFileException();
+
+		ParseEvent event = new ParseEvent();
+		event.begin();
+		IntMaze.Builder builder = new IntMaze.Builder(0, 1);
+		EdgeListScanner scanner = new EdgeListScanner(builder, 0);
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			scanRange(channel, 0, channel.size(), scanner);
+		} catch (IOException e) {
+			e.printStackTrace();
+			throw new IllegalFileException();
+		}
+
+		IntMaze maze = builder.build();
+		event.commit("parseMapped", file, 1, maze.getNodeCount(), maze.getEdgeCount(), maze.isWeighted());
 		return maze;
 	}
+
+	/**
+	 * Parse the given file using as many threads as available processors, and
+	 * returns the corresponding IntMaze instance.
+	 * 
+	 * @param file
+	 *            the file to be parsed
+	 * 
+	 * @return the maze represented by the file, in compact form
+	 * 
+	 * @throws IllegalFileException
+	 *             if the file does not exist or is bad formatted
+	 * 
+	 * @see #parseParallel(File, int)
+	 */
+	public IntMaze parseParallel(File file) throws IllegalFileException {
+		return parseParallel(file, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Parse the given file using the given number of threads, and returns the
+	 * corresponding IntMaze instance. If the file does not exist or is in a
+	 * wrong format, an IllegalFileException is thrown instead.<br>
+	 * <br>
+	 * The file is split into chunks which begin and end at line boundaries.
+	 * Each chunk is memory mapped and scanned by one of the threads, as in the
+	 * parseMapped method, into its own IntMaze.Builder. The builders are then
+	 * merged and the maze is built in parallel, when more than one thread is
+	 * used, removing duplicate edges as the parse method does.<br>
+	 * <br>
+	 * If more than one line is bad formatted, the exception reports the first
+	 * one in the file.
+	 * 
+	 * @param file
+	 *            the file to be parsed
+	 * @param threads
+	 *            the number of threads parsing the file
+	 * 
+	 * @return the maze represented by the file, in compact form
+	 * 
+	 * @throws IllegalFileException
+	 *             if the file does not exist or is bad formatted
+	 */
+	public IntMaze parseParallel(File file, int threads) throws IllegalFileException {
+		if (!file.exists() || file.isDirectory())
+			throw new IllegalFileException();
+
+		ParseEvent event = new ParseEvent();
+		event.begin();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long[] boundaries = chunkBoundaries(channel, threads * CHUNKS_PER_THREAD);
+
+			/* Each chunk is scanned into its own builder */
+			ArrayList<Future<IntMaze.Builder>> chunks = new ArrayList<>();
+			for (int i = 0; i + 1 < boundaries.length; i++) {
+				long begin = boundaries[i];
+				long end = boundaries[i + 1];
+				chunks.add(executor.submit(() -> {
+					IntMaze.Builder chunkBuilder = new IntMaze.Builder(0, 1);
+					scanRange(channel, begin, end, new EdgeListScanner(chunkBuilder, begin));
+					return chunkBuilder;
+				}));
+			}
+
+			/*
+			 * Merging the builders in order, so that the first bad formatted
+			 * line of the file is the one reported
+			 */
+			IntMaze.Builder builder = new IntMaze.Builder(0, 1);
+			for (Future<IntMaze.Builder> chunk : chunks)
+				builder.addAll(chunk.get());
+			chunks = null;
+
+			IntMaze maze = threads > 1 ? builder.buildParallel() : builder.build();
+			event.commit("parseParallel", file, threads, maze.getNodeCount(), maze.getEdgeCount(), maze.isWeighted());
+			return maze;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IllegalFileException)
+				throw (IllegalFileException) e.getCause();
+			e.printStackTrace();
+			throw new IllegalFileException();
+		} catch (IOException | InterruptedException e) {
+			e.printStackTrace();
+			throw new IllegalFileException();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Parse the given file of node coordinates and returns the coordinates of
+	 * the nodes of the given maze. If the file does not exist, is in a wrong
+	 * format or does not give the coordinates of every node of the maze, an
+	 * IllegalFileException is thrown instead.<br>
+	 * <br>
+	 * The file must contain a line for every node, with, in this order and
+	 * separated by a whitespace, the integer ID of the node, its horizontal
+	 * coordinate and its vertical coordinate. Coordinates can be integers or
+	 * decimal numbers. Empty lines are allowed, and lines of nodes which are
+	 * not in the maze are skipped.
+	 * 
+	 * @param file
+	 *            the file to be parsed
+	 * @param graph
+	 *            the maze the coordinates are for
+	 * 
+	 * @return the coordinates of the nodes of the maze
+	 * 
+	 * @throws IllegalFileException
+	 *             if the file does not exist or is bad formatted
+	 */
+	public Coordinates parseCoordinates(File file, IndexedGraph<Node> graph) throws IllegalFileException {
+		if (!file.exists() || file.isDirectory())
+			throw new IllegalFileException();
+
+		int nodeCount = graph.getNodeCount();
+		double[] x = new double[nodeCount];
+		double[] y = new double[nodeCount];
+		boolean[] parsed = new boolean[nodeCount];
+		int parsedCount = 0;
+
+		try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				line = line.trim();
+				/* Allows empty lines, they are just skipped */
+				if (line.equals(""))
+					continue;
+
+				/* There have to be exactly three tokens */
+				String[] tokens = line.split(" ");
+				if (tokens.length != 3)
+					throw new IllegalFileException();
+
+				int index;
+				double nodeX, nodeY;
+				try {
+					index = graph.indexOf(new Node(Integer.parseInt(tokens[0])));
+					nodeX = Double.parseDouble(tokens[1]);
+					nodeY = Double.parseDouble(tokens[2]);
+				} catch (NumberFormatException e) {
+					throw new IllegalFileException();
+				}
+
+				if (index >= 0) {
+					if (!parsed[index])
+						parsedCount++;
+					parsed[index] = true;
+					x[index] = nodeX;
+					y[index] = nodeY;
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			throw new IllegalFileException();
+		}
+
+		/* Every node of the maze needs its coordinates */
+		if (parsedCount != nodeCount)
+			throw new IllegalFileException();
+
+		return new Coordinates(x, y);
+	}
+
+	/*
+	 * Splits the file into at most the given number of chunks, returning the
+	 * offsets at which they begin followed by the size of the file. Every chunk
+	 * but the first begins right after a line terminator.
+	 */
+	private static long[] chunkBoundaries(FileChannel channel, int chunks) throws IOException {
+		long size = channel.size();
+		long chunkSize = Math.max(MINIMUM_CHUNK_SIZE, (size + chunks - 1) / chunks);
+
+		ArrayList<Long> boundaries = new ArrayList<>();
+		boundaries.add(0L);
+
+		ByteBuffer buffer = ByteBuffer.allocate(1 << 12);
+		long boundary = chunkSize;
+		while (boundary < size) {
+			/* Moving the boundary forward to the end of the line */
+			long position = boundary;
+			boundary = size;
+			buffer.clear();
+			while (position < size && channel.read(buffer, position) > 0) {
+				buffer.flip();
+				int i = 0;
+				while (i < buffer.limit() && buffer.get(i) != '\n' && buffer.get(i) != '\r')
+					i++;
+				if (i < buffer.limit()) {
+					boundary = position + i + 1;
+					break;
+				}
+				position += buffer.limit();
+				buffer.clear();
+			}
+
+			if (boundary < size)
+				boundaries.add(boundary);
+			boundary += chunkSize;
+		}
+		boundaries.add(size);
+
+		long[] result = new long[boundaries.size()];
+		for (int i = 0; i < result.length; i++)
+			result[i] = boundaries.get(i);
+		return result;
+	}
+
+	/*
+	 * Scans the bytes of the file from begin (included) to end (excluded),
+	 * which have to be at line boundaries, and finishes the scan
+	 */
+	private static void scanRange(FileChannel channel, long begin, long end, EdgeListScanner scanner)
+			throws IOException, IllegalFileException {
+		/*
+		 * A mapping can not be larger than 2GB, so larger ranges are mapped
+		 * and scanned a piece at a time
+		 */
+		for (long offset = begin; offset < end; offset += MAPPING_SIZE) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+					Math.min(MAPPING_SIZE, end - offset));
+			scanner.scan(buffer, offset);
+		}
+		scanner.finish();
+	}
 }